@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Bean classes to be benchmarked, see {@link Beans}.
+ */
+public enum BeanType {
+    NARROW(Beans.NarrowBean.class, Beans.NarrowBean::new),
+    WIDE(Beans.WideBean.class, Beans.WideBean::new),
+    STYLED(Beans.StyledBean.class, Beans.StyledBean::new),
+    CONVERTED(Beans.ConvertedBean.class, Beans.ConvertedBean::new);
+
+    private final Class<?> type;
+    private final IntFunction<?> factory;
+
+    BeanType(Class<?> type, IntFunction<?> factory) {
+        this.type = type;
+        this.factory = factory;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<Object> type() {
+        return (Class<Object>) type;
+    }
+
+    public List<Object> generate(int count) {
+        List<Object> beans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            beans.add(factory.apply(i));
+        }
+        return beans;
+    }
+
+    /**
+     * @return beans created while the stream is consumed, as read from a database cursor
+     */
+    public Stream<Object> stream(int count) {
+        return IntStream.range(0, count).mapToObj(factory::apply);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.benchmark;
+
+import bean2Excel.ExcelColumn;
+import bean2Excel.ValueConverter;
+import bean2Excel.style.CellStyleProperties;
+import bean2Excel.style.GeneralCellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * Java Beans classes exported by the benchmarks.
+ */
+public class Beans {
+
+    /**
+     * A few columns of each cell type.
+     */
+    public static class NarrowBean {
+        @ExcelColumn(columnName = "text", cellType = CellType.STRING, order = 1)
+        private final String text;
+        @ExcelColumn(columnName = "decimal", cellType = CellType.NUMERIC, order = 2)
+        private final double decimal;
+        @ExcelColumn(columnName = "flag", cellType = CellType.BOOLEAN, order = 3)
+        private final boolean flag;
+        @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 4)
+        private final int count;
+
+        public NarrowBean(int i) {
+            this.text = "text " + i;
+            this.decimal = i * 1.5;
+            this.flag = i % 2 == 0;
+            this.count = i;
+        }
+
+        public String getText() { return text; }
+        public double getDecimal() { return decimal; }
+        public boolean isFlag() { return flag; }
+        public int getCount() { return count; }
+    }
+
+    /**
+     * Same columns as {@link NarrowBean}, with the default general style and autofit column styles.
+     */
+    @GeneralCellStyle
+    public static class StyledBean {
+        @ExcelColumn(columnName = "text", cellType = CellType.STRING, order = 1)
+        @CellStyleProperties
+        private final String text;
+        @ExcelColumn(columnName = "decimal", cellType = CellType.NUMERIC, order = 2)
+        @CellStyleProperties
+        private final double decimal;
+        @ExcelColumn(columnName = "flag", cellType = CellType.BOOLEAN, order = 3)
+        @CellStyleProperties
+        private final boolean flag;
+        @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 4)
+        @CellStyleProperties
+        private final int count;
+
+        public StyledBean(int i) {
+            this.text = "text " + i;
+            this.decimal = i * 1.5;
+            this.flag = i % 2 == 0;
+            this.count = i;
+        }
+
+        public String getText() { return text; }
+        public double getDecimal() { return decimal; }
+        public boolean isFlag() { return flag; }
+        public int getCount() { return count; }
+    }
+
+    /**
+     * Columns using custom value converters.
+     */
+    public static class ConvertedBean {
+        @ExcelColumn(columnName = "text", cellType = CellType.NUMERIC, order = 1, valueConverter = String2Double.class)
+        private final String text;
+        @ExcelColumn(columnName = "decimal", cellType = CellType.STRING, order = 2, valueConverter = Double2String.class)
+        private final Double decimal;
+        @ExcelColumn(columnName = "flag", cellType = CellType.BOOLEAN, order = 3)
+        private final Boolean flag;
+        @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 4, valueConverter = Integer2Double.class)
+        private final Integer count;
+
+        public ConvertedBean(int i) {
+            this.text = Double.toString(i * 0.25);
+            this.decimal = i * 1.5;
+            this.flag = i % 2 == 0;
+            this.count = i;
+        }
+
+        public String getText() { return text; }
+        public Double getDecimal() { return decimal; }
+        public Boolean getFlag() { return flag; }
+        public Integer getCount() { return count; }
+    }
+
+    public static class String2Double implements ValueConverter {
+        @Override
+        public Object convert(Object o) {
+            return Double.parseDouble((String) o);
+        }
+    }
+
+    public static class Double2String implements ValueConverter {
+        @Override
+        public Object convert(Object o) {
+            return o.toString();
+        }
+    }
+
+    public static class Integer2Double implements ValueConverter {
+        @Override
+        public Object convert(Object o) {
+            return ((Integer) o).doubleValue();
+        }
+    }
+
+    /**
+     * Four times the columns of {@link NarrowBean}.
+     */
+    public static class WideBean {
+        @ExcelColumn(columnName = "text 1", cellType = CellType.STRING, order = 1)
+        private final String text1;
+        @ExcelColumn(columnName = "text 2", cellType = CellType.STRING, order = 2)
+        private final String text2;
+        @ExcelColumn(columnName = "text 3", cellType = CellType.STRING, order = 3)
+        private final String text3;
+        @ExcelColumn(columnName = "text 4", cellType = CellType.STRING, order = 4)
+        private final String text4;
+        @ExcelColumn(columnName = "decimal 1", cellType = CellType.NUMERIC, order = 5)
+        private final double decimal1;
+        @ExcelColumn(columnName = "decimal 2", cellType = CellType.NUMERIC, order = 6)
+        private final double decimal2;
+        @ExcelColumn(columnName = "decimal 3", cellType = CellType.NUMERIC, order = 7)
+        private final double decimal3;
+        @ExcelColumn(columnName = "decimal 4", cellType = CellType.NUMERIC, order = 8)
+        private final double decimal4;
+        @ExcelColumn(columnName = "flag 1", cellType = CellType.BOOLEAN, order = 9)
+        private final boolean flag1;
+        @ExcelColumn(columnName = "flag 2", cellType = CellType.BOOLEAN, order = 10)
+        private final boolean flag2;
+        @ExcelColumn(columnName = "flag 3", cellType = CellType.BOOLEAN, order = 11)
+        private final boolean flag3;
+        @ExcelColumn(columnName = "flag 4", cellType = CellType.BOOLEAN, order = 12)
+        private final boolean flag4;
+        @ExcelColumn(columnName = "count 1", cellType = CellType.NUMERIC, order = 13)
+        private final int count1;
+        @ExcelColumn(columnName = "count 2", cellType = CellType.NUMERIC, order = 14)
+        private final int count2;
+        @ExcelColumn(columnName = "count 3", cellType = CellType.NUMERIC, order = 15)
+        private final int count3;
+        @ExcelColumn(columnName = "count 4", cellType = CellType.NUMERIC, order = 16)
+        private final int count4;
+
+        public WideBean(int i) {
+            this.text1 = "text 1 " + i;
+            this.text2 = "text 2 " + i;
+            this.text3 = "text 3 " + i;
+            this.text4 = "text 4 " + i;
+            this.decimal1 = i * 1.5;
+            this.decimal2 = i * 2.5;
+            this.decimal3 = i * 3.5;
+            this.decimal4 = i * 4.5;
+            this.flag1 = i % 2 == 0;
+            this.flag2 = i % 3 == 0;
+            this.flag3 = i % 5 == 0;
+            this.flag4 = i % 7 == 0;
+            this.count1 = i;
+            this.count2 = i * 2;
+            this.count3 = i * 3;
+            this.count4 = i * 4;
+        }
+
+        public String getText1() { return text1; }
+        public String getText2() { return text2; }
+        public String getText3() { return text3; }
+        public String getText4() { return text4; }
+        public double getDecimal1() { return decimal1; }
+        public double getDecimal2() { return decimal2; }
+        public double getDecimal3() { return decimal3; }
+        public double getDecimal4() { return decimal4; }
+        public boolean isFlag1() { return flag1; }
+        public boolean isFlag2() { return flag2; }
+        public boolean isFlag3() { return flag3; }
+        public boolean isFlag4() { return flag4; }
+        public int getCount1() { return count1; }
+        public int getCount2() { return count2; }
+        public int getCount3() { return count3; }
+        public int getCount4() { return count4; }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.benchmark;
+
+import bean2Excel.Bean2Excel;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of writing a complete xlsx file, using a streaming workbook or {@link Bean2Excel#getWriteWorkbookFunc(Class)}.
+ * Unlike {@link ExportBenchmark}, serializing the workbook is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DirectWriterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"NARROW", "WIDE", "STYLED", "CONVERTED"})
+    private BeanType beanType;
+
+    private List<Object> beans;
+
+    @Setup(Level.Trial)
+    public void generateBeans() {
+        beans = beanType.generate(rows);
+    }
+
+    @Benchmark
+    public void streamingWorkbook() throws Exception {
+        Workbook workbook = WorkbookType.SXSSF.create();
+        try {
+            Bean2Excel.getCreateSheetFunc(beanType.type()).exec(beans, workbook, "sheet");
+            workbook.write(OutputStream.nullOutputStream());
+        }
+        finally {
+            WorkbookType.SXSSF.dispose(workbook);
+        }
+    }
+
+    @Benchmark
+    public void directWriter() {
+        Bean2Excel.getWriteWorkbookFunc(beanType.type()).exec(beans, OutputStream.nullOutputStream(), "sheet");
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.benchmark;
+
+import bean2Excel.ExportResult;
+import bean2Excel.ExportService;
+import bean2Excel.SheetSource;
+import bean2Excel.WorkbookExport;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of {@link ExportService}: rounds of concurrent exports, as many requests of a report API
+ * arriving at once, each streaming its rows to a discarded output. Reports the latency of the exports,
+ * queueing included, and the peak heap usage, which should stay flat whatever the number of exports.
+ * <br/>
+ * Arguments are {@code key=value} pairs, e.g.
+ * <pre>
+ * java -cp target/benchmarks.jar bean2Excel.benchmark.ExportLoadTest exports=500 rows=20000 sheets=8
+ * </pre>
+ * {@code exports} concurrent exports per round (default 500), {@code rows} rows per export (default 20000),
+ * {@code sheets} budget of the service (default the number of processors), {@code beanType} (default NARROW),
+ * {@code rounds} (default 5, the first one warms up).
+ */
+public class ExportLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            arguments.put(keyValue[0], keyValue[1]);
+        }
+        int exports = Integer.parseInt(arguments.getOrDefault("exports", "500"));
+        int rows = Integer.parseInt(arguments.getOrDefault("rows", "20000"));
+        int sheets = Integer.parseInt(arguments.getOrDefault("sheets", "0"));
+        BeanType beanType = BeanType.valueOf(arguments.getOrDefault("beanType", "NARROW"));
+        int rounds = Integer.parseInt(arguments.getOrDefault("rounds", "5"));
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heap-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(
+            () -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+            0, 10, TimeUnit.MILLISECONDS);
+
+        System.out.printf("%d exports of %d %s rows per round, max heap %d MB%n",
+            exports, rows, beanType, Runtime.getRuntime().maxMemory() >> 20);
+        try (ExportService service = ExportService.builder()
+            .maxConcurrentSheets(sheets)
+            .maxQueuedExports(exports)
+            .build()
+        ) {
+            for (int round = 0; round < rounds; round++) {
+                peakHeap.set(0);
+                long[] latencies = new long[exports];
+                List<CompletableFuture<ExportResult>> results = new ArrayList<>(exports);
+                CountDownLatch done = new CountDownLatch(exports);
+                long roundStart = System.nanoTime();
+                for (int i = 0; i < exports; i++) {
+                    int export = i;
+                    long submitted = System.nanoTime();
+                    CompletableFuture<ExportResult> result = service.submit(
+                        WorkbookExport.builder()
+                            .sheet(SheetSource.of(beanType.type(), "sheet", beanType.stream(rows)))
+                            .build(),
+                        OutputStream.nullOutputStream()
+                    );
+                    result.whenComplete((exportResult, e) -> {
+                        latencies[export] = System.nanoTime() - submitted;
+                        done.countDown();
+                    });
+                    results.add(result);
+                }
+                done.await();
+                long roundNanos = System.nanoTime() - roundStart;
+                long failed = results.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+
+                Arrays.sort(latencies);
+                System.out.printf(
+                    "%s %d: %.1f exports/s, latency ms p50 %d p90 %d p99 %d max %d, %d failed, peak heap %d MB%n",
+                    round == 0 ? "warmup" : "round", round, exports * 1e9 / roundNanos,
+                    millis(latencies, 0.5), millis(latencies, 0.9), millis(latencies, 0.99),
+                    latencies[exports - 1] / 1_000_000, failed, peakHeap.get() >> 20);
+            }
+        }
+        finally {
+            sampler.shutdownNow();
+        }
+    }
+
+    private static long millis(long[] sortedLatencies, double percentile) {
+        return sortedLatencies[(int) Math.ceil(percentile * sortedLatencies.length) - 1] / 1_000_000;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import static bean2Excel.BeanInfo.GetterFunc;
+
+/**
+ * Turn getters, setters and constructors into functions that can be invoked without reflection.
+ * <br/>
+ * Functions are spun with {@link LambdaMetafactory} inside the member's declaring class, so they are as fast as
+ * a hand written lambda and don't keep the declaring class loader alive. When that's not possible
+ * (e.g. the class is in a module that isn't open to this library), a {@link MethodHandle} is used instead.
+ * <br/>
+ * Fields without accessor are read through a {@link VarHandle} found in their declaring class, which is slower
+ * than a generated function as the handle can't be inlined as a constant, but avoids requiring a getter.
+ * <br/>
+ * Exceptions thrown by the members are propagated as is.
+ */
+class Accessors {
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = Map.of(
+        boolean.class, Boolean.class,
+        byte.class, Byte.class,
+        short.class, Short.class,
+        char.class, Character.class,
+        int.class, Integer.class,
+        long.class, Long.class,
+        float.class, Float.class,
+        double.class, Double.class
+    );
+
+    @FunctionalInterface
+    private interface Unreflector {
+        MethodHandle unreflect(MethodHandles.Lookup lookup) throws IllegalAccessException;
+    }
+
+    private Accessors() {}
+
+    static GetterFunc<?> getterFunc(@NotNull Method getter) {
+        Function<Object, Object> function = generate(getter, lookup -> lookup.unreflect(getter),
+            Function.class, "apply", MethodType.methodType(Object.class, Object.class),
+            MethodType.methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+        if (function == null) {
+            MethodHandle handle = unreflect(getter).asType(MethodType.methodType(Object.class, Object.class));
+            function = (o) -> {
+                try {
+                    return (Object) handle.invokeExact(o);
+                }
+                catch (Throwable e) {
+                    throw rethrow(getter, e);
+                }
+            };
+        }
+        return function::apply;
+    }
+
+    /**
+     * @return an unboxed accessor, or {@code null} if the getter doesn't return a numeric primitive
+     */
+    static @Nullable ToDoubleFunction<Object> doubleGetter(@NotNull Method getter) {
+        Class<?> type = getter.getReturnType();
+        if (!type.isPrimitive() || type == boolean.class || type == void.class) {
+            return null;
+        }
+        ToDoubleFunction<Object> function = generate(getter, lookup -> lookup.unreflect(getter),
+            ToDoubleFunction.class, "applyAsDouble", MethodType.methodType(double.class, Object.class),
+            MethodType.methodType(double.class, getter.getDeclaringClass()));
+        if (function == null) {
+            MethodHandle handle = unreflect(getter).asType(MethodType.methodType(double.class, Object.class));
+            function = (o) -> {
+                try {
+                    return (double) handle.invokeExact(o);
+                }
+                catch (Throwable e) {
+                    throw rethrow(getter, e);
+                }
+            };
+        }
+        return function;
+    }
+
+    /**
+     * @return an unboxed accessor, or {@code null} if the getter doesn't return a primitive boolean
+     */
+    static @Nullable Predicate<Object> booleanGetter(@NotNull Method getter) {
+        if (getter.getReturnType() != boolean.class) {
+            return null;
+        }
+        Predicate<Object> function = generate(getter, lookup -> lookup.unreflect(getter),
+            Predicate.class, "test", MethodType.methodType(boolean.class, Object.class),
+            MethodType.methodType(boolean.class, getter.getDeclaringClass()));
+        if (function == null) {
+            MethodHandle handle = unreflect(getter).asType(MethodType.methodType(boolean.class, Object.class));
+            function = (o) -> {
+                try {
+                    return (boolean) handle.invokeExact(o);
+                }
+                catch (Throwable e) {
+                    throw rethrow(getter, e);
+                }
+            };
+        }
+        return function;
+    }
+
+    /**
+     * @return a function reading the field, primitive values are boxed
+     */
+    static GetterFunc<?> getterFunc(@NotNull Field field) {
+        MethodHandle handle = fieldHandle(field, Object.class);
+        return (o) -> {
+            try {
+                return (Object) handle.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(field, e);
+            }
+        };
+    }
+
+    /**
+     * @return an unboxed accessor, or {@code null} if the field isn't of a numeric primitive type
+     */
+    static @Nullable ToDoubleFunction<Object> doubleGetter(@NotNull Field field) {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive() || type == boolean.class) {
+            return null;
+        }
+        MethodHandle handle = fieldHandle(field, double.class);
+        return (o) -> {
+            try {
+                return (double) handle.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(field, e);
+            }
+        };
+    }
+
+    /**
+     * @return an unboxed accessor, or {@code null} if the field isn't of primitive boolean type
+     */
+    static @Nullable Predicate<Object> booleanGetter(@NotNull Field field) {
+        if (field.getType() != boolean.class) {
+            return null;
+        }
+        MethodHandle handle = fieldHandle(field, boolean.class);
+        return (o) -> {
+            try {
+                return (boolean) handle.invokeExact(o);
+            }
+            catch (Throwable e) {
+                throw rethrow(field, e);
+            }
+        };
+    }
+
+    /**
+     * @return a function calling the single argument setter, primitive arguments are unboxed
+     */
+    static BiConsumer<Object, Object> setterFunc(@NotNull Method setter) {
+        BiConsumer<Object, Object> function = generate(setter, lookup -> lookup.unreflect(setter),
+            BiConsumer.class, "accept", MethodType.methodType(void.class, Object.class, Object.class),
+            MethodType.methodType(void.class, setter.getDeclaringClass(), wrap(setter.getParameterTypes()[0])));
+        if (function == null) {
+            MethodHandle handle = unreflect(setter)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            function = (o, value) -> {
+                try {
+                    handle.invokeExact(o, value);
+                }
+                catch (Throwable e) {
+                    throw rethrow(setter, e);
+                }
+            };
+        }
+        return function;
+    }
+
+    /**
+     * @return a function calling the no args constructor
+     */
+    static Supplier<Object> constructorFunc(@NotNull Constructor<?> constructor) {
+        Supplier<Object> function = generate(constructor, lookup -> lookup.unreflectConstructor(constructor),
+            Supplier.class, "get", MethodType.methodType(Object.class),
+            MethodType.methodType(constructor.getDeclaringClass()));
+        if (function == null) {
+            MethodHandle handle = unreflect(constructor).asType(MethodType.methodType(Object.class));
+            function = () -> {
+                try {
+                    return (Object) handle.invokeExact();
+                }
+                catch (Throwable e) {
+                    throw rethrow(constructor, e);
+                }
+            };
+        }
+        return function;
+    }
+
+    /**
+     * @return a function calling the constructor with an array of arguments, primitive arguments are unboxed
+     */
+    static Function<Object[], Object> argsConstructorFunc(@NotNull Constructor<?> constructor) {
+        MethodHandle handle = unreflect(constructor)
+            .asSpreader(Object[].class, constructor.getParameterCount())
+            .asType(MethodType.methodType(Object.class, Object[].class));
+        return (args) -> {
+            try {
+                return (Object) handle.invokeExact(args);
+            }
+            catch (Throwable e) {
+                throw rethrow(constructor, e);
+            }
+        };
+    }
+
+    static Class<?> wrap(Class<?> type) {
+        return WRAPPERS.getOrDefault(type, type);
+    }
+
+    /**
+     * @return an instance of {@code functionType} calling the member, or {@code null} if it can't be generated,
+     * e.g. if the class of the member isn't open to this library
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> @Nullable F generate(
+        Executable member,
+        Unreflector unreflector,
+        Class<? super F> functionType,
+        String functionMethodName,
+        MethodType functionMethodType,
+        MethodType instantiatedMethodType
+    ) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(member.getDeclaringClass(), MethodHandles.lookup());
+            return (F) LambdaMetafactory.metafactory(
+                lookup,
+                functionMethodName,
+                MethodType.methodType(functionType),
+                functionMethodType,
+                unreflector.unreflect(lookup),
+                instantiatedMethodType
+            ).getTarget().invoke();
+        }
+        catch (IllegalAccessException | LambdaConversionException e) {
+            return null;
+        }
+        catch (Throwable e) {
+            throw rethrow(member, e);
+        }
+    }
+
+    private static MethodHandle unreflect(Executable member) {
+        try {
+            return member instanceof Constructor<?> constructor
+                ? MethodHandles.lookup().unreflectConstructor(constructor)
+                : MethodHandles.lookup().unreflect((Method) member);
+        }
+        catch (IllegalAccessException e) {
+            throw new Bean2ExcelException(String.format(
+                "\"%s\" of \"%s\" is not accessible",
+                member.getName(), member.getDeclaringClass().getName()), e);
+        }
+    }
+
+    /**
+     * @return a handle reading the field of an object as {@code type}. Private fields of classes in named modules
+     * can only be read if their package is open to this library.
+     */
+    private static MethodHandle fieldHandle(Field field, Class<?> type) {
+        if (Modifier.isStatic(field.getModifiers())) {
+            throw new Bean2ExcelException(String.format(
+                "Static field \"%s\" of \"%s\" can't be a column", field.getName(), field.getDeclaringClass().getName()));
+        }
+        Class<?> declaringClass = field.getDeclaringClass();
+        try {
+            Accessors.class.getModule().addReads(declaringClass.getModule());
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+            return lookup.unreflectVarHandle(field)
+                .toMethodHandle(VarHandle.AccessMode.GET)
+                .asType(MethodType.methodType(type, Object.class));
+        }
+        catch (IllegalAccessException e) {
+            throw new Bean2ExcelException(String.format(
+                "Field \"%s\" of \"%s\" has no public getter and is not accessible, open its package to bean2Excel",
+                field.getName(), declaringClass.getName()), e);
+        }
+    }
+
+    private static RuntimeException rethrow(Member member, Throwable e) {
+        if (e instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        return new Bean2ExcelException(String.format(
+            "\"%s\" of \"%s\" threw an exception",
+            member.getName(), member.getDeclaringClass().getName()), e);
+    }
+}
@@ -26,154 +26,1856 @@
 package bean2Excel;
 
 import bean2Excel.style.CellStylePropertiesProvider;
+import bean2Excel.style.CellStyleProvider;
 import lombok.NonNull;
 import lombok.val;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellUtil;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
 
 import static bean2Excel.BeanInfo.*;
+import static bean2Excel.ColumnWidthEstimator.CharWidths;
+import static bean2Excel.SharedStrings.ColumnDictionary;
+import static bean2Excel.ZipPackageWriter.DeflatedData;
+import static bean2Excel.ZipPackageWriter.DeflatingOutputStream;
 
 public class Bean2Excel {
 
     @FunctionalInterface
     public interface CreateSheetFunc<T> {
         /**
-         * Create an Excel sheet from a list of Java Beans objects. Each object is the data of a row.
-         * @param objectList a list of Java Beans objects
+         * Create an Excel sheet from Java Beans objects. Each object is the data of a row.
+         * Objects are converted to rows one at a time as they are pulled from the iterator.
+         * @param objects an iterator of Java Beans objects
          * @param workbook the workbook used to create Excel sheet
          * @param sheetName name of the sheet to be created
          * @return the created sheet
          * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
          */
         Sheet exec(
-            @NonNull List<T> objectList,
+            @NonNull Iterator<T> objects,
             @NonNull Workbook workbook,
             @NonNull String sheetName
         );
+
+        /**
+         * Create an Excel sheet from a collection of Java Beans objects. Each object is the data of a row.
+         * <br/>
+         * See {@link #exec(Iterator, Workbook, String)}.
+         * @param objects a collection of Java Beans objects, e.g. a {@link List}
+         * @param workbook the workbook used to create Excel sheet
+         * @param sheetName name of the sheet to be created
+         * @return the created sheet
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+         */
+        default Sheet exec(
+            @NonNull Iterable<T> objects,
+            @NonNull Workbook workbook,
+            @NonNull String sheetName
+        ) {
+            return exec(objects.iterator(), workbook, sheetName);
+        }
+
+        /**
+         * Create an Excel sheet from a stream of Java Beans objects. Each object is the data of a row.
+         * The stream is consumed lazily, it is not closed by this method.
+         * <br/>
+         * See {@link #exec(Iterator, Workbook, String)}.
+         * @param objects a stream of Java Beans objects
+         * @param workbook the workbook used to create Excel sheet
+         * @param sheetName name of the sheet to be created
+         * @return the created sheet
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+         */
+        default Sheet exec(
+            @NonNull Stream<T> objects,
+            @NonNull Workbook workbook,
+            @NonNull String sheetName
+        ) {
+            return exec(objects.iterator(), workbook, sheetName);
+        }
+
+        /**
+         * Create Excel sheets from Java Beans objects, starting a new sheet every {@code maxRowsPerSheet} rows.
+         * Sheets are named {@code sheetName}, {@code sheetName_2}, {@code sheetName_3}, etc.
+         * At least one sheet is created.
+         * <br/>
+         * See {@link #exec(Iterator, Workbook, String)}.
+         * @param objects an iterator of Java Beans objects
+         * @param workbook the workbook used to create Excel sheets
+         * @param sheetName name of the first sheet
+         * @param maxRowsPerSheet number of data rows of each sheet, or 0 for the maximum allowed by the workbook
+         * @return the created sheets
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+         */
+        default List<Sheet> execSplit(
+            @NonNull Iterator<T> objects,
+            @NonNull Workbook workbook,
+            @NonNull String sheetName,
+            int maxRowsPerSheet
+        ) {
+            // the header takes a row
+            int maxRows = workbook.getSpreadsheetVersion().getMaxRows() - 1;
+            if (maxRowsPerSheet < 0 || maxRowsPerSheet > maxRows) {
+                throw new Bean2ExcelException(String.format(
+                    "Max rows per sheet must be between 0 and %d, got %d", maxRows, maxRowsPerSheet));
+            }
+            int rowsPerSheet = maxRowsPerSheet == 0 ? maxRows : maxRowsPerSheet;
+
+            List<Sheet> sheets = new ArrayList<>();
+            do {
+                Iterator<T> sheetObjects = new Iterator<>() {
+                    private int rowCount;
+
+                    @Override
+                    public boolean hasNext() {
+                        return rowCount < rowsPerSheet && objects.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        rowCount++;
+                        return objects.next();
+                    }
+                };
+                sheets.add(exec(sheetObjects, workbook, splitSheetName(sheetName, sheets.size() + 1)));
+            } while (objects.hasNext());
+            return sheets;
+        }
+
+        /**
+         * Create Excel sheets from a collection of Java Beans objects, starting a new sheet every
+         * {@code maxRowsPerSheet} rows.
+         * <br/>
+         * See {@link #execSplit(Iterator, Workbook, String, int)}.
+         * @param objects a collection of Java Beans objects, e.g. a {@link List}
+         * @param workbook the workbook used to create Excel sheets
+         * @param sheetName name of the first sheet
+         * @param maxRowsPerSheet number of data rows of each sheet, or 0 for the maximum allowed by the workbook
+         * @return the created sheets
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+         */
+        default List<Sheet> execSplit(
+            @NonNull Iterable<T> objects,
+            @NonNull Workbook workbook,
+            @NonNull String sheetName,
+            int maxRowsPerSheet
+        ) {
+            return execSplit(objects.iterator(), workbook, sheetName, maxRowsPerSheet);
+        }
+    }
+
+    @FunctionalInterface
+    public interface WriteWorkbookFunc<T> {
+        /**
+         * Write a workbook of a single sheet from Java Beans objects straight to an output stream,
+         * in the xlsx format. Each object is the data of a row, written as soon as it is pulled from the iterator.
+         * <br/>
+         * Unlike {@link CreateSheetFunc}, no POI workbook is built, so memory usage doesn't depend on the number
+         * of rows. Cell styles are resolved once per column, cell dependent style providers are called with
+         * a blank cell of the first data row. The width of autofit columns is estimated from the header and the
+         * first 1000 rows, which are kept in memory until then.
+         * <br/>
+         * The sheet is streamed to the output stream, so the write fails if its xml exceeds 4 GB, far beyond
+         * usual sheets. See
+         * {@link Bean2Excel#writeWorkbook(OutputStream, List, ExportOptions)} to split larger data into several sheets.
+         * @param objects an iterator of Java Beans objects
+         * @param outputStream where the workbook is written, it is not closed by this method
+         * @param sheetName name of the sheet to be created
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+         * or that the workbook couldn't be written.
+         */
+        void exec(
+            @NonNull Iterator<T> objects,
+            @NonNull OutputStream outputStream,
+            @NonNull String sheetName
+        );
+
+        /**
+         * Write a workbook of a single sheet from a collection of Java Beans objects.
+         * <br/>
+         * See {@link #exec(Iterator, OutputStream, String)}.
+         * @param objects a collection of Java Beans objects, e.g. a {@link List}
+         * @param outputStream where the workbook is written, it is not closed by this method
+         * @param sheetName name of the sheet to be created
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+         * or that the workbook couldn't be written.
+         */
+        default void exec(
+            @NonNull Iterable<T> objects,
+            @NonNull OutputStream outputStream,
+            @NonNull String sheetName
+        ) {
+            exec(objects.iterator(), outputStream, sheetName);
+        }
+
+        /**
+         * Write a workbook of a single sheet from a stream of Java Beans objects.
+         * The stream is consumed lazily, it is not closed by this method.
+         * <br/>
+         * See {@link #exec(Iterator, OutputStream, String)}.
+         * @param objects a stream of Java Beans objects
+         * @param outputStream where the workbook is written, it is not closed by this method
+         * @param sheetName name of the sheet to be created
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+         * or that the workbook couldn't be written.
+         */
+        default void exec(
+            @NonNull Stream<T> objects,
+            @NonNull OutputStream outputStream,
+            @NonNull String sheetName
+        ) {
+            exec(objects.iterator(), outputStream, sheetName);
+        }
+    }
+
+    /**
+     * Append rows to a sheet batch by batch, e.g. pages of a query or messages of a stream. The header is written
+     * once, when the appender creates the sheet, and the columns and styles of the sheet are resolved once per
+     * appender, so appending a small batch costs the conversion of its rows.
+     * <br/>
+     * {@link #checkpoint()} returns the position of the appender between two batches, from which a new appender
+     * can resume, e.g. after a batch failed halfway, see
+     * {@link Bean2Excel#getSheetAppender(Class, Workbook, SheetCheckpoint, ExportOptions)}.
+     * <br/>
+     * Like workbooks, appenders aren't thread safe.
+     * @param <T> type of the Java Beans objects
+     */
+    public static final class SheetAppender<T> {
+        private final Sheet sheet;
+        private final List<ProcessedFieldInfo> columns;
+        private final CellWriter[] cellWriters;
+        private final SheetStyles styles;
+        private final @Nullable RowExpander rowExpander;
+        private final @Nullable ColumnWidthEstimator estimator;
+        private final int autoFitSampleRows;
+        private int nextRowIndex;
+
+        private SheetAppender(
+            Sheet sheet,
+            Class<T> objectType,
+            ExportOptions options,
+            int nextRowIndex,
+            boolean writeHeader
+        ) {
+            this.sheet = sheet;
+            this.columns = getColumns(objectType, options.projection());
+            this.cellWriters = columns.stream().map(ProcessedFieldInfo::cellWriter).toArray(CellWriter[]::new);
+            ExcelObjectInfo excelObjectInfo = getExcelInfoFromBeans(objectType);
+            this.styles = new SheetStyles(sheet.getWorkbook(), excelObjectInfo.generalStyle(), columns.size());
+            this.rowExpander = excelObjectInfo.rowExpander();
+            // widths of rows written before the appender are unknown, autofit only applies to sheets it creates
+            this.estimator = writeHeader ? newEstimator(columns) : null;
+            this.autoFitSampleRows = options.autoFitSampleRows();
+            this.nextRowIndex = nextRowIndex;
+
+            if (writeHeader) {
+                Row headerRow = sheet.createRow(0);
+                for (val processed : columns) {
+                    Cell headerCell = headerRow.createCell(processed.columnIndex());
+                    headerCell.setCellValue(processed.fieldInfo().columnInfo().columnName());
+                    styles.styleHeaderCell(headerCell, processed);
+                    if (estimator != null) {
+                        estimator.measure(headerCell);
+                    }
+                }
+                if (estimator != null) {
+                    estimator.apply(sheet);
+                }
+            }
+        }
+
+        /**
+         * Append a row per object after the rows written so far.
+         * @param objects an iterator of Java Beans objects
+         * @return number of appended rows
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+         */
+        public int append(@NonNull Iterator<T> objects) {
+            Iterator<?> rows = rowExpander == null ? objects : rowExpander.expand(objects, true);
+            int firstRowIndex = nextRowIndex;
+            while (rows.hasNext()) {
+                val rowObject = rows.next();
+                Row row = sheet.createRow(nextRowIndex);
+                boolean measured = estimator != null && nextRowIndex <= autoFitSampleRows;
+                for (int columnIndex = 0; columnIndex < cellWriters.length; columnIndex++) {
+                    Cell cell = row.createCell(columnIndex);
+                    cellWriters[columnIndex].write(cell, rowObject);
+                    styles.styleCell(cell, columns.get(columnIndex));
+                    if (measured) {
+                        estimator.measure(cell);
+                    }
+                }
+                nextRowIndex++;
+            }
+            if (estimator != null && firstRowIndex <= autoFitSampleRows && nextRowIndex > firstRowIndex) {
+                estimator.apply(sheet);
+            }
+            return nextRowIndex - firstRowIndex;
+        }
+
+        /**
+         * See {@link #append(Iterator)}.
+         * @param objects a collection of Java Beans objects, e.g. a {@link List}
+         * @return number of appended rows
+         */
+        public int append(@NonNull Iterable<T> objects) {
+            return append(objects.iterator());
+        }
+
+        /**
+         * See {@link #append(Iterator)}.
+         * @param objects a stream of Java Beans objects, consumed lazily, it is not closed
+         * @return number of appended rows
+         */
+        public int append(@NonNull Stream<T> objects) {
+            return append(objects.iterator());
+        }
+
+        /**
+         * @return the position of the appender, valid until the next batch is appended
+         */
+        public SheetCheckpoint checkpoint() {
+            return new SheetCheckpoint(sheet.getSheetName(), nextRowIndex);
+        }
+
+        public Sheet sheet() {
+            return sheet;
+        }
+    }
+
+    /**
+     * @param styleRules set when the column has conditional styles
+     * @param numericGetter set when values of a numeric column can be read without boxing
+     * @param booleanGetter set when values of a boolean column can be read without boxing
+     * @param doubleConverter set when values of a numeric column are converted without boxing
+     * @param cellWriter writes the value of the column, see {@link #compileCellWriter}
+     */
+    private record ProcessedFieldInfo(
+        @NotNull FieldInfo fieldInfo,
+        @NotNull Integer columnIndex,
+        @NotNull ValueConverter valueConverter,
+        @Nullable StylePropertiesSetter styleSetter,
+        @Nullable StyleRules styleRules,
+        @Nullable ToDoubleFunction<Object> numericGetter,
+        @Nullable Predicate<Object> booleanGetter,
+        @Nullable DoubleValueConverter<Object> doubleConverter,
+        @NotNull CellWriter cellWriter
+    ){}
+
+    /**
+     * Write the value of a column of a Java Beans object into a cell.
+     */
+    @FunctionalInterface
+    private interface CellWriter {
+        void write(Cell cell, Object rowObject);
+    }
+
+    /**
+     * Creates sheets of the columns of a Java Beans class and a projection. Other options are read on each call,
+     * so the functions of options created per call share it, see {@link #getCreateSheetFunc(Class, ExportOptions)}.
+     */
+    @FunctionalInterface
+    interface CompiledSheetFunc {
+        /**
+         * @param rows objects of the rows, expanded by the {@link RowExpander} of the class if any
+         */
+        Sheet exec(Iterator<?> rows, Workbook workbook, String sheetName, ExportOptions options);
+    }
+
+    /**
+     * Columns of a projection of a Java Beans class and the functions compiled for them. They are cached together,
+     * so a projection counts once toward the maximum size of the cache, and its functions are evicted with it.
+     * Functions are compiled on first use, possibly more than once by concurrent calls.
+     */
+    static final class CompiledProjection {
+        private final ProjectedType objectType;
+        private final List<ProcessedFieldInfo> columns;
+        private volatile @Nullable CompiledSheetFunc sheetFunc;
+        private volatile @Nullable DirectSheetPlan directPlan;
+        private volatile @Nullable WriteWorkbookFunc<?> writeWorkbookFunc;
+
+        private CompiledProjection(Class<?> type, ColumnProjection projection) {
+            this.objectType = new ProjectedType(type, projection);
+            List<ProcessedFieldInfo> allColumns = processedFieldsCache.get(type);
+            this.columns = projection.equals(ColumnProjection.ALL)
+                ? allColumns
+                : projectColumns(type, allColumns, projection);
+        }
+
+        private CompiledSheetFunc sheetFunc() {
+            CompiledSheetFunc func = sheetFunc;
+            if (func == null) {
+                func = compileSheetFunc(objectType.type(), columns);
+                sheetFunc = func;
+            }
+            return func;
+        }
+
+        private DirectSheetPlan directPlan() {
+            DirectSheetPlan plan = directPlan;
+            if (plan == null) {
+                plan = compileDirectSheetPlan(columns);
+                directPlan = plan;
+            }
+            return plan;
+        }
+
+        private WriteWorkbookFunc<?> writeWorkbookFunc() {
+            WriteWorkbookFunc<?> func = writeWorkbookFunc;
+            if (func == null) {
+                func = createWriteWorkbookFunc(objectType);
+                writeWorkbookFunc = func;
+            }
+            return func;
+        }
+    }
+
+    /**
+     * Write the value of a column of a Java Beans object with {@link SpreadsheetMLWriter}.
+     */
+    @FunctionalInterface
+    private interface DirectCellWriter {
+        /**
+         * @param styles index of the style of the column, followed by the styles of its conditional styles
+         */
+        void write(SheetXmlWriter writer, Object rowObject, int[] styles) throws IOException;
+    }
+
+    /**
+     * Columns of a Java Beans class written by the direct writer.
+     */
+    private record ProjectedType(
+        @NotNull Class<?> type,
+        @NotNull ColumnProjection projection
+    ) {
+        private static ProjectedType of(SheetSource<?> source) {
+            return new ProjectedType(source.type(), source.projection());
+        }
+    }
+
+    /**
+     * Columns of a Java Beans class, compiled to be written with {@link SheetXmlWriter}.
+     */
+    private record DirectSheetPlan(
+        @NotNull List<ProcessedFieldInfo> columns,
+        DirectCellWriter @NotNull [] cellWriters,
+        @NotNull List<Integer> autoFitColumns
+    ) {}
+
+    /**
+     * Styles of a workbook written by {@link SpreadsheetMLWriter}.
+     * @param stylesXml content of the styles part
+     * @param headerStyles index of the style of each header cell, by projected Java Beans class
+     * @param cellStyles index of the style of each column followed by the styles of its conditional styles,
+     *                   by projected Java Beans class
+     * @param styleCharWidths width of the characters of the font of each style, set if a column is autofit
+     */
+    private record DirectStyles(
+        byte @NotNull [] stylesXml,
+        @NotNull Map<ProjectedType, int[]> headerStyles,
+        @NotNull Map<ProjectedType, int[][]> cellStyles,
+        CharWidths @Nullable [] styleCharWidths
+    ) {}
+
+    /**
+     * A sheet written by another thread into a temporary file, see {@link ZipPackageWriter.DeflatingOutputStream}.
+     */
+    private record DeflatedSheet(
+        @NotNull String sheetName,
+        @NotNull Path file,
+        @NotNull DeflatedData data
+    ) {}
+
+    /**
+     * @param cellDependent whether any of the cell style providers depends on the cell,
+     *                      otherwise the style of the column is resolved only once per sheet
+     */
+    private record StylePropertiesSetter(
+        @NotNull List<CellStylePropertiesProvider> headerStyleProviders,
+        @NotNull List<CellStylePropertiesProvider> cellStyleProviders,
+        boolean cellDependent
+    ) {}
+
+    /**
+     * Format declared by {@link ExcelColumn#format()}, or the default format of the type of the column.
+     * The format is resolved to a data format of the workbook once per column of each sheet, the resulting style
+     * being shared by the cells of the column.
+     */
+    private record DataFormatProperties(@NotNull String format) implements CellStylePropertiesProvider {
+        @Override
+        public Map<String, Object> getCellStyleProperties(Cell cell) {
+            return Map.of(CellUtil.DATA_FORMAT, cell.getSheet().getWorkbook().createDataFormat().getFormat(format));
+        }
+
+        @Override
+        public boolean isCellDependent() {
+            return false;
+        }
+    }
+
+    /**
+     * Converted values of a chunk of rows. Values of a column with an unboxed numeric getter are stored in
+     * {@code numbers}, values of other columns in {@code values}, both at index {@code row * columnCount + column}.
+     * Values of a column with a {@link DoubleValueConverter} are stored in {@code numbers}, unless the value of the
+     * field is {@code null}: the value of the field is stored in {@code values} to tell them apart.
+     */
+    private record RowChunk(
+        int size,
+        double @NotNull [] numbers,
+        Object @NotNull [] values
+    ) {}
+
+    /**
+     * Cell styles of a sheet being created. Cells are styled once their value is set.
+     */
+    private static final class SheetStyles {
+        private final @Nullable CellStyle generalStyle;
+        private final CellStyleCache styleCache;
+        // styles of columns not depending on the cell, resolved from the first data cell of the column
+        private final CellStyle[] columnStyles;
+        // styles of the conditional styles of columns not depending on the cell, by column and rule
+        private final CellStyle[][] ruleStyles;
+
+        private SheetStyles(Workbook workbook, @Nullable CellStyleProvider generalStyleProvider, int columnCount) {
+            WorkbookStyles workbookStyles = WorkbookStyles.of(workbook);
+            this.generalStyle = generalStyleProvider == null
+                ? null
+                : workbookStyles.generalStyle(generalStyleProvider, workbook);
+            this.styleCache = new CellStyleCache(workbook, workbookStyles);
+            this.columnStyles = new CellStyle[columnCount];
+            this.ruleStyles = new CellStyle[columnCount][];
+        }
+
+        private void styleHeaderCell(Cell headerCell, ProcessedFieldInfo processed) {
+            headerCell.setCellStyle(generalStyle);
+            if (processed.styleSetter() != null) {
+                styleCache.apply(headerCell, mergePropertiesMap(processed.styleSetter().headerStyleProviders(), headerCell));
+            }
+        }
+
+        private void styleCell(Cell cell, ProcessedFieldInfo processed) {
+            val styleRules = processed.styleRules();
+            if (styleRules == null) {
+                styleColumnCell(cell, processed);
+                return;
+            }
+
+            int rule = styleRules.match(cell);
+            if (rule < 0) {
+                styleColumnCell(cell, processed);
+                return;
+            }
+            CellStyle[] columnRuleStyles = ruleStyles[processed.columnIndex()];
+            if (columnRuleStyles != null && columnRuleStyles[rule] != null) {
+                cell.setCellStyle(columnRuleStyles[rule]);
+                return;
+            }
+            styleColumnCell(cell, processed);
+            styleCache.apply(cell, mergePropertiesMap(styleRules.cellStyle(rule), cell));
+            if (processed.styleSetter() == null || !processed.styleSetter().cellDependent()) {
+                if (columnRuleStyles == null) {
+                    columnRuleStyles = ruleStyles[processed.columnIndex()] = new CellStyle[styleRules.size()];
+                }
+                columnRuleStyles[rule] = cell.getCellStyle();
+            }
+        }
+
+        private void styleColumnCell(Cell cell, ProcessedFieldInfo processed) {
+            CellStyle columnStyle = columnStyles[processed.columnIndex()];
+            if (columnStyle != null) {
+                cell.setCellStyle(columnStyle);
+                return;
+            }
+            cell.setCellStyle(generalStyle);
+            val styleSetter = processed.styleSetter();
+            if (styleSetter != null) {
+                styleCache.apply(cell, mergePropertiesMap(styleSetter.cellStyleProviders(), cell));
+                if (!styleSetter.cellDependent()) {
+                    columnStyles[processed.columnIndex()] = cell.getCellStyle();
+                }
+            }
+        }
+    }
+
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    // counters of a shared instance are not read
+    private static final ExportProgress NO_PROGRESS = new ExportProgress(null, Integer.MAX_VALUE);
+
+    private static final CreateSheetFuncCache cache = new CreateSheetFuncCache();
+
+    private static final ClassCache<List<ProcessedFieldInfo>> processedFieldsCache =
+        new ClassCache<>(objectType -> processFieldsInfo(getExcelInfoFromBeans(objectType)));
+
+
+    /**
+     * Clear cache. Intended to be used only for testing purpose
+     */
+    public static void clearCache() {
+        cache.clear();
+        processedFieldsCache.clear();
+        BeanInfo.clearCache();
+    }
+
+    /**
+     * @return statistics of the cache of functions returned by {@link #getCreateSheetFunc(Class, ExportOptions)}
+     */
+    public static CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Styles created by exports into a workbook are registered with the workbook, so that sheets and calls writing
+     * into the same workbook share them instead of creating duplicates. The registry is released with the workbook.
+     * @return statistics of the styles registered for the workbook
+     */
+    public static StyleStats getStyleStats(@NonNull Workbook workbook) {
+        return WorkbookStyles.stats(workbook);
+    }
+
+    /**
+     * Set the maximum number of cached functions, {@value CreateSheetFuncCache#DEFAULT_MAXIMUM_SIZE} by default.
+     * Functions are cached per bean type and projection, when the cache is full the oldest function is evicted.
+     * The functions writing a projection straight to an output stream share the entry of the projection.
+     * @param maximumSize maximum number of cached functions
+     * @throws Bean2ExcelException if {@code maximumSize} is not positive
+     */
+    public static void setMaximumCacheSize(int maximumSize) {
+        cache.setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Create a streaming workbook. Only the last {@code rowAccessWindowSize} rows of each sheet are kept in memory,
+     * older rows are flushed to a temporary file as new rows are created.
+     * <br/>
+     * Sheets created by {@link CreateSheetFunc#exec(Iterator, Workbook, String)} on this workbook are fully flushed
+     * once the function returns, so their rows can't be read back using {@link Sheet#getRow(int)}.
+     * Call {@link SXSSFWorkbook#dispose()} after writing the workbook to delete the temporary files.
+     * @param rowAccessWindowSize number of rows kept in memory for each sheet
+     * @param compressTempFiles whether the temporary files should be gzip compressed
+     * @return the created workbook
+     * @throws Bean2ExcelException if {@code rowAccessWindowSize} is not positive
+     */
+    public static SXSSFWorkbook createStreamingWorkbook(int rowAccessWindowSize, boolean compressTempFiles) {
+        if (rowAccessWindowSize < 1) {
+            throw new Bean2ExcelException(String.format(
+                "Row access window size must be positive, got %d", rowAccessWindowSize));
+        }
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowAccessWindowSize);
+        workbook.setCompressTempFiles(compressTempFiles);
+        return workbook;
+    }
+
+    /**
+     * Use to get a function to create Excel sheet, using {@link ExportOptions#DEFAULT default options}.
+     * <br/>
+     * See {@link CreateSheetFunc#exec(Iterator, Workbook, String)}.
+     * @param objectType Type of object to be used as java beans
+     * @return A function to create Excel sheet
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+     */
+    public static <T> CreateSheetFunc<T> getCreateSheetFunc(Class<T> objectType) {
+        return getCreateSheetFunc(objectType, ExportOptions.DEFAULT);
+    }
+
+    /**
+     * Use to get a function to create Excel sheet.
+     * <br/>
+     * See {@link CreateSheetFunc#exec(Iterator, Workbook, String)}.
+     * @param objectType Type of object to be used as java beans
+     * @param options options of the function
+     * @return A function to create Excel sheet
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+     */
+    public static <T> CreateSheetFunc<T> getCreateSheetFunc(@NonNull Class<T> objectType, @NonNull ExportOptions options) {
+        // only the projection changes the compiled function, options are often created per call
+        CompiledSheetFunc compiledFunc = getCompiled(objectType, options.projection()).sheetFunc();
+
+        // objects expanding a collection are written as rows, several per object
+        RowExpander rowExpander = getExcelInfoFromBeans(objectType).rowExpander();
+        if (rowExpander == null) {
+            return (objects, workbook, sheetName) -> compiledFunc.exec(objects, workbook, sheetName, options);
+        }
+        boolean reuseRows = options.parallelism() <= 1;
+        return new CreateSheetFunc<>() {
+            @Override
+            public Sheet exec(@NonNull Iterator<T> objects, @NonNull Workbook workbook, @NonNull String sheetName) {
+                return compiledFunc.exec(rowExpander.expand(objects, reuseRows), workbook, sheetName, options);
+            }
+
+            @Override
+            public List<Sheet> execSplit(
+                @NonNull Iterator<T> objects,
+                @NonNull Workbook workbook,
+                @NonNull String sheetName,
+                int maxRowsPerSheet
+            ) {
+                // sheets are split by rows, the rows of an object may span two sheets
+                CreateSheetFunc<Object> rowSheetFunc =
+                    (rows, rowWorkbook, rowSheetName) -> compiledFunc.exec(rows, rowWorkbook, rowSheetName, options);
+                return rowSheetFunc.execSplit(
+                    rowExpander.expand(objects, reuseRows), workbook, sheetName, maxRowsPerSheet);
+            }
+        };
+    }
+
+    private static CompiledSheetFunc compileSheetFunc(Class<?> objectType, List<ProcessedFieldInfo> columns) {
+        ExcelObjectInfo excelObjectInfo = getExcelInfoFromBeans(objectType);
+        CellWriter[] cellWriters = columns.stream().map(ProcessedFieldInfo::cellWriter).toArray(CellWriter[]::new);
+
+        return (objects, workbook, sheetName, options) -> {
+            ExportMetrics metrics = options.metrics();
+            SheetMetricsRecorder recorder = metrics == null ? null : new SheetMetricsRecorder(metrics, workbook);
+            Sheet sheet = workbook.createSheet(sheetName);
+
+            // the width of autofit columns is estimated as cells are written, rows outside the access window
+            // of a streaming sheet are gone by the end
+            ColumnWidthEstimator estimator = newEstimator(columns);
+
+            SheetStyles styles = new SheetStyles(workbook, excelObjectInfo.generalStyle(), columns.size());
+
+            // create header row
+            Row headerRow = sheet.createRow(0);
+            for (val processed : columns) {
+                Cell headerCell = headerRow.createCell(processed.columnIndex());
+                headerCell.setCellValue(processed.fieldInfo().columnInfo().columnName());
+                styles.styleHeaderCell(headerCell, processed);
+                if (estimator != null) {
+                    estimator.measure(headerCell);
+                }
+            }
+
+            // create data rows
+            int rowIndex = 1;
+            if (options.parallelism() > 1) {
+                rowIndex = writeRowsInParallel(objects, sheet, rowIndex, columns, styles, estimator, options, recorder);
+            } else {
+                while (objects.hasNext()) {
+                    val rowObject = objects.next();
+                    Row curRow = sheet.createRow(rowIndex);
+                    boolean measured = estimator != null && rowIndex <= options.autoFitSampleRows();
+                    if (recorder != null && recorder.isSampled(rowIndex)) {
+                        writeTimedRow(curRow, rowObject, columns, styles, measured ? estimator : null, recorder);
+                    } else {
+                        for (int columnIndex = 0; columnIndex < cellWriters.length; columnIndex++) {
+                            Cell cell = curRow.createCell(columnIndex);
+                            cellWriters[columnIndex].write(cell, rowObject);
+                            styles.styleCell(cell, columns.get(columnIndex));
+                            if (measured) {
+                                estimator.measure(cell);
+                            }
+                        }
+                    }
+                    rowIndex++;
+                }
+            }
+
+            if (sheet instanceof SXSSFSheet streamingSheet) {
+                flushRows(streamingSheet);
+            }
+
+            if (estimator != null) {
+                long start = recorder == null ? 0 : System.nanoTime();
+                estimator.apply(sheet);
+                if (recorder != null) {
+                    recorder.addApplyWidth(System.nanoTime() - start);
+                }
+            }
+
+            if (recorder != null) {
+                recorder.sheetCreated(objectType, sheetName, rowIndex - 1,
+                    estimator == null ? 0 : Math.min(rowIndex - 1, options.autoFitSampleRows()));
+            }
+            return sheet;
+        };
+    }
+
+    /**
+     * The rows written for objects of a type, see {@link ExcelNested#expand()}.
+     */
+    private static Iterator<?> expandRows(Class<?> objectType, Iterator<?> objects, boolean reuseRows) {
+        RowExpander rowExpander = getExcelInfoFromBeans(objectType).rowExpander();
+        return rowExpander == null ? objects : rowExpander.expand(objects, reuseRows);
+    }
+
+    /**
+     * Use to get an appender adding rows to a sheet batch by batch. The sheet is created with its header if the
+     * workbook doesn't have it yet, otherwise rows are appended after its last row.
+     * <br/>
+     * The projection of the options selects the columns, and their autofit sample rows apply to the sheet,
+     * other options are ignored: rows are converted on the calling thread, without metrics,
+     * and the sheet isn't split.
+     * @param objectType Type of object to be used as java beans
+     * @param workbook the workbook of the sheet
+     * @param sheetName name of the sheet
+     * @param options options of the export
+     * @return an appender positioned after the last row of the sheet
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+     */
+    public static <T> SheetAppender<T> getSheetAppender(
+        @NonNull Class<T> objectType,
+        @NonNull Workbook workbook,
+        @NonNull String sheetName,
+        @NonNull ExportOptions options
+    ) {
+        Sheet sheet = workbook.getSheet(sheetName);
+        if (sheet == null) {
+            return new SheetAppender<>(workbook.createSheet(sheetName), objectType, options, 1, true);
+        }
+        boolean empty = sheet.getPhysicalNumberOfRows() == 0;
+        return new SheetAppender<>(sheet, objectType, options, empty ? 1 : sheet.getLastRowNum() + 1, empty);
+    }
+
+    /**
+     * Use to get an appender resuming from a checkpoint: rows written after the checkpoint, e.g. by a batch that
+     * failed halfway, are removed, and the next batch is appended from the position of the checkpoint.
+     * <br/>
+     * See {@link #getSheetAppender(Class, Workbook, String, ExportOptions)}.
+     * @param objectType Type of object to be used as java beans
+     * @param workbook the workbook of the sheet
+     * @param checkpoint a checkpoint of an appender of the sheet
+     * @param options options of the export
+     * @return an appender positioned at the checkpoint
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid, or that
+     * rows after the checkpoint can't be removed as they have been flushed by a streaming workbook.
+     */
+    public static <T> SheetAppender<T> getSheetAppender(
+        @NonNull Class<T> objectType,
+        @NonNull Workbook workbook,
+        @NonNull SheetCheckpoint checkpoint,
+        @NonNull ExportOptions options
+    ) {
+        Sheet sheet = workbook.getSheet(checkpoint.sheetName());
+        if (sheet == null) {
+            throw new Bean2ExcelException(String.format("Can't find sheet \"%s\"", checkpoint.sheetName()));
+        }
+        if (sheet instanceof SXSSFSheet streamingSheet && streamingSheet.getLastFlushedRowNum() >= checkpoint.nextRowIndex()) {
+            throw new Bean2ExcelException(String.format(
+                "Rows of sheet \"%s\" after the checkpoint have already been flushed", checkpoint.sheetName()));
+        }
+        for (int rowIndex = sheet.getLastRowNum(); rowIndex >= checkpoint.nextRowIndex(); rowIndex--) {
+            Row row = sheet.getRow(rowIndex);
+            if (row != null) {
+                sheet.removeRow(row);
+            }
+        }
+        return new SheetAppender<>(sheet, objectType, options, checkpoint.nextRowIndex(), false);
+    }
+
+    /**
+     * Use to get a function writing workbooks straight to an output stream. Prefer it to
+     * {@link #getCreateSheetFunc(Class)} when exporting plain tables, as it is several times faster.
+     * <br/>
+     * See {@link WriteWorkbookFunc#exec(Iterator, OutputStream, String)}.
+     * @param objectType Type of object to be used as java beans
+     * @return A function to write workbooks
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+     */
+    public static <T> WriteWorkbookFunc<T> getWriteWorkbookFunc(@NonNull Class<T> objectType) {
+        return getWriteWorkbookFunc(objectType, ColumnProjection.ALL);
+    }
+
+    /**
+     * Use to get a function writing the columns of a projection straight to an output stream.
+     * Functions are cached per projection.
+     * <br/>
+     * See {@link WriteWorkbookFunc#exec(Iterator, OutputStream, String)}.
+     * @param objectType Type of object to be used as java beans
+     * @param projection columns written by the function
+     * @return A function to write workbooks
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> WriteWorkbookFunc<T> getWriteWorkbookFunc(
+        @NonNull Class<T> objectType,
+        @NonNull ColumnProjection projection
+    ) {
+        return (WriteWorkbookFunc<T>) getCompiled(objectType, projection).writeWorkbookFunc();
+    }
+
+    private static WriteWorkbookFunc<?> createWriteWorkbookFunc(ProjectedType objectType) {
+        DirectStyles styles = resolveDirectStyles(List.of(objectType));
+
+        return (objects, outputStream, sheetName) -> {
+            try {
+                SpreadsheetMLWriter writer = new SpreadsheetMLWriter(outputStream, styles.stylesXml());
+                SheetXmlWriter sheetWriter = startDirectSheet(writer, sheetName, objectType, styles, ExportOptions.DEFAULT);
+                writeDirectSheet(
+                    sheetWriter, sheetName, objectType, styles,
+                    expandRows(objectType.type(), objects, true), Integer.MAX_VALUE, () -> false, NO_PROGRESS);
+                writer.close();
+            }
+            catch (IOException e) {
+                throw new Bean2ExcelException(String.format("Failed to write sheet \"%s\"", sheetName), e);
+            }
+        };
+    }
+
+    /**
+     * Write a workbook of several sheets straight to an output stream, in the xlsx format.
+     * Each sheet is written as with {@link WriteWorkbookFunc#exec(Iterator, OutputStream, String)}, objects that don't fit in
+     * {@link ExportOptions#maxRowsPerSheet()} rows are written to further sheets, named {@code sheetName_2},
+     * {@code sheetName_3}, etc.
+     * <br/>
+     * When {@link ExportOptions#parallelism()} is 1, sheets are streamed to the output stream while rows are
+     * written. The xml of a streamed sheet is limited to 4 GB by the zip format, so a sheet reaching about 4 GB
+     * ends before {@link ExportOptions#maxRowsPerSheet()} rows and further rows are written to the next sheet.
+     * <br/>
+     * When {@link ExportOptions#parallelism()} is greater than 1, up to that many sheet sources are written
+     * concurrently by the executor of the options into temporary files, which are then copied in order
+     * to the output stream. Sources are consumed by the executor's threads in this mode.
+     * Sheets copied from temporary files have no size limit.
+     * <br/>
+     * See {@link WorkbookExport} to write to a file or a channel, asynchronously or with progress callbacks.
+     * @param outputStream where the workbook is written, it is not closed by this method
+     * @param sheets sources of the sheets, in the order of the sheets
+     * @param options options of the export
+     * @return summary of the written workbook
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+     * or that the workbook couldn't be written.
+     */
+    public static ExportResult writeWorkbook(
+        @NonNull OutputStream outputStream,
+        @NonNull List<SheetSource<?>> sheets,
+        @NonNull ExportOptions options
+    ) {
+        return writeWorkbook(outputStream, sheets, options, new ExportProgress(null, Integer.MAX_VALUE));
+    }
+
+    static ExportResult writeWorkbook(
+        OutputStream outputStream,
+        List<SheetSource<?>> sheets,
+        ExportOptions options,
+        ExportProgress progress
+    ) {
+        return writeWorkbook(outputStream, sheets, options, progress, SpreadsheetMLWriter.MAX_STREAMED_SHEET_SIZE);
     }
-    private record ProcessedFieldInfo(
-        @NotNull FieldInfo fieldInfo,
-        @NotNull Integer columnIndex,
-        @NotNull ValueConverter valueConverter,
-        @Nullable StylePropertiesSetter styleSetter
 
-    ){}
+    /**
+     * @param maxStreamedSheetSize size of the xml of a streamed sheet from which further rows are written
+     *                             to the next sheet
+     */
+    static ExportResult writeWorkbook(
+        OutputStream outputStream,
+        List<SheetSource<?>> sheets,
+        ExportOptions options,
+        ExportProgress progress,
+        long maxStreamedSheetSize
+    ) {
+        if (sheets.isEmpty()) {
+            throw new Bean2ExcelException("A workbook needs at least one sheet");
+        }
+        long startNanos = options.metrics() == null ? 0 : System.nanoTime();
+        DirectStyles styles = resolveDirectStyles(sheets.stream().map(ProjectedType::of).distinct().toList());
+        try {
+            SpreadsheetMLWriter writer = new SpreadsheetMLWriter(outputStream, styles.stylesXml(), maxStreamedSheetSize);
+            if (options.parallelism() > 1) {
+                writeSheetsInParallel(writer, sheets, styles, options, progress);
+            } else {
+                for (SheetSource<?> source : sheets) {
+                    Iterator<?> rows = expandRows(source.type(), source.objects(), true);
+                    int part = 1;
+                    do {
+                        String sheetName = splitSheetName(source.sheetName(), part++);
+                        ProjectedType objectType = ProjectedType.of(source);
+                        SheetXmlWriter sheetWriter = startDirectSheet(writer, sheetName, objectType, styles, options);
+                        writeDirectSheet(
+                            sheetWriter, sheetName, objectType, styles, rows, options.maxRowsPerSheet(),
+                            writer::sheetFull, progress);
+                    } while (rows.hasNext());
+                }
+            }
+            writer.close();
+            ExportResult result = progress.result(writer.bytesWritten());
+            if (options.metrics() != null) {
+                options.metrics().workbookWritten(result, System.nanoTime() - startNanos);
+            }
+            return result;
+        }
+        catch (IOException e) {
+            throw new Bean2ExcelException("Failed to write workbook", e);
+        }
+    }
 
-    private record StylePropertiesSetter(
-        @NotNull Consumer<Cell> headerStylePropertiesSetter,
-        @NotNull Consumer<Cell> cellStylePropertiesSetter
-    ) {}
+    private static SheetXmlWriter startDirectSheet(
+        SpreadsheetMLWriter writer,
+        String sheetName,
+        ProjectedType objectType,
+        DirectStyles styles,
+        ExportOptions options
+    ) throws IOException {
+        return writer.startSheet(
+            sheetName,
+            newDirectEstimator(objectType),
+            styles.styleCharWidths(),
+            options.autoFitSampleRows(),
+            newDictionaries(objectType, writer.sharedStrings(), options.sharedStringsLimit())
+        );
+    }
+
+    /**
+     * @return dictionaries of the string columns of a sheet, unlimited for columns declared low-cardinality,
+     * limited to {@code sharedStringsLimit} values for others, or {@code null} if all strings are written inline
+     */
+    private static ColumnDictionary @Nullable [] newDictionaries(
+        ProjectedType objectType,
+        SharedStrings sharedStrings,
+        int sharedStringsLimit
+    ) {
+        List<ProcessedFieldInfo> columns = getDirectPlan(objectType).columns();
+        ColumnDictionary[] dictionaries = new ColumnDictionary[columns.size()];
+        boolean shared = false;
+        for (val processed : columns) {
+            ColumnInfo columnInfo = processed.fieldInfo().columnInfo();
+            if (columnInfo.cellType() != CellType.STRING) {
+                continue;
+            }
+            int maxSize = columnInfo.lowCardinality() ? Integer.MAX_VALUE : sharedStringsLimit;
+            if (maxSize > 0) {
+                dictionaries[processed.columnIndex()] = sharedStrings.newDictionary(maxSize);
+                shared = true;
+            }
+        }
+        return shared ? dictionaries : null;
+    }
 
-    private static final Map<Class<?>, CreateSheetFunc<?>> cache = new Hashtable<>();
+    private static @Nullable ColumnWidthEstimator newDirectEstimator(ProjectedType objectType) {
+        return newEstimator(getDirectPlan(objectType).columns());
+    }
 
     /**
-     * Clear cache. Intended to be used only for testing purpose
+     * Write the header, then at most {@code maxRows} rows, stopping early once the sheet is full.
      */
-    public static void clearCache() {
-        cache.clear();
+    private static void writeDirectSheet(
+        SheetXmlWriter writer,
+        String sheetName,
+        ProjectedType objectType,
+        DirectStyles styles,
+        Iterator<?> objects,
+        int maxRows,
+        BooleanSupplier sheetFull,
+        ExportProgress progress
+    ) throws IOException {
+        DirectSheetPlan plan = getDirectPlan(objectType);
+        DirectCellWriter[] cellWriters = plan.cellWriters();
+        int[] headerStyles = styles.headerStyles().get(objectType);
+        int[][] cellStyles = styles.cellStyles().get(objectType);
+
+        int progressInterval = progress.interval();
+
+        progress.sheetStarted(sheetName);
+        writer.startRow();
+        for (val processed : plan.columns()) {
+            writer.writeString(processed.fieldInfo().columnInfo().columnName(), headerStyles[processed.columnIndex()]);
+        }
+        writer.endRow();
+
+        int rowCount = 0;
+        while (rowCount < maxRows && objects.hasNext() && !sheetFull.getAsBoolean()) {
+            val rowObject = objects.next();
+            writer.startRow();
+            for (int columnIndex = 0; columnIndex < cellWriters.length; columnIndex++) {
+                cellWriters[columnIndex].write(writer, rowObject, cellStyles[columnIndex]);
+            }
+            writer.endRow();
+            if (++rowCount % progressInterval == 0) {
+                progress.rowsWritten(sheetName, rowCount);
+            }
+        }
+        progress.sheetFinished(sheetName, rowCount);
     }
 
     /**
-     * Use to get a function to create Excel sheet.
-     * <br/>
-     * See {@link CreateSheetFunc#exec(List, Workbook, String)}.
-     * @param objectType Type of object to be used as java beans
-     * @return A function to create Excel sheet
-     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid.
+     * Write sheet sources into temporary files using the executor of the options, while copying written sheets
+     * in order on the current thread. At most {@link ExportOptions#parallelism()} sources are pending at any time.
      */
-    public static <T> CreateSheetFunc<T> getCreateSheetFunc(Class<T> objectType) {
-        // try to use cache
-        val cachedResult = cache.get(objectType);
-        if (cachedResult != null) {
-            return (CreateSheetFunc<T>) cachedResult;
+    private static void writeSheetsInParallel(
+        SpreadsheetMLWriter writer,
+        List<SheetSource<?>> sheets,
+        DirectStyles styles,
+        ExportOptions options,
+        ExportProgress progress
+    ) throws IOException {
+        Executor executor = options.executorOrDefault();
+        Deque<CompletableFuture<List<DeflatedSheet>>> pendingSheets = new ArrayDeque<>();
+        try {
+            for (SheetSource<?> source : sheets) {
+                pendingSheets.add(CompletableFuture.supplyAsync(
+                    () -> deflateSheets(source, styles, writer.sharedStrings(), options, progress), executor));
+                if (pendingSheets.size() >= options.parallelism()) {
+                    addDeflatedSheets(writer, await(pendingSheets.poll()));
+                }
+            }
+            while (!pendingSheets.isEmpty()) {
+                addDeflatedSheets(writer, await(pendingSheets.poll()));
+            }
+        }
+        finally {
+            // sheets still being written are deleted once done
+            pendingSheets.forEach(pendingSheet -> pendingSheet.thenAccept(Bean2Excel::deleteDeflatedSheets));
         }
+    }
 
-        ExcelObjectInfo excelObjectInfo = getExcelInfoFromBeans(objectType);
-        Map<String, ProcessedFieldInfo> processedInfo = processFieldsInfo(excelObjectInfo);
+    private static List<DeflatedSheet> deflateSheets(
+        SheetSource<?> source,
+        DirectStyles styles,
+        SharedStrings sharedStrings,
+        ExportOptions options,
+        ExportProgress progress
+    ) {
+        List<DeflatedSheet> deflatedSheets = new ArrayList<>();
+        Path file = null;
+        boolean done = false;
+        try {
+            Iterator<?> rows = expandRows(source.type(), source.objects(), true);
+            int part = 1;
+            do {
+                String sheetName = splitSheetName(source.sheetName(), part++);
+                file = Files.createTempFile("bean2Excel", ".xml.deflate");
+                DeflatedData data;
+                try (val deflatingStream = new DeflatingOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                    SheetXmlWriter sheetWriter = new SheetXmlWriter(
+                        new OutputStreamWriter(deflatingStream, StandardCharsets.UTF_8),
+                        newDirectEstimator(ProjectedType.of(source)),
+                        styles.styleCharWidths(),
+                        options.autoFitSampleRows(),
+                        newDictionaries(ProjectedType.of(source), sharedStrings, options.sharedStringsLimit())
+                    );
+                    writeDirectSheet(
+                        sheetWriter, sheetName, ProjectedType.of(source), styles, rows, options.maxRowsPerSheet(),
+                        () -> false, progress);
+                    sheetWriter.finish();
+                    data = deflatingStream.finish();
+                }
+                deflatedSheets.add(new DeflatedSheet(sheetName, file, data));
+            } while (rows.hasNext());
+            done = true;
+            return deflatedSheets;
+        }
+        catch (IOException e) {
+            throw new Bean2ExcelException(
+                String.format("Failed to write sheet \"%s\" to a temporary file", source.sheetName()), e);
+        }
+        finally {
+            if (!done) {
+                deleteDeflatedSheets(deflatedSheets);
+                if (file != null) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
 
-        CreateSheetFunc<T> createSheetFunc = (objectList, workbook, sheetName) ->{
-            Sheet sheet = workbook.createSheet(sheetName);
-            CellStyle generalStyle = null;
-            if (excelObjectInfo.generalStyle() != null){
-                generalStyle = getNoArgsInstance(excelObjectInfo.generalStyle().cellStyle()).getCellStyle(workbook);
+    private static void addDeflatedSheets(SpreadsheetMLWriter writer, List<DeflatedSheet> deflatedSheets)
+        throws IOException {
+        try {
+            for (DeflatedSheet deflatedSheet : deflatedSheets) {
+                try (InputStream compressedData = new BufferedInputStream(Files.newInputStream(deflatedSheet.file()))) {
+                    writer.addSheet(deflatedSheet.sheetName(), deflatedSheet.data(), compressedData);
+                }
             }
+        }
+        finally {
+            deleteDeflatedSheets(deflatedSheets);
+        }
+    }
 
-            // create header row
+    private static void deleteDeflatedSheets(List<DeflatedSheet> deflatedSheets) {
+        deflatedSheets.forEach(deflatedSheet -> deleteQuietly(deflatedSheet.file()));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ignored) {
+            // the file is in the temporary directory anyway
+        }
+    }
+
+    /**
+     * @return name of the {@code part}th sheet of a sheet split by rows, shortened to fit
+     * the maximum length of sheet names
+     */
+    private static String splitSheetName(String sheetName, int part) {
+        if (part == 1) {
+            return sheetName;
+        }
+        String suffix = "_" + part;
+        int maxLength = MAX_SHEET_NAME_LENGTH - suffix.length();
+        return (sheetName.length() > maxLength ? sheetName.substring(0, maxLength) : sheetName) + suffix;
+    }
+
+    private static CompiledProjection getCompiled(Class<?> objectType, ColumnProjection projection) {
+        return cache.get(objectType, projection, () -> new CompiledProjection(objectType, projection));
+    }
+
+    private static DirectSheetPlan getDirectPlan(ProjectedType objectType) {
+        return getCompiled(objectType.type(), objectType.projection()).directPlan();
+    }
+
+    /**
+     * @return columns of the projection, indexed in the order of the projection
+     */
+    private static List<ProcessedFieldInfo> getColumns(Class<?> objectType, ColumnProjection projection) {
+        return getCompiled(objectType, projection).columns;
+    }
+
+    private static List<ProcessedFieldInfo> projectColumns(
+        Class<?> objectType,
+        List<ProcessedFieldInfo> columns,
+        ColumnProjection projection
+    ) {
+        Map<String, ProcessedFieldInfo> columnsByName = new LinkedHashMap<>();
+        for (val processed : columns) {
+            columnsByName.put(processed.fieldInfo().columnInfo().columnName(), processed);
+        }
+        for (String columnName : Stream.concat(projection.columns().stream(), projection.excluded().stream()).toList()) {
+            if (!columnsByName.containsKey(columnName)) {
+                throw new Bean2ExcelException(String.format(
+                    "Unknown column \"%s\" of \"%s\"", columnName, objectType.getName()));
+            }
+        }
+
+        List<ProcessedFieldInfo> selected = new ArrayList<>();
+        for (String columnName : projection.columns()) {
+            selected.add(columnsByName.remove(columnName));
+        }
+        if (projection.otherColumns()) {
+            selected.addAll(columnsByName.values());
+        }
+        selected.removeIf(processed -> projection.excluded().contains(processed.fieldInfo().columnInfo().columnName()));
+        if (selected.isEmpty()) {
+            throw new Bean2ExcelException(String.format("Projection of \"%s\" has no columns", objectType.getName()));
+        }
+
+        List<ProcessedFieldInfo> projected = new ArrayList<>();
+        for (val processed : selected) {
+            projected.add(new ProcessedFieldInfo(
+                processed.fieldInfo(), projected.size(), processed.valueConverter(), processed.styleSetter(),
+                processed.styleRules(), processed.numericGetter(), processed.booleanGetter(),
+                processed.doubleConverter(), processed.cellWriter()
+            ));
+        }
+        return List.copyOf(projected);
+    }
+
+    private static DirectSheetPlan compileDirectSheetPlan(List<ProcessedFieldInfo> columns) {
+        return new DirectSheetPlan(
+            columns,
+            columns.stream().map(Bean2Excel::compileDirectCellWriter).toArray(DirectCellWriter[]::new),
+            getAutoFitColumns(columns)
+        );
+    }
+
+    /**
+     * Resolve the styles of the headers and of each column of Java Beans classes in a scratch workbook,
+     * using the same providers as {@link CreateSheetFunc}, then keep the styles part of that workbook.
+     */
+    private static DirectStyles resolveDirectStyles(List<ProjectedType> objectTypes) {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
             Row headerRow = sheet.createRow(0);
-            for (val processed : processedInfo.entrySet()) {
-                Cell headerCell = headerRow.createCell(processed.getValue().columnIndex());
-                headerCell.setCellStyle(generalStyle);
-                if (processed.getValue().styleSetter() != null) {
-                    processed.getValue().styleSetter().headerStylePropertiesSetter().accept(headerCell);
+            Row row = sheet.createRow(1);
+            Map<ProjectedType, int[]> headerStyles = new HashMap<>();
+            Map<ProjectedType, int[][]> cellStyles = new HashMap<>();
+            boolean autoFit = false;
+
+            for (ProjectedType objectType : objectTypes) {
+                ExcelObjectInfo excelObjectInfo = getExcelInfoFromBeans(objectType.type());
+                DirectSheetPlan plan = getDirectPlan(objectType);
+                List<ProcessedFieldInfo> columns = plan.columns();
+                autoFit |= !plan.autoFitColumns().isEmpty();
+
+                SheetStyles sheetStyles = new SheetStyles(workbook, excelObjectInfo.generalStyle(), columns.size());
+
+                int[] typeHeaderStyles = new int[columns.size()];
+                int[][] typeCellStyles = new int[columns.size()][];
+                for (val processed : columns) {
+                    Cell headerCell = headerRow.createCell(processed.columnIndex());
+                    headerCell.setCellValue(processed.fieldInfo().columnInfo().columnName());
+                    sheetStyles.styleHeaderCell(headerCell, processed);
+                    typeHeaderStyles[processed.columnIndex()] = Short.toUnsignedInt(headerCell.getCellStyle().getIndex());
+
+                    // a blank cell, which matches no conditional style
+                    Cell cell = row.createCell(processed.columnIndex());
+                    sheetStyles.styleCell(cell, processed);
+                    CellStyle columnStyle = cell.getCellStyle();
+                    StyleRules styleRules = processed.styleRules();
+                    int[] styles = new int[1 + (styleRules == null ? 0 : styleRules.size())];
+                    styles[0] = Short.toUnsignedInt(columnStyle.getIndex());
+                    for (int rule = 1; rule < styles.length; rule++) {
+                        cell.setCellStyle(columnStyle);
+                        sheetStyles.styleCache.apply(cell, mergePropertiesMap(styleRules.cellStyle(rule - 1), cell));
+                        styles[rule] = Short.toUnsignedInt(cell.getCellStyle().getIndex());
+                    }
+                    typeCellStyles[processed.columnIndex()] = styles;
                 }
-                headerCell.setCellValue(processed.getKey());
+                headerStyles.put(objectType, typeHeaderStyles);
+                cellStyles.put(objectType, typeCellStyles);
             }
 
-            // create data rows
-            int rowIndex = 1;
-            for (val rowObject : objectList) {
-                Row curRow = sheet.createRow(rowIndex);
+            CharWidths[] styleCharWidths = null;
+            if (autoFit) {
+                styleCharWidths = new CharWidths[workbook.getNumCellStyles()];
+                for (int style = 0; style < styleCharWidths.length; style++) {
+                    styleCharWidths[style] = ColumnWidthEstimator.getCharWidths(
+                        workbook, workbook.getFontAt(workbook.getCellStyleAt(style).getFontIndex()));
+                }
+            }
+
+            ByteArrayOutputStream stylesXml = new ByteArrayOutputStream();
+            workbook.getStylesSource().writeTo(stylesXml);
+            return new DirectStyles(stylesXml.toByteArray(), headerStyles, cellStyles, styleCharWidths);
+        }
+        catch (IOException e) {
+            throw new Bean2ExcelException("Failed to create cell styles", e);
+        }
+    }
+
+    /**
+     * Convert chunks of rows using the executor of the options, while writing converted chunks in order
+     * on the current thread. At most {@link ExportOptions#parallelism()} chunks are pending at any time,
+     * so the source isn't read faster than rows are written.
+     */
+    private static <T> int writeRowsInParallel(
+        Iterator<T> objects,
+        Sheet sheet,
+        int firstRowIndex,
+        List<ProcessedFieldInfo> columns,
+        SheetStyles styles,
+        @Nullable ColumnWidthEstimator estimator,
+        ExportOptions options,
+        @Nullable SheetMetricsRecorder recorder
+    ) {
+        Executor executor = options.executorOrDefault();
+        Deque<CompletableFuture<RowChunk>> pendingChunks = new ArrayDeque<>();
+        int rowIndex = firstRowIndex;
+        int chunkRowIndex = firstRowIndex;
+        try {
+            while (objects.hasNext()) {
+                List<T> chunkObjects = new ArrayList<>(options.chunkSize());
+                while (chunkObjects.size() < options.chunkSize() && objects.hasNext()) {
+                    chunkObjects.add(objects.next());
+                }
+                int firstChunkRowIndex = chunkRowIndex;
+                chunkRowIndex += chunkObjects.size();
+                pendingChunks.add(CompletableFuture.supplyAsync(() -> {
+                    if (recorder == null) {
+                        return convertChunk(chunkObjects, columns, firstChunkRowIndex, null);
+                    }
+                    long start = System.nanoTime();
+                    RowChunk chunk = convertChunk(chunkObjects, columns, firstChunkRowIndex, recorder);
+                    recorder.addConversion(System.nanoTime() - start);
+                    return chunk;
+                }, executor));
 
-                for (val processed : processedInfo.entrySet()) {
-                    Cell cell = curRow.createCell(processed.getValue().columnIndex());
+                if (pendingChunks.size() >= options.parallelism()) {
+                    rowIndex = writeChunk(await(pendingChunks.poll()), sheet, rowIndex, columns, styles,
+                        estimator, options, recorder);
+                }
+            }
+            while (!pendingChunks.isEmpty()) {
+                rowIndex = writeChunk(await(pendingChunks.poll()), sheet, rowIndex, columns, styles,
+                    estimator, options, recorder);
+            }
+            return rowIndex;
+        }
+        finally {
+            pendingChunks.forEach(pendingChunk -> pendingChunk.cancel(false));
+        }
+    }
 
-                    // set style
-                    cell.setCellStyle(generalStyle);
-                    if (processed.getValue().styleSetter() != null) {
-                        processed.getValue().styleSetter().cellStylePropertiesSetter().accept(cell);
+    /**
+     * @param firstRowIndex index of the row of the first object of the chunk
+     * @param recorder times the getters and converters of sampled rows, if any
+     */
+    private static RowChunk convertChunk(
+        List<?> chunkObjects,
+        List<ProcessedFieldInfo> columns,
+        int firstRowIndex,
+        @Nullable SheetMetricsRecorder recorder
+    ) {
+        int columnCount = columns.size();
+        double[] numbers = new double[chunkObjects.size() * columnCount];
+        Object[] values = new Object[chunkObjects.size() * columnCount];
+        for (int row = 0; row < chunkObjects.size(); row++) {
+            Object rowObject = chunkObjects.get(row);
+            if (recorder != null && recorder.isSampled(firstRowIndex + row)) {
+                convertTimedRow(rowObject, columns, row * columnCount, numbers, values, recorder);
+                continue;
+            }
+            for (val processed : columns) {
+                int index = row * columnCount + processed.columnIndex();
+                if (processed.numericGetter() != null) {
+                    numbers[index] = processed.numericGetter().applyAsDouble(rowObject);
+                } else if (processed.doubleConverter() != null) {
+                    Object fieldValue = processed.fieldInfo().getter().exec(rowObject);
+                    if (fieldValue != null) {
+                        numbers[index] = processed.doubleConverter().convertToDouble(fieldValue);
+                        values[index] = fieldValue;
                     }
+                } else if (processed.booleanGetter() != null) {
+                    values[index] = processed.booleanGetter().test(rowObject);
+                } else {
+                    values[index] = processed.valueConverter().convert(processed.fieldInfo().getter().exec(rowObject));
+                }
+            }
+        }
+        return new RowChunk(chunkObjects.size(), numbers, values);
+    }
+
+    /**
+     * Convert a row like {@link #convertChunk} does, timing getters and converters.
+     */
+    private static void convertTimedRow(
+        Object rowObject,
+        List<ProcessedFieldInfo> columns,
+        int firstIndex,
+        double[] numbers,
+        Object[] values,
+        SheetMetricsRecorder recorder
+    ) {
+        long getterNanos = 0;
+        long converterNanos = 0;
+        for (val processed : columns) {
+            int index = firstIndex + processed.columnIndex();
+            long start = System.nanoTime();
+            long converterStart;
+            if (processed.numericGetter() != null) {
+                numbers[index] = processed.numericGetter().applyAsDouble(rowObject);
+                converterStart = System.nanoTime();
+            } else if (processed.doubleConverter() != null) {
+                Object fieldValue = processed.fieldInfo().getter().exec(rowObject);
+                converterStart = System.nanoTime();
+                if (fieldValue != null) {
+                    numbers[index] = processed.doubleConverter().convertToDouble(fieldValue);
+                    values[index] = fieldValue;
+                }
+            } else if (processed.booleanGetter() != null) {
+                values[index] = processed.booleanGetter().test(rowObject);
+                converterStart = System.nanoTime();
+            } else {
+                Object fieldValue = processed.fieldInfo().getter().exec(rowObject);
+                converterStart = System.nanoTime();
+                values[index] = processed.valueConverter().convert(fieldValue);
+            }
+            getterNanos += converterStart - start;
+            converterNanos += System.nanoTime() - converterStart;
+        }
+        recorder.addSampledConversion(getterNanos, converterNanos);
+    }
 
-                    // set value
-                    val cellValue = processed.getValue()
-                        .valueConverter()
-                        .convert(processed.getValue().fieldInfo().getter().exec(rowObject));
+    private static <R> R await(CompletableFuture<R> pendingTask) {
+        try {
+            return pendingTask.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new Bean2ExcelException("Failed to write rows", e.getCause());
+        }
+    }
 
-                    if (cellValue == null) {
+    /**
+     * @return index of the row after the last written row
+     */
+    private static int writeChunk(
+        RowChunk chunk,
+        Sheet sheet,
+        int rowIndex,
+        List<ProcessedFieldInfo> columns,
+        SheetStyles styles,
+        @Nullable ColumnWidthEstimator estimator,
+        ExportOptions options,
+        @Nullable SheetMetricsRecorder recorder
+    ) {
+        int columnCount = columns.size();
+        for (int row = 0; row < chunk.size(); row++) {
+            boolean measured = estimator != null && rowIndex <= options.autoFitSampleRows();
+            boolean timed = recorder != null && recorder.isSampled(rowIndex);
+            long styleNanos = 0;
+            long cellWriteNanos = 0;
+            long measureNanos = 0;
+            Row curRow = sheet.createRow(rowIndex++);
+            for (val processed : columns) {
+                long start = timed ? System.nanoTime() : 0;
+                Cell cell = curRow.createCell(processed.columnIndex());
+                int index = row * columnCount + processed.columnIndex();
+                if (processed.numericGetter() != null) {
+                    cell.setCellValue(chunk.numbers()[index]);
+                } else if (processed.doubleConverter() != null) {
+                    if (chunk.values()[index] == null) {
                         cell.setBlank();
                     } else {
-                        switch (processed.getValue().fieldInfo().columnInfo().cellType()) {
-                            case STRING -> cell.setCellValue((String) cellValue);
-                            case BOOLEAN -> cell.setCellValue((Boolean) cellValue);
-                            case NUMERIC -> cell.setCellValue((Double) cellValue);
-                            case BLANK -> cell.setBlank();
-                            default -> throw new Bean2ExcelException(
-                                String.format("Unsupported excel type \"%s\"",
-                                    processed.getValue().fieldInfo().columnInfo().cellType())
-                            );
-                        }
+                        cell.setCellValue(chunk.numbers()[index]);
                     }
+                } else {
+                    setCellValue(cell, processed, chunk.values()[index]);
+                }
+                long styleStart = timed ? System.nanoTime() : 0;
+                styles.styleCell(cell, processed);
+                long styleEnd = timed ? System.nanoTime() : 0;
+                if (measured) {
+                    estimator.measure(cell);
+                }
+                if (timed) {
+                    cellWriteNanos += styleStart - start;
+                    styleNanos += styleEnd - styleStart;
+                    measureNanos += measured ? System.nanoTime() - styleEnd : 0;
                 }
-                rowIndex++;
             }
+            if (timed) {
+                // getters and converters are timed by the threads converting the chunk
+                recorder.addSampledRow(0, 0, styleNanos, cellWriteNanos, measured, measureNanos);
+            }
+        }
+        return rowIndex;
+    }
 
-            // autofit column
-            for (val processed : processedInfo.entrySet()) {
-                if (processed.getValue().fieldInfo().cellStyleProperties() != null
-                    && processed.getValue().fieldInfo().cellStyleProperties().autoFit()
-                ) {
-                    sheet.autoSizeColumn(processed.getValue().columnIndex());
-                }
+    /**
+     * Write a row like the compiled {@link CellWriter}s do, timing each phase.
+     */
+    private static void writeTimedRow(
+        Row row,
+        Object rowObject,
+        List<ProcessedFieldInfo> columns,
+        SheetStyles styles,
+        @Nullable ColumnWidthEstimator estimator,
+        SheetMetricsRecorder recorder
+    ) {
+        long getterNanos = 0;
+        long converterNanos = 0;
+        long styleNanos = 0;
+        long cellWriteNanos = 0;
+        long measureNanos = 0;
+        for (val processed : columns) {
+            long start = System.nanoTime();
+            Cell cell = row.createCell(processed.columnIndex());
+            long getterStart = System.nanoTime();
+            long converterStart;
+            long writeStart;
+            if (processed.numericGetter() != null) {
+                double number = processed.numericGetter().applyAsDouble(rowObject);
+                converterStart = writeStart = System.nanoTime();
+                cell.setCellValue(number);
+            } else if (processed.booleanGetter() != null) {
+                boolean value = processed.booleanGetter().test(rowObject);
+                converterStart = writeStart = System.nanoTime();
+                cell.setCellValue(value);
+            } else {
+                Object fieldValue = processed.fieldInfo().getter().exec(rowObject);
+                converterStart = System.nanoTime();
+                Object cellValue = processed.valueConverter().convert(fieldValue);
+                writeStart = System.nanoTime();
+                setCellValue(cell, processed, cellValue);
+            }
+            long writeEnd = System.nanoTime();
+            styles.styleCell(cell, processed);
+            long styleEnd = System.nanoTime();
+            if (estimator != null) {
+                estimator.measure(cell);
+                measureNanos += System.nanoTime() - styleEnd;
             }
+            getterNanos += converterStart - getterStart;
+            converterNanos += writeStart - converterStart;
+            cellWriteNanos += (getterStart - start) + (writeEnd - writeStart);
+            styleNanos += styleEnd - writeEnd;
+        }
+        recorder.addSampledRow(getterNanos, converterNanos, styleNanos, cellWriteNanos, estimator != null, measureNanos);
+    }
 
-            return sheet;
+    private static void setCellValue(Cell cell, ProcessedFieldInfo processed, @Nullable Object cellValue) {
+        if (cellValue == null) {
+            cell.setBlank();
+            return;
+        }
+        switch (processed.fieldInfo().columnInfo().cellType()) {
+            case STRING -> cell.setCellValue((String) cellValue);
+            case BOOLEAN -> cell.setCellValue((Boolean) cellValue);
+            case NUMERIC -> cell.setCellValue(((Number) cellValue).doubleValue());
+            case BLANK -> cell.setBlank();
+            default -> throw new Bean2ExcelException(
+                String.format("Unsupported excel type \"%s\"",
+                    processed.fieldInfo().columnInfo().cellType())
+            );
+        }
+    }
+
+    /**
+     * Choose, once per column, the getter, converter and cell setter used to write its values,
+     * so that writing a cell doesn't need to look up the column's declaration.
+     */
+    private static CellWriter compileCellWriter(
+        FieldInfo fieldInfo,
+        ValueConverter valueConverter,
+        @Nullable ToDoubleFunction<Object> numericGetter,
+        @Nullable Predicate<Object> booleanGetter
+    ) {
+        if (numericGetter != null) {
+            return (cell, rowObject) -> cell.setCellValue(numericGetter.applyAsDouble(rowObject));
+        }
+        if (booleanGetter != null) {
+            return (cell, rowObject) -> cell.setCellValue(booleanGetter.test(rowObject));
+        }
+
+        val getter = fieldInfo.getter();
+        val cellType = fieldInfo.columnInfo().cellType();
+        if (cellType == CellType.NUMERIC && valueConverter instanceof DoubleValueConverter<?>) {
+            DoubleValueConverter<Object> converter = typed(valueConverter);
+            return (cell, rowObject) -> {
+                val fieldValue = getter.exec(rowObject);
+                if (fieldValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue(converter.convertToDouble(fieldValue));
+                }
+            };
+        }
+        if (cellType == CellType.BOOLEAN && valueConverter instanceof BooleanValueConverter<?>) {
+            BooleanValueConverter<Object> converter = typed(valueConverter);
+            return (cell, rowObject) -> {
+                val fieldValue = getter.exec(rowObject);
+                if (fieldValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue(converter.convertToBoolean(fieldValue));
+                }
+            };
+        }
+        if (cellType == CellType.STRING && valueConverter instanceof StringValueConverter<?>) {
+            StringValueConverter<Object> converter = typed(valueConverter);
+            return (cell, rowObject) -> {
+                val fieldValue = getter.exec(rowObject);
+                val cellValue = fieldValue == null ? null : converter.convertToString(fieldValue);
+                if (cellValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue(cellValue);
+                }
+            };
+        }
+        if (valueConverter.getClass() == IdentityValueConverter.class && cellType == CellType.STRING) {
+            return (cell, rowObject) -> {
+                val cellValue = getter.exec(rowObject);
+                if (cellValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue((String) cellValue);
+                }
+            };
+        }
+        return switch (cellType) {
+            case STRING -> (cell, rowObject) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue((String) cellValue);
+                }
+            };
+            case BOOLEAN -> (cell, rowObject) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue((Boolean) cellValue);
+                }
+            };
+            case NUMERIC -> (cell, rowObject) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    cell.setBlank();
+                } else {
+                    cell.setCellValue(((Number) cellValue).doubleValue());
+                }
+            };
+            case BLANK -> (cell, rowObject) -> {
+                valueConverter.convert(getter.exec(rowObject));
+                cell.setBlank();
+            };
+            default -> (cell, rowObject) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    cell.setBlank();
+                } else {
+                    throw new Bean2ExcelException(String.format("Unsupported excel type \"%s\"", cellType));
+                }
+            };
+        };
+    }
+
+    /**
+     * Same as {@link #compileCellWriter}, for {@link SpreadsheetMLWriter}.
+     */
+    private static DirectCellWriter compileDirectCellWriter(ProcessedFieldInfo processed) {
+        if (processed.styleRules() != null) {
+            return compileConditionalDirectCellWriter(processed, processed.styleRules());
+        }
+        val numericGetter = processed.numericGetter();
+        if (numericGetter != null) {
+            return (writer, rowObject, styles) -> writer.writeNumber(numericGetter.applyAsDouble(rowObject), styles[0]);
+        }
+        val booleanGetter = processed.booleanGetter();
+        if (booleanGetter != null) {
+            return (writer, rowObject, styles) -> writer.writeBoolean(booleanGetter.test(rowObject), styles[0]);
+        }
+
+        val getter = processed.fieldInfo().getter();
+        val valueConverter = processed.valueConverter();
+        val cellType = processed.fieldInfo().columnInfo().cellType();
+        val doubleConverter = processed.doubleConverter();
+        if (doubleConverter != null) {
+            return (writer, rowObject, styles) -> {
+                val fieldValue = getter.exec(rowObject);
+                if (fieldValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    writer.writeNumber(doubleConverter.convertToDouble(fieldValue), styles[0]);
+                }
+            };
+        }
+        if (cellType == CellType.BOOLEAN && valueConverter instanceof BooleanValueConverter<?>) {
+            BooleanValueConverter<Object> converter = typed(valueConverter);
+            return (writer, rowObject, styles) -> {
+                val fieldValue = getter.exec(rowObject);
+                if (fieldValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    writer.writeBoolean(converter.convertToBoolean(fieldValue), styles[0]);
+                }
+            };
+        }
+        if (cellType == CellType.STRING && valueConverter instanceof StringValueConverter<?>) {
+            StringValueConverter<Object> converter = typed(valueConverter);
+            return (writer, rowObject, styles) -> {
+                val fieldValue = getter.exec(rowObject);
+                val cellValue = fieldValue == null ? null : converter.convertToString(fieldValue);
+                if (cellValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    writer.writeString(cellValue, styles[0]);
+                }
+            };
+        }
+        return switch (cellType) {
+            case STRING -> (writer, rowObject, styles) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    writer.writeString((String) cellValue, styles[0]);
+                }
+            };
+            case BOOLEAN -> (writer, rowObject, styles) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    writer.writeBoolean((Boolean) cellValue, styles[0]);
+                }
+            };
+            case NUMERIC -> (writer, rowObject, styles) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    writer.writeNumber(((Number) cellValue).doubleValue(), styles[0]);
+                }
+            };
+            case BLANK -> (writer, rowObject, styles) -> {
+                valueConverter.convert(getter.exec(rowObject));
+                writer.writeBlank(styles[0]);
+            };
+            default -> (writer, rowObject, styles) -> {
+                val cellValue = valueConverter.convert(getter.exec(rowObject));
+                if (cellValue == null) {
+                    writer.writeBlank(styles[0]);
+                } else {
+                    throw new Bean2ExcelException(String.format("Unsupported excel type \"%s\"", cellType));
+                }
+            };
         };
+    }
+
+    /**
+     * Same as {@link #compileDirectCellWriter}, for a column with conditional styles. The style of a rule is at
+     * the index of the rule plus one.
+     */
+    private static DirectCellWriter compileConditionalDirectCellWriter(ProcessedFieldInfo processed, StyleRules rules) {
+        val numericGetter = processed.numericGetter();
+        if (numericGetter != null) {
+            return (writer, rowObject, styles) -> {
+                double number = numericGetter.applyAsDouble(rowObject);
+                writer.writeNumber(number, styles[rules.match(number) + 1]);
+            };
+        }
+        val booleanGetter = processed.booleanGetter();
+        if (booleanGetter != null) {
+            return (writer, rowObject, styles) -> {
+                boolean value = booleanGetter.test(rowObject);
+                writer.writeBoolean(value, styles[rules.match(value) + 1]);
+            };
+        }
 
-        cache.put(objectType, createSheetFunc);
-        return createSheetFunc;
+        val getter = processed.fieldInfo().getter();
+        val valueConverter = processed.valueConverter();
+        val cellType = processed.fieldInfo().columnInfo().cellType();
+        return (writer, rowObject, styles) -> {
+            val cellValue = valueConverter.convert(getter.exec(rowObject));
+            if (cellValue == null || cellType == CellType.BLANK) {
+                writer.writeBlank(styles[0]);
+                return;
+            }
+            int style = styles[rules.match(cellValue) + 1];
+            switch (cellType) {
+                case STRING -> writer.writeString((String) cellValue, style);
+                case BOOLEAN -> writer.writeBoolean((Boolean) cellValue, style);
+                case NUMERIC -> writer.writeNumber(((Number) cellValue).doubleValue(), style);
+                default -> throw new Bean2ExcelException(String.format("Unsupported excel type \"%s\"", cellType));
+            }
+        };
     }
 
-    private static Map<String, ProcessedFieldInfo> processFieldsInfo(ExcelObjectInfo excelObjectInfo) {
-        Map<String, ProcessedFieldInfo> processedInfo = new HashMap<>();
+    private static List<ProcessedFieldInfo> processFieldsInfo(ExcelObjectInfo excelObjectInfo) {
+        List<ProcessedFieldInfo> processedInfo = new ArrayList<>();
+        Set<String> columnNames = new HashSet<>();
 
         int columnIndex = 0;
         for (FieldInfo fieldInfo : excelObjectInfo.fieldInfoList()) {
 
-            if (processedInfo.containsKey(fieldInfo.columnInfo().columnName())) {
+            if (!columnNames.add(fieldInfo.columnInfo().columnName())) {
                 throw new Bean2ExcelException(
                     String.format("Duplicate column name \"%s\"",
                         fieldInfo.columnInfo().columnName())
@@ -182,38 +1884,102 @@ public class Bean2Excel {
 
             StylePropertiesSetter styleSetter = null;
 
-            if (fieldInfo.cellStyleProperties() != null) {
-                val headerStyleProviders =
-                    Arrays
-                        .stream(fieldInfo.cellStyleProperties().headerCellStyle())
-                        .map(Bean2Excel::getNoArgsInstance)
-                        .toList();
-                val cellStyleProviders =
-                    Arrays.stream(fieldInfo.cellStyleProperties().cellStyle())
-                        .map(Bean2Excel::getNoArgsInstance)
-                        .toList();
-
+            String format = fieldInfo.columnInfo().format();
+            if (fieldInfo.styleInfo() != null || !format.isEmpty()) {
+                List<CellStylePropertiesProvider> headerStyleProviders =
+                    fieldInfo.styleInfo() == null ? List.of() : fieldInfo.styleInfo().headerCellStyle();
+                List<CellStylePropertiesProvider> cellStyleProviders = new ArrayList<>();
+                // the format comes first, so that providers of the column can override it
+                if (!format.isEmpty()) {
+                    cellStyleProviders.add(new DataFormatProperties(format));
+                }
+                if (fieldInfo.styleInfo() != null) {
+                    cellStyleProviders.addAll(fieldInfo.styleInfo().cellStyle());
+                }
                 styleSetter = new StylePropertiesSetter(
-                    (cell) -> CellUtil.setCellStyleProperties(cell, mergePropertiesMap(headerStyleProviders, cell)),
-                    (cell) -> CellUtil.setCellStyleProperties(cell, mergePropertiesMap(cellStyleProviders, cell))
+                    headerStyleProviders,
+                    List.copyOf(cellStyleProviders),
+                    cellStyleProviders.stream().anyMatch(CellStylePropertiesProvider::isCellDependent)
                 );
             }
-            val valueConverter = getNoArgsInstance(fieldInfo.columnInfo().valueConverter());
+            val valueConverter = fieldInfo.columnInfo().valueConverter();
 
-            processedInfo.put(
-                fieldInfo.columnInfo().columnName(),
-                new ProcessedFieldInfo(fieldInfo, columnIndex, valueConverter, styleSetter)
-            );
+            // primitive values that aren't converted can go straight from the getter to the cell
+            boolean isIdentity = valueConverter.getClass() == IdentityValueConverter.class;
+            ToDoubleFunction<Object> numericGetter =
+                isIdentity && fieldInfo.columnInfo().cellType() == CellType.NUMERIC ? fieldInfo.doubleGetter() : null;
+            Predicate<Object> booleanGetter =
+                isIdentity && fieldInfo.columnInfo().cellType() == CellType.BOOLEAN ? fieldInfo.booleanGetter() : null;
+
+            DoubleValueConverter<Object> doubleConverter =
+                fieldInfo.columnInfo().cellType() == CellType.NUMERIC && valueConverter instanceof DoubleValueConverter<?>
+                    ? typed(valueConverter) : null;
+
+            processedInfo.add(new ProcessedFieldInfo(
+                fieldInfo, columnIndex, valueConverter, styleSetter,
+                fieldInfo.styleRules().isEmpty() ? null : new StyleRules(fieldInfo.styleRules()),
+                numericGetter, booleanGetter, doubleConverter,
+                compileCellWriter(fieldInfo, valueConverter, numericGetter, booleanGetter)
+            ));
             columnIndex++;
         }
 
         return processedInfo;
     }
 
+    /**
+     * Typed converters are declared on fields of the type they convert, see {@link ExcelColumn#valueConverter()}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <C extends ValueConverter> C typed(ValueConverter valueConverter) {
+        return (C) valueConverter;
+    }
+
+    /**
+     * @return estimator of the width of the autofit columns, measuring numbers with the format of their column,
+     * or {@code null} if no column is autofit
+     */
+    private static @Nullable ColumnWidthEstimator newEstimator(List<ProcessedFieldInfo> columns) {
+        List<Integer> autoFitColumns = getAutoFitColumns(columns);
+        if (autoFitColumns.isEmpty()) {
+            return null;
+        }
+        return new ColumnWidthEstimator(
+            columns.size(),
+            autoFitColumns,
+            columns.stream().map(processed -> processed.fieldInfo().columnInfo().format()).toList()
+        );
+    }
+
+    private static List<Integer> getAutoFitColumns(List<ProcessedFieldInfo> processedInfo) {
+        List<Integer> autoFitColumns = new ArrayList<>();
+        for (val processed : processedInfo) {
+            if (processed.fieldInfo().styleInfo() != null
+                && processed.fieldInfo().styleInfo().autoFit()
+            ) {
+                autoFitColumns.add(processed.columnIndex());
+            }
+        }
+        return autoFitColumns;
+    }
+
+    private static void flushRows(SXSSFSheet sheet) {
+        try {
+            sheet.flushRows();
+        }
+        catch (IOException e) {
+            throw new Bean2ExcelException(
+                String.format("Failed to flush rows of sheet \"%s\"", sheet.getSheetName()), e);
+        }
+    }
+
     private static Map<String, Object> mergePropertiesMap(
         List<? extends CellStylePropertiesProvider> providerList,
         Cell cell
     ) {
+        if (providerList.size() == 1) {
+            return providerList.get(0).getCellStyleProperties(cell);
+        }
         Map<String, Object> mergedProperties = new HashMap<>();
         for (val provider : providerList) {
             mergedProperties.putAll(provider.getCellStyleProperties(cell));
@@ -221,16 +1987,4 @@ public class Bean2Excel {
         return mergedProperties;
     }
 
-    private static <T> T getNoArgsInstance(Class<T> clazz) {
-        try {
-            return clazz.getConstructor().newInstance();
-        }
-        catch (ReflectiveOperationException e) {
-            throw new Bean2ExcelException(String.format(
-                "Failed to use instantiate class \"%s\" using no args constructor, either because it doesn't exists, or the class is not public",
-                clazz.getName()
-            ));
-        }
-    }
-
 }
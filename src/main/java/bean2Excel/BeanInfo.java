@@ -26,28 +26,119 @@
 package bean2Excel;
 
 import bean2Excel.style.CellStyleProperties;
+import bean2Excel.style.CellStylePropertiesProvider;
+import bean2Excel.style.CellStyleProvider;
+import bean2Excel.style.ConditionalStyle;
 import bean2Excel.style.GeneralCellStyle;
+import bean2Excel.style.StyleCondition;
 import lombok.NonNull;
+import org.apache.poi.ss.usermodel.CellType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 class BeanInfo {
 
+    /**
+     * @param rowExpander {@code null} unless the class expands a collection on repeated rows
+     */
     record ExcelObjectInfo(
-        @Nullable GeneralCellStyle generalStyle,
-        @NotNull List<FieldInfo> fieldInfoList
+        @Nullable CellStyleProvider generalStyle,
+        @NotNull List<FieldInfo> fieldInfoList,
+        @Nullable RowExpander rowExpander
     ) {}
 
+    /**
+     * @param doubleGetter unboxed getter, only available for fields of numeric primitive types
+     * @param booleanGetter unboxed getter, only available for fields of primitive boolean type
+     */
     record FieldInfo(
         @NotNull GetterFunc<?> getter,
-        @NotNull ExcelColumn columnInfo,
-        @Nullable CellStyleProperties cellStyleProperties
+        @Nullable ToDoubleFunction<Object> doubleGetter,
+        @Nullable Predicate<Object> booleanGetter,
+        @NotNull ColumnInfo columnInfo,
+        @Nullable StyleInfo styleInfo,
+        @NotNull List<StyleRuleInfo> styleRules
+    ) {}
+
+    /**
+     * Declaration of a column, see {@link ExcelColumn}.
+     * @param valueConverter the declared converter, or the converter of the type of the field,
+     *                       see {@link TypeConverters}
+     * @param format format of the cells, empty for the format of the style of the column
+     */
+    record ColumnInfo(
+        @NotNull String columnName,
+        @NotNull CellType cellType,
+        int order,
+        @NotNull ValueConverter valueConverter,
+        @NotNull String format,
+        boolean lowCardinality
+    ) {}
+
+    /**
+     * Style of a column, see {@link CellStyleProperties}.
+     */
+    record StyleInfo(
+        boolean autoFit,
+        @NotNull List<CellStylePropertiesProvider> headerCellStyle,
+        @NotNull List<CellStylePropertiesProvider> cellStyle
+    ) {}
+
+    /**
+     * A conditional style of a column, see {@link ConditionalStyle}.
+     * @param equalTo matching strings, empty to match values of any type
+     * @param condition {@code null} if the rule has no condition
+     */
+    record StyleRuleInfo(
+        double min,
+        double max,
+        @NotNull List<String> equalTo,
+        @Nullable StyleCondition condition,
+        @NotNull List<CellStylePropertiesProvider> cellStyle
+    ) {}
+
+    /**
+     * Declaration of a class whose objects are read from Excel, see {@link Excel2Bean}.
+     * @param constructor creates an object from a copy of {@code defaultArguments}
+     *                    filled with the values of the fields having an argument index
+     * @param defaultArguments arguments of the canonical constructor of a record, empty for Java Beans classes
+     */
+    record ReadableObjectInfo(
+        @NotNull Function<Object[], Object> constructor,
+        Object @NotNull [] defaultArguments,
+        @NotNull List<ReadableFieldInfo> fieldInfoList
+    ) {}
+
+    /**
+     * @param type type of the field
+     * @param setter setter of a Java Beans field, {@code null} for record components
+     * @param argumentIndex index of the record component in the canonical constructor, -1 for Java Beans fields
+     */
+    record ReadableFieldInfo(
+        @NotNull ColumnInfo columnInfo,
+        @NotNull Class<?> type,
+        @Nullable BiConsumer<Object, Object> setter,
+        int argumentIndex
     ) {}
 
     @FunctionalInterface
@@ -55,52 +146,436 @@ class BeanInfo {
         T exec(Object o);
     }
 
+    private static final ClassCache<ExcelObjectInfo> excelInfoCache = new ClassCache<>(BeanInfo::readExcelInfo);
+
+    private static final ClassCache<ReadableObjectInfo> readableInfoCache =
+        new ClassCache<>(BeanInfo::readReadableInfo);
+
+    /**
+     * Get the Excel declaration of a Java Beans class, from the class generated by
+     * {@link bean2Excel.processor.Bean2ExcelProcessor} if there is one, otherwise using reflection.
+     * The declaration is read once per class.
+     */
     public static ExcelObjectInfo getExcelInfoFromBeans(@NonNull Class<?> clazz) {
+        return excelInfoCache.get(clazz);
+    }
+
+    /**
+     * Get the Excel declaration of a Java Beans class or a record, to create its objects from rows.
+     * Java Beans classes need a public no args constructor and a public setter for each column,
+     * records are created using their canonical constructor.
+     * The declaration is read once per class.
+     */
+    static ReadableObjectInfo getReadableInfo(@NonNull Class<?> clazz) {
+        return readableInfoCache.get(clazz);
+    }
+
+    /**
+     * Forget declarations read so far.
+     */
+    static void clearCache() {
+        excelInfoCache.clear();
+        readableInfoCache.clear();
+    }
+
+    private static ExcelObjectInfo readExcelInfo(Class<?> clazz) {
+        GeneratedBeanInfo<?> generatedBeanInfo = findGeneratedBeanInfo(clazz);
+        if (generatedBeanInfo != null) {
+            return getExcelInfoFromGenerated(generatedBeanInfo);
+        }
+
+        Field expandedField = findExpandedField(clazz);
+        RowExpander rowExpander = expandedField == null
+            ? null
+            : new RowExpander(getterFunc(expandedField));
+
+        GeneralCellStyle generalCellStyle = clazz.getAnnotation(GeneralCellStyle.class);
+        return new ExcelObjectInfo(
+            generalCellStyle == null ? null : getNoArgsInstance(generalCellStyle.cellStyle()),
+            readFieldInfoList(clazz, List.of(), rowExpander != null),
+            rowExpander
+        );
+    }
+
+    /**
+     * Read the columns of a class, flattening its nested beans.
+     * @param enclosingTypes types whose nested beans lead to this class, empty for the exported class
+     * @param expandedRows {@code true} if the exported class expands a collection, so that columns read
+     *                     {@link RowExpander.ExpandedRow} instead of objects
+     */
+    private static List<FieldInfo> readFieldInfoList(
+        Class<?> clazz,
+        List<Class<?>> enclosingTypes,
+        boolean expandedRows
+    ) {
+        if (enclosingTypes.contains(clazz)) {
+            throw new Bean2ExcelException(String.format(
+                "Nested bean \"%s\" contains itself through \"%s\"", clazz.getName(), enclosingTypes.get(0).getName()));
+        }
+        List<Class<?>> nestedEnclosingTypes = new ArrayList<>(enclosingTypes);
+        nestedEnclosingTypes.add(clazz);
 
         ArrayList<FieldInfo> fieldInfoList = new ArrayList<>();
 
         for (Class<?> curClass = clazz; curClass != null; curClass = curClass.getSuperclass()) {
             for (Field field : curClass.getDeclaredFields()) {
                 ExcelColumn excelColumn = field.getAnnotation(ExcelColumn.class);
+                ExcelNested excelNested = field.getAnnotation(ExcelNested.class);
                 if (excelColumn != null) {
-                    Method getterMethod = getGetter(field);
-                    GetterFunc<?> getterFunc = (o)->{
-                        try {
-                            return getterMethod.invoke(o);
-                        }
-                        catch (Exception e) {
-                            e.printStackTrace();
-                            throw new Bean2ExcelException("Internal Error");
-                        }
-                    };
-                    fieldInfoList.add(new FieldInfo(getterFunc, excelColumn, field.getAnnotation(CellStyleProperties.class)));
+                    Method accessor = findAccessor(field);
+                    CellStyleProperties cellStyleProperties = field.getAnnotation(CellStyleProperties.class);
+                    FieldInfo fieldInfo = new FieldInfo(
+                        accessor == null ? Accessors.getterFunc(field) : Accessors.getterFunc(accessor),
+                        accessor == null ? Accessors.doubleGetter(field) : Accessors.doubleGetter(accessor),
+                        accessor == null ? Accessors.booleanGetter(field) : Accessors.booleanGetter(accessor),
+                        getColumnInfo(excelColumn, field.getType()),
+                        cellStyleProperties == null ? null : new StyleInfo(
+                            cellStyleProperties.autoFit(),
+                            getNoArgsInstances(cellStyleProperties.headerCellStyle()),
+                            getNoArgsInstances(cellStyleProperties.cellStyle())
+                        ),
+                        getStyleRules(field.getAnnotationsByType(ConditionalStyle.class))
+                    );
+                    fieldInfoList.add(expandedRows ? objectFieldInfo(fieldInfo) : fieldInfo);
+                }
+                else if (excelNested != null && excelNested.expand()) {
+                    if (!enclosingTypes.isEmpty()) {
+                        throw new Bean2ExcelException(String.format(
+                            "Collection \"%s\" of nested bean \"%s\" can't be expanded, only collections of the exported class can",
+                            field.getName(), clazz.getName()));
+                    }
+                    for (FieldInfo elementInfo : readFieldInfoList(getElementType(field), nestedEnclosingTypes, false)) {
+                        fieldInfoList.add(nestedFieldInfo(elementInfo, excelNested, RowExpander::element));
+                    }
+                }
+                else if (excelNested != null) {
+                    GetterFunc<?> getter = getterFunc(field);
+                    GetterFunc<?> nestedGetter = expandedRows ? row -> getter.exec(RowExpander.object(row)) : getter;
+                    for (FieldInfo nestedInfo : readFieldInfoList(field.getType(), nestedEnclosingTypes, false)) {
+                        fieldInfoList.add(nestedFieldInfo(nestedInfo, excelNested, nestedGetter));
+                    }
                 }
             }
         }
 
-        // sort field based on order attribute of the annotation
+        // sort field based on order attribute of the annotation, nested columns keep their order
         fieldInfoList.sort(new ColumnComparator());
+        return fieldInfoList;
+    }
 
-        return new ExcelObjectInfo(
-            clazz.getAnnotation(GeneralCellStyle.class),
-            fieldInfoList
+    /**
+     * A column of a nested bean, reading the bean with a null-safe accessor. Unboxed getters are dropped,
+     * as they can't represent a missing bean.
+     */
+    private static FieldInfo nestedFieldInfo(FieldInfo fieldInfo, ExcelNested excelNested, GetterFunc<?> nestedGetter) {
+        GetterFunc<?> getter = fieldInfo.getter();
+        ColumnInfo columnInfo = fieldInfo.columnInfo();
+        return new FieldInfo(
+            o -> {
+                Object nested = nestedGetter.exec(o);
+                return nested == null ? null : getter.exec(nested);
+            },
+            null,
+            null,
+            new ColumnInfo(
+                excelNested.prefix() + columnInfo.columnName(),
+                columnInfo.cellType(),
+                excelNested.order(),
+                columnInfo.valueConverter(),
+                columnInfo.format(),
+                columnInfo.lowCardinality()
+            ),
+            fieldInfo.styleInfo(),
+            fieldInfo.styleRules()
+        );
+    }
+
+    /**
+     * A column of an object expanding a collection, reading the object of {@link RowExpander.ExpandedRow}.
+     */
+    private static FieldInfo objectFieldInfo(FieldInfo fieldInfo) {
+        GetterFunc<?> getter = fieldInfo.getter();
+        ToDoubleFunction<Object> doubleGetter = fieldInfo.doubleGetter();
+        Predicate<Object> booleanGetter = fieldInfo.booleanGetter();
+        return new FieldInfo(
+            row -> getter.exec(RowExpander.object(row)),
+            doubleGetter == null ? null : row -> doubleGetter.applyAsDouble(RowExpander.object(row)),
+            booleanGetter == null ? null : row -> booleanGetter.test(RowExpander.object(row)),
+            fieldInfo.columnInfo(),
+            fieldInfo.styleInfo(),
+            fieldInfo.styleRules()
+        );
+    }
+
+    private static @Nullable Field findExpandedField(Class<?> clazz) {
+        Field expandedField = null;
+        for (Class<?> curClass = clazz; curClass != null; curClass = curClass.getSuperclass()) {
+            for (Field field : curClass.getDeclaredFields()) {
+                ExcelNested excelNested = field.getAnnotation(ExcelNested.class);
+                if (excelNested != null && excelNested.expand()) {
+                    if (expandedField != null) {
+                        throw new Bean2ExcelException(String.format(
+                            "Only one collection of \"%s\" can be expanded, found \"%s\" and \"%s\"",
+                            clazz.getName(), expandedField.getName(), field.getName()));
+                    }
+                    expandedField = field;
+                }
+            }
+        }
+        return expandedField;
+    }
+
+    private static Class<?> getElementType(Field field) {
+        if (!Iterable.class.isAssignableFrom(field.getType())) {
+            throw new Bean2ExcelException(String.format(
+                "Expanded field \"%s\" of \"%s\" must be a collection",
+                field.getName(), field.getDeclaringClass().getName()));
+        }
+        if (field.getGenericType() instanceof ParameterizedType parameterizedType) {
+            Type elementType = parameterizedType.getActualTypeArguments()[0];
+            if (elementType instanceof WildcardType wildcardType) {
+                elementType = wildcardType.getUpperBounds()[0];
+            }
+            if (elementType instanceof Class<?> elementClass && elementClass != Object.class) {
+                return elementClass;
+            }
+        }
+        throw new Bean2ExcelException(String.format(
+            "Can't find the element type of expanded field \"%s\" of \"%s\"",
+            field.getName(), field.getDeclaringClass().getName()));
+    }
+
+    private static ReadableObjectInfo readReadableInfo(Class<?> clazz) {
+        if (clazz.isRecord()) {
+            return readRecordInfo(clazz);
+        }
+
+        Supplier<Object> constructor;
+        try {
+            constructor = Accessors.constructorFunc(clazz.getConstructor());
+        }
+        catch (NoSuchMethodException e) {
+            throw new Bean2ExcelException(String.format(
+                "Can't find public no args constructor of \"%s\"", clazz.getName()));
+        }
+
+        ArrayList<ReadableFieldInfo> fieldInfoList = new ArrayList<>();
+        for (Class<?> curClass = clazz; curClass != null; curClass = curClass.getSuperclass()) {
+            for (Field field : curClass.getDeclaredFields()) {
+                ExcelColumn excelColumn = field.getAnnotation(ExcelColumn.class);
+                if (excelColumn != null) {
+                    fieldInfoList.add(new ReadableFieldInfo(
+                        getColumnInfo(excelColumn, field.getType()),
+                        field.getType(),
+                        Accessors.setterFunc(getSetter(field)),
+                        -1
+                    ));
+                }
+            }
+        }
+        return new ReadableObjectInfo(arguments -> constructor.get(), new Object[0], fieldInfoList);
+    }
+
+    private static ReadableObjectInfo readRecordInfo(Class<?> clazz) {
+        RecordComponent[] components = clazz.getRecordComponents();
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        Object[] defaultArguments = new Object[components.length];
+        ArrayList<ReadableFieldInfo> fieldInfoList = new ArrayList<>();
+
+        for (int i = 0; i < components.length; i++) {
+            Class<?> type = components[i].getType();
+            parameterTypes[i] = type;
+            // zero value of primitive components, null otherwise
+            defaultArguments[i] = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+
+            // annotations of record components are propagated to their fields
+            ExcelColumn excelColumn;
+            try {
+                excelColumn = clazz.getDeclaredField(components[i].getName()).getAnnotation(ExcelColumn.class);
+            }
+            catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+            if (excelColumn != null) {
+                fieldInfoList.add(new ReadableFieldInfo(getColumnInfo(excelColumn, type), type, null, i));
+            }
+        }
+
+        Constructor<?> constructor;
+        try {
+            constructor = clazz.getDeclaredConstructor(parameterTypes);
+        }
+        catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        return new ReadableObjectInfo(Accessors.argsConstructorFunc(constructor), defaultArguments, fieldInfoList);
+    }
+
+    private static ColumnInfo getColumnInfo(ExcelColumn excelColumn, Class<?> fieldType) {
+        return getColumnInfo(
+            excelColumn.columnName(),
+            excelColumn.cellType(),
+            excelColumn.order(),
+            getNoArgsInstance(excelColumn.valueConverter()),
+            excelColumn.format(),
+            excelColumn.lowCardinality(),
+            fieldType
         );
     }
 
+    /**
+     * Fields without a declared converter, whose type has no direct cell representation,
+     * get the converter and the default format of their type.
+     */
+    private static ColumnInfo getColumnInfo(
+        String columnName,
+        CellType cellType,
+        int order,
+        ValueConverter valueConverter,
+        String format,
+        boolean lowCardinality,
+        Class<?> fieldType
+    ) {
+        TypeConverters.TypeConverter typeConverter = valueConverter.getClass() == IdentityValueConverter.class
+            ? TypeConverters.forType(fieldType, cellType)
+            : null;
+        if (typeConverter == null) {
+            return new ColumnInfo(columnName, cellType, order, valueConverter, format, lowCardinality);
+        }
+        return new ColumnInfo(
+            columnName,
+            cellType,
+            order,
+            typeConverter.valueConverter(),
+            format.isEmpty() ? typeConverter.defaultFormat() : format,
+            lowCardinality
+        );
+    }
+
+    private static List<StyleRuleInfo> getStyleRules(ConditionalStyle[] conditionalStyles) {
+        return Arrays.stream(conditionalStyles)
+            .map(conditionalStyle -> new StyleRuleInfo(
+                conditionalStyle.min(),
+                conditionalStyle.max(),
+                List.of(conditionalStyle.equalTo()),
+                conditionalStyle.condition() == StyleCondition.class ? null : getNoArgsInstance(conditionalStyle.condition()),
+                getNoArgsInstances(conditionalStyle.cellStyle())
+            ))
+            .toList();
+    }
+
+    private static ExcelObjectInfo getExcelInfoFromGenerated(GeneratedBeanInfo<?> generatedBeanInfo) {
+        ArrayList<FieldInfo> fieldInfoList = new ArrayList<>();
+        for (GeneratedBeanInfo.Column column : generatedBeanInfo.columns()) {
+            GeneratedBeanInfo.Style style = column.style();
+            fieldInfoList.add(new FieldInfo(
+                column.getter()::apply,
+                column.doubleGetter(),
+                column.booleanGetter(),
+                getColumnInfo(
+                    column.columnName(), column.cellType(), column.order(), column.valueConverter(), column.format(),
+                    column.lowCardinality(), column.type()),
+                style == null ? null : new StyleInfo(style.autoFit(), style.headerCellStyle(), style.cellStyle()),
+                // classes with conditional styles are not generated
+                List.of()
+            ));
+        }
+        fieldInfoList.sort(new ColumnComparator());
+        return new ExcelObjectInfo(generatedBeanInfo.generalStyle(), fieldInfoList, null);
+    }
+
+    private static @Nullable GeneratedBeanInfo<?> findGeneratedBeanInfo(Class<?> clazz) {
+        String generatedName = GeneratedBeanInfo.generatedClassName(clazz.getName());
+        return ServiceLoader.load(generatedBeanInfoClass(), clazz.getClassLoader())
+            .stream()
+            .filter(provider -> provider.type().getName().equals(generatedName))
+            .findFirst()
+            .map(ServiceLoader.Provider::get)
+            .filter(generatedBeanInfo -> generatedBeanInfo.beanType() == clazz)
+            .orElse(null);
+    }
+
+    /**
+     * The class literal of the generic service interface is raw, each generated class implements it for its bean type.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Class<GeneratedBeanInfo<?>> generatedBeanInfoClass() {
+        return (Class<GeneratedBeanInfo<?>>) (Class) GeneratedBeanInfo.class;
+    }
 
-    private static Method getGetter(Field field) {
+    /**
+     * Find the public accessor of a field: its getter {@code getX()} or {@code isX()}, otherwise an accessor
+     * named after the field, as declared by records and fluent beans.
+     * @return {@code null} if the field has no accessor, it is then read directly
+     */
+    private static @Nullable Method findAccessor(Field field) {
         String verb = field.getType().isPrimitive() && field.getType().equals(boolean.class) ?
             "is" : "get";
         String getterName = verb +
             Character.toUpperCase(field.getName().charAt(0)) +
             field.getName().substring(1);
+        Method getter = findPublicMethod(field.getDeclaringClass(), getterName);
+        if (getter != null) {
+            return getter;
+        }
+        Method accessor = findPublicMethod(field.getDeclaringClass(), field.getName());
+        return accessor != null && accessor.getReturnType() == field.getType() ? accessor : null;
+    }
+
+    private static @Nullable Method findPublicMethod(Class<?> clazz, String name) {
         try {
-            return field.getDeclaringClass().getMethod(getterName);
+            Method method = clazz.getMethod(name);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
         }
         catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Accessors are turned into generated functions, which are the fastest once inlined, fields without
+     * accessor are read through a {@link java.lang.invoke.VarHandle}.
+     */
+    private static GetterFunc<?> getterFunc(Field field) {
+        Method accessor = findAccessor(field);
+        return accessor == null ? Accessors.getterFunc(field) : Accessors.getterFunc(accessor);
+    }
+
+    private static Method getSetter(Field field) {
+        String setterName = "set" +
+            Character.toUpperCase(field.getName().charAt(0)) +
+            field.getName().substring(1);
+        try {
+            return field.getDeclaringClass().getMethod(setterName, field.getType());
+        }
+        catch (NoSuchMethodException e) {
+            throw new Bean2ExcelException(String.format(
+                "Can't find public setter \"%s\" of \"%s\" for field \"%s\"",
+                setterName, field.getDeclaringClass().getName(), field.getName()));
+        }
+    }
+
+    private static List<CellStylePropertiesProvider> getNoArgsInstances(
+        Class<? extends CellStylePropertiesProvider>[] classes
+    ) {
+        return Arrays.stream(classes)
+            .<CellStylePropertiesProvider>map(BeanInfo::getNoArgsInstance)
+            .toList();
+    }
+
+    /**
+     * Create a converter or style provider. Each declaration gets its own instance, as declarations are read
+     * once per class, so instances holding state aren't shared by columns or classes.
+     */
+    static <T> T getNoArgsInstance(Class<T> clazz) {
+        try {
+            return clazz.getConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e) {
             throw new Bean2ExcelException(String.format(
-                "Can't find public getter \"%s\" of \"%s\" for field \"%s\"",
-                getterName, field.getDeclaringClass().getName(), field.getName()));
+                "Failed to use instantiate class \"%s\" using no args constructor, either because it doesn't exists, or the class is not public",
+                clazz.getName()
+            ));
         }
     }
 
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of cell styles resolved from style properties, belonging to a single sheet being created.
+ * <br/>
+ * {@link CellUtil#setCellStyleProperties(Cell, Map)} searches through every style of the workbook to find one
+ * matching the requested properties. This cache remembers the result of that search for each
+ * (base style, properties) pair, in the sheet and in the {@link WorkbookStyles} of the workbook,
+ * so that it's done only once per pair and workbook.
+ */
+class CellStyleCache {
+
+    record StyleKey(
+        int baseStyleIndex,
+        @NotNull Map<String, Object> properties
+    ) {}
+
+    private final Workbook workbook;
+    private final WorkbookStyles workbookStyles;
+    private final Map<StyleKey, CellStyle> styles = new HashMap<>();
+
+    CellStyleCache(@NotNull Workbook workbook, @NotNull WorkbookStyles workbookStyles) {
+        this.workbook = workbook;
+        this.workbookStyles = workbookStyles;
+    }
+
+    /**
+     * Apply style properties on top of the current style of a cell.
+     * @param cell the cell to be styled
+     * @param properties style properties, see {@link CellUtil}
+     */
+    void apply(@NotNull Cell cell, @NotNull Map<String, Object> properties) {
+        if (properties.isEmpty()) {
+            return;
+        }
+
+        StyleKey key = new StyleKey(Short.toUnsignedInt(cell.getCellStyle().getIndex()), properties);
+        CellStyle cellStyle = styles.get(key);
+        if (cellStyle != null) {
+            cell.setCellStyle(cellStyle);
+            return;
+        }
+
+        // providers may reuse the same map instance, so the key must hold a copy
+        StyleKey storedKey = new StyleKey(key.baseStyleIndex(), Collections.unmodifiableMap(new HashMap<>(properties)));
+        Integer index = workbookStyles.resolvedStyle(key);
+        if (index != null) {
+            cellStyle = workbook.getCellStyleAt(index);
+            cell.setCellStyle(cellStyle);
+        }
+        else {
+            CellUtil.setCellStyleProperties(cell, properties);
+            cellStyle = cell.getCellStyle();
+            workbookStyles.addResolvedStyle(storedKey, Short.toUnsignedInt(cellStyle.getIndex()));
+        }
+        styles.put(storedKey, cellStyle);
+    }
+}
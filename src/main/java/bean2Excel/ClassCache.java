@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Function;
+
+/**
+ * Values computed once per class. Lookups don't lock, and a value doesn't keep its class
+ * (nor the class loader of its class) from being unloaded.
+ * @param <V> type of the values
+ */
+class ClassCache<V> {
+
+    private final Function<Class<?>, V> computeFunc;
+    private volatile ClassValue<V> values;
+
+    ClassCache(@NotNull Function<Class<?>, V> computeFunc) {
+        this.computeFunc = computeFunc;
+        this.values = newClassValue();
+    }
+
+    V get(@NotNull Class<?> type) {
+        return values.get(type);
+    }
+
+    /**
+     * Forget all values, they are computed again on next lookups.
+     */
+    void clear() {
+        values = newClassValue();
+    }
+
+    private ClassValue<V> newClassValue() {
+        return new ClassValue<>() {
+            @Override
+            protected V computeValue(Class<?> type) {
+                return computeFunc.apply(type);
+            }
+        };
+    }
+}
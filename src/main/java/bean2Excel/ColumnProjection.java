@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.NonNull;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selection and order of the columns of an export, by column name, see {@link ExportOptions#projection()}.
+ * Getters and value converters of columns left out are never called.
+ * <br/>
+ * Projected functions are compiled and cached per projection, so projections should be created once and reused,
+ * e.g. one per tenant. Equal projections share their functions, and cached projections count toward
+ * {@link Bean2Excel#setMaximumCacheSize(int)}, so projections created per call don't grow the cache.
+ * @param columns columns written first, in this order
+ * @param otherColumns whether columns not listed in {@code columns} are written after them, in declaration order
+ * @param excluded columns not written
+ */
+public record ColumnProjection(
+    @NonNull List<String> columns,
+    boolean otherColumns,
+    @NonNull Set<String> excluded
+) {
+    /**
+     * All columns, in declaration order.
+     */
+    public static final ColumnProjection ALL = new ColumnProjection(List.of(), true, Set.of());
+
+    public ColumnProjection {
+        columns = List.copyOf(columns);
+        excluded = Set.copyOf(excluded);
+        Set<String> seen = new HashSet<>();
+        for (String column : columns) {
+            if (!seen.add(column)) {
+                throw new Bean2ExcelException(String.format("Duplicate column name \"%s\" in projection", column));
+            }
+            if (excluded.contains(column)) {
+                throw new Bean2ExcelException(String.format("Column \"%s\" is both included and excluded", column));
+            }
+        }
+    }
+
+    /**
+     * @param columns names of the only columns written, in this order
+     */
+    public static ColumnProjection include(@NonNull String... columns) {
+        return new ColumnProjection(List.of(columns), false, Set.of());
+    }
+
+    /**
+     * @param columns names of the columns written first, in this order, followed by the other columns
+     */
+    public static ColumnProjection reorder(@NonNull String... columns) {
+        return new ColumnProjection(List.of(columns), true, Set.of());
+    }
+
+    /**
+     * @param columns names of the columns not written
+     */
+    public static ColumnProjection exclude(@NonNull String... columns) {
+        return ALL.excluding(columns);
+    }
+
+    /**
+     * @param columns names of further columns not written
+     * @return a copy of this projection excluding the columns
+     */
+    public ColumnProjection excluding(@NonNull String... columns) {
+        Set<String> allExcluded = new HashSet<>(excluded);
+        allExcluded.addAll(List.of(columns));
+        return new ColumnProjection(this.columns, otherColumns, allExcluded);
+    }
+}
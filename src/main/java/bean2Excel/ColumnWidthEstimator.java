@@ -0,0 +1,336 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.font.FontRenderContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimate the width of autofit columns from the values written in them, as an alternative to
+ * {@link Sheet#autoSizeColumn(int)}.
+ * <br/>
+ * {@code autoSizeColumn} lays out the text of every cell of the column once all rows are written, which needs
+ * all rows in memory and often takes longer than writing them. This estimator measures values as they are
+ * written, by adding up the width of each character, so it works with streaming sheets and can be limited
+ * to a sample of rows. Character widths are measured once per font, widths are in units of the width of
+ * the character '0' of the default font, as column widths are in Excel.
+ * <br/>
+ * Numbers of columns with a format are measured as displayed with that format. Dates are displayed with the same
+ * number of characters whatever their value, so only the first date of a column is formatted.
+ */
+class ColumnWidthEstimator {
+
+    // Excel's maximum column width, in characters
+    private static final double MAX_WIDTH = 255;
+    // margins of the cell, in characters
+    private static final double PADDING = 1;
+
+    /**
+     * Width of characters of a font, relative to the width of '0' of the default font of the workbook.
+     */
+    static final class CharWidths {
+        private static final int ASCII_SIZE = 128;
+        private static final FontRenderContext RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+        private final double[] asciiWidths = new double[ASCII_SIZE];
+        // width of characters other than ascii, by class
+        private final double narrowWidth;
+        private final double wideWidth;
+
+        private CharWidths(double[] asciiWidths, double narrowWidth, double wideWidth) {
+            System.arraycopy(asciiWidths, 0, this.asciiWidths, 0, ASCII_SIZE);
+            this.narrowWidth = narrowWidth;
+            this.wideWidth = wideWidth;
+        }
+
+        /**
+         * Width of text, the widest line of text spanning several lines.
+         */
+        double width(CharSequence text) {
+            double maxWidth = 0;
+            double width = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    maxWidth = Math.max(maxWidth, width);
+                    width = 0;
+                } else {
+                    width += width(c);
+                }
+            }
+            return Math.max(maxWidth, width);
+        }
+
+        double width(char c) {
+            if (c < ASCII_SIZE) {
+                return asciiWidths[c];
+            }
+            if (Character.isLowSurrogate(c)) {
+                // counted with its high surrogate
+                return 0;
+            }
+            if (Character.isHighSurrogate(c) || isWide(c)) {
+                return wideWidth;
+            }
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) {
+                return 0;
+            }
+            return narrowWidth;
+        }
+
+        private static boolean isWide(char c) {
+            Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+            return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.HANGUL_SYLLABLES
+                || block == Character.UnicodeBlock.HANGUL_JAMO
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS && c < '\uFF61';
+        }
+
+        /**
+         * Measure the characters of a font with AWT. When fonts are not available, every ascii character
+         * is as wide as '0'.
+         */
+        private static CharWidths measure(FontKey font, double defaultCharWidth) {
+            double[] widths = new double[ASCII_SIZE];
+            try {
+                java.awt.Font awtFont = new java.awt.Font(font.name(), font.awtStyle(), font.heightInPoints());
+                for (char c = ' '; c < ASCII_SIZE - 1; c++) {
+                    widths[c] = awtWidth(awtFont, c) / defaultCharWidth;
+                }
+                widths['\t'] = widths[' '] * 8;
+                return new CharWidths(widths, awtWidth(awtFont, 'n') / defaultCharWidth,
+                    2 * awtWidth(awtFont, '0') / defaultCharWidth);
+            }
+            catch (RuntimeException | LinkageError | InternalError e) {
+                double scale = font.heightInPoints() / (double) XSSFFont.DEFAULT_FONT_SIZE;
+                for (char c = ' '; c < ASCII_SIZE - 1; c++) {
+                    widths[c] = scale;
+                }
+                return new CharWidths(widths, scale, 2 * scale);
+            }
+        }
+
+        private static double awtWidth(java.awt.Font awtFont, char c) {
+            return awtFont.getStringBounds(String.valueOf(c), RENDER_CONTEXT).getWidth();
+        }
+    }
+
+    private record FontKey(
+        @NotNull String name,
+        int heightInPoints,
+        boolean bold,
+        boolean italic
+    ) {
+        static FontKey of(Font font) {
+            return new FontKey(font.getFontName(), font.getFontHeightInPoints(), font.getBold(), font.getItalic());
+        }
+
+        int awtStyle() {
+            return (bold ? java.awt.Font.BOLD : 0) | (italic ? java.awt.Font.ITALIC : 0);
+        }
+    }
+
+    // measured fonts, by font and default font of the workbook
+    private static final Map<FontKey, Map<FontKey, CharWidths>> charWidthsCache = new ConcurrentHashMap<>();
+
+    private final boolean[] autoFit;
+    private final double[] widths;
+    // fonts of the workbook, by index
+    private final Map<Integer, CharWidths> fonts = new HashMap<>();
+
+    // format of the numbers of each column, null for the general format
+    private final String[] formats;
+    private final boolean[] dateFormats;
+    private final boolean[] dateMeasured;
+    private @Nullable DataFormatter formatter;
+
+    /**
+     * @param columnCount number of columns of the sheet
+     * @param autoFitColumns indexes of the columns whose width is estimated
+     * @param formats format of the numbers of each column, empty for the general format
+     */
+    ColumnWidthEstimator(int columnCount, @NotNull Iterable<Integer> autoFitColumns, @NotNull List<String> formats) {
+        this.autoFit = new boolean[columnCount];
+        this.widths = new double[columnCount];
+        for (int column : autoFitColumns) {
+            autoFit[column] = true;
+        }
+        this.formats = new String[columnCount];
+        this.dateFormats = new boolean[columnCount];
+        this.dateMeasured = new boolean[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            String format = formats.get(column);
+            if (autoFit[column] && !format.isEmpty() && !format.equalsIgnoreCase("General")) {
+                this.formats[column] = format;
+                dateFormats[column] = DateUtil.isADateFormat(-1, format);
+            }
+        }
+    }
+
+    /**
+     * Get the width of the characters of a font of a workbook, measured once per font.
+     */
+    static CharWidths getCharWidths(@NotNull Workbook workbook, @NotNull Font font) {
+        FontKey defaultFont = FontKey.of(workbook.getFontAt(0));
+        return charWidthsCache
+            .computeIfAbsent(defaultFont, key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(FontKey.of(font), key -> CharWidths.measure(key, getDefaultCharWidth(defaultFont)));
+    }
+
+    private static double getDefaultCharWidth(FontKey defaultFont) {
+        try {
+            java.awt.Font awtFont = new java.awt.Font(defaultFont.name(), defaultFont.awtStyle(), defaultFont.heightInPoints());
+            return CharWidths.awtWidth(awtFont, '0');
+        }
+        catch (RuntimeException | LinkageError | InternalError e) {
+            // not used when fonts are not available
+            return 1;
+        }
+    }
+
+    int columnCount() {
+        return autoFit.length;
+    }
+
+    boolean isAutoFit(int column) {
+        return column < autoFit.length && autoFit[column];
+    }
+
+    /**
+     * Measure the value of a cell with the font of its style, if the cell is in an autofit column.
+     */
+    void measure(@NotNull Cell cell) {
+        int column = cell.getColumnIndex();
+        if (!isAutoFit(column)) {
+            return;
+        }
+        switch (cell.getCellType()) {
+            case STRING -> measure(column, cell.getStringCellValue(), getCharWidths(cell));
+            case NUMERIC -> measure(column, cell.getNumericCellValue(), getCharWidths(cell));
+            case BOOLEAN -> measure(column, cell.getBooleanCellValue(), getCharWidths(cell));
+            default -> {}
+        }
+    }
+
+    void measure(int column, @NotNull String value, @NotNull CharWidths charWidths) {
+        update(column, charWidths.width(value));
+    }
+
+    /**
+     * Measure a number as displayed with the format of its column, or with the general format.
+     */
+    void measure(int column, double value, @NotNull CharWidths charWidths) {
+        String format = formats[column];
+        if (format != null) {
+            if (dateFormats[column]) {
+                if (dateMeasured[column]) {
+                    return;
+                }
+                dateMeasured[column] = true;
+            }
+            if (formatter == null) {
+                formatter = new DataFormatter();
+            }
+            update(column, charWidths.width(formatter.formatRawCellContents(value, -1, format)));
+            return;
+        }
+        double width;
+        if (value == Math.rint(value) && Math.abs(value) < 1e11) {
+            // digits of integral values are counted without formatting the value
+            long integral = Math.abs((long) value);
+            width = value < 0 ? charWidths.width('-') : 0;
+            do {
+                width += charWidths.width('0');
+                integral /= 10;
+            } while (integral != 0);
+        }
+        else {
+            // the general format displays at most 11 characters
+            String text = Double.toString(value);
+            width = charWidths.width(text.length() > 11 ? text.substring(0, 11) : text);
+        }
+        update(column, width);
+    }
+
+    void measure(int column, boolean value, @NotNull CharWidths charWidths) {
+        update(column, charWidths.width(value ? "TRUE" : "FALSE"));
+    }
+
+    private void update(int column, double width) {
+        if (width > widths[column]) {
+            widths[column] = width;
+        }
+    }
+
+    /**
+     * @return estimated width of a column in units of 1/256th of a character, as used by
+     * {@link Sheet#setColumnWidth(int, int)}
+     */
+    int getColumnWidth(int column) {
+        return (int) Math.round(Math.min(widths[column] + PADDING, MAX_WIDTH) * 256);
+    }
+
+    /**
+     * Set the width of the autofit columns of a sheet.
+     */
+    void apply(@NotNull Sheet sheet) {
+        for (int column = 0; column < autoFit.length; column++) {
+            if (autoFit[column]) {
+                sheet.setColumnWidth(column, getColumnWidth(column));
+            }
+        }
+    }
+
+    private CharWidths getCharWidths(Cell cell) {
+        int fontIndex = cell.getCellStyle().getFontIndex();
+        CharWidths charWidths = fonts.get(fontIndex);
+        if (charWidths == null) {
+            Workbook workbook = cell.getSheet().getWorkbook();
+            charWidths = getCharWidths(workbook, workbook.getFontAt(fontIndex));
+            fonts.put(fontIndex, charWidths);
+        }
+        return charWidths;
+    }
+}
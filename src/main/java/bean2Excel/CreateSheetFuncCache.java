@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static bean2Excel.Bean2Excel.CompiledProjection;
+
+/**
+ * Cache of functions per bean type and projection, bounded by a maximum size. Functions don't depend on other
+ * options, so callers creating options per call, e.g. with their own metrics or executor, share them.
+ * The functions of a projection, creating sheets or writing them straight to an output stream,
+ * are a single entry, see {@link CompiledProjection}.
+ * <br/>
+ * Lookups don't lock. Adding a function locks to keep track of insertion order, when the cache is full
+ * the oldest function is evicted. Functions of unloaded classes leave the cache along with their class.
+ */
+class CreateSheetFuncCache {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /**
+     * Tracks a cached function for eviction, without keeping its bean type alive.
+     */
+    private static final class Key extends WeakReference<Class<?>> {
+        private final ColumnProjection projection;
+        // guarded by the cache
+        private boolean removed;
+
+        private Key(Class<?> type, ColumnProjection projection, ReferenceQueue<Class<?>> queue) {
+            super(type, queue);
+            this.projection = projection;
+        }
+    }
+
+    private final ClassCache<Map<ColumnProjection, CompiledProjection>> funcs =
+        new ClassCache<>(type -> new ConcurrentHashMap<>());
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final ReferenceQueue<Class<?>> unloadedTypes = new ReferenceQueue<>();
+    // guarded by this
+    private final Deque<Key> insertionOrder = new ArrayDeque<>();
+    // guarded by this
+    private int size;
+    private volatile int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * Get the cached function, or create and cache it. The function may be created more than once
+     * by concurrent calls, only one of them is cached and returned.
+     */
+    CompiledProjection get(
+        @NotNull Class<?> type,
+        @NotNull ColumnProjection projection,
+        @NotNull Supplier<CompiledProjection> createFunc
+    ) {
+        Map<ColumnProjection, CompiledProjection> typeFuncs = funcs.get(type);
+        CompiledProjection cachedFunc = typeFuncs.get(projection);
+        if (cachedFunc != null) {
+            hitCount.increment();
+            return cachedFunc;
+        }
+
+        missCount.increment();
+        CompiledProjection createdFunc = createFunc.get();
+        cachedFunc = typeFuncs.putIfAbsent(projection, createdFunc);
+        if (cachedFunc != null) {
+            return cachedFunc;
+        }
+
+        synchronized (this) {
+            expungeUnloadedTypes();
+            insertionOrder.add(new Key(type, projection, unloadedTypes));
+            size++;
+            evictOverflow();
+        }
+        return createdFunc;
+    }
+
+    synchronized void clear() {
+        funcs.clear();
+        insertionOrder.forEach(key -> key.removed = true);
+        insertionOrder.clear();
+        size = 0;
+    }
+
+    synchronized void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new Bean2ExcelException(String.format("Maximum cache size must be positive, got %d", maximumSize));
+        }
+        this.maximumSize = maximumSize;
+        evictOverflow();
+    }
+
+    synchronized CacheStats stats() {
+        expungeUnloadedTypes();
+        return new CacheStats(size, maximumSize, hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
+
+    // guarded by this
+    private void evictOverflow() {
+        while (size > maximumSize) {
+            Key oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Class<?> type = oldest.get();
+            if (type != null) {
+                funcs.get(type).remove(oldest.projection);
+            }
+            oldest.removed = true;
+            size--;
+            evictionCount.increment();
+        }
+    }
+
+    // guarded by this
+    private void expungeUnloadedTypes() {
+        for (Key key = (Key) unloadedTypes.poll(); key != null; key = (Key) unloadedTypes.poll()) {
+            if (!key.removed) {
+                key.removed = true;
+                insertionOrder.remove(key);
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.NonNull;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.jetbrains.annotations.Nullable;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static bean2Excel.BeanInfo.*;
+
+public class Excel2Bean {
+
+    @FunctionalInterface
+    public interface ReadSheetFunc<T> {
+        /**
+         * Read the rows of an Excel sheet into Java Beans objects, the inverse of
+         * {@link Bean2Excel.CreateSheetFunc}. The first row is the header, its cells are matched against
+         * {@link ExcelColumn#columnName()}, other columns are ignored. Every column of the class must be
+         * in the header, a missing column fails the read rather than leaving its field unset. Each following row is the data of an object,
+         * empty rows are skipped.
+         * <br/>
+         * The sheet is parsed as a stream, rows are converted and passed to the consumer one at a time
+         * so memory usage doesn't depend on the number of rows.
+         * @param file an Excel file in the xlsx format
+         * @param sheetName name of the sheet to be read, or {@code null} to read the first sheet
+         * @param consumer receives the objects in the order of the rows
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration is invalid,
+         * the file can't be read or a cell value can't be assigned to its field.
+         */
+        void exec(
+            @NonNull Path file,
+            @Nullable String sheetName,
+            @NonNull Consumer<T> consumer
+        );
+
+        /**
+         * Read the rows of an Excel sheet into Java Beans objects. The stream is copied to a temporary file
+         * to be parsed, it is not closed by this method.
+         * <br/>
+         * See {@link #exec(Path, String, Consumer)}.
+         * @param inputStream content of an Excel file in the xlsx format
+         * @param sheetName name of the sheet to be read, or {@code null} to read the first sheet
+         * @param consumer receives the objects in the order of the rows
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration is invalid,
+         * the file can't be read or a cell value can't be assigned to its field.
+         */
+        default void exec(
+            @NonNull InputStream inputStream,
+            @Nullable String sheetName,
+            @NonNull Consumer<T> consumer
+        ) {
+            Path file = null;
+            try {
+                file = Files.createTempFile("bean2Excel", ".xlsx");
+                Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+                exec(file, sheetName, consumer);
+            }
+            catch (IOException e) {
+                throw new Bean2ExcelException("Failed to copy the Excel file to a temporary file", e);
+            }
+            finally {
+                if (file != null) {
+                    try {
+                        Files.deleteIfExists(file);
+                    }
+                    catch (IOException ignored) {
+                        // the file is in the temporary directory anyway
+                    }
+                }
+            }
+        }
+
+        /**
+         * Read all the rows of an Excel sheet into a list of Java Beans objects.
+         * <br/>
+         * See {@link #exec(Path, String, Consumer)}.
+         * @param file an Excel file in the xlsx format
+         * @param sheetName name of the sheet to be read, or {@code null} to read the first sheet
+         * @return the objects in the order of the rows
+         * @throws Bean2ExcelException a runtime exception indicating that a declaration is invalid,
+         * the file can't be read or a cell value can't be assigned to its field.
+         */
+        default List<T> exec(
+            @NonNull Path file,
+            @Nullable String sheetName
+        ) {
+            List<T> objects = new ArrayList<>();
+            exec(file, sheetName, objects::add);
+            return objects;
+        }
+    }
+
+    /**
+     * Get a function reading Excel sheets into objects of a class.
+     * @param type a Java Beans class with a public no args constructor and a public setter for each
+     *             {@link ExcelColumn} field, or a record whose components are annotated with {@link ExcelColumn}.
+     *             Value converters of the columns must implement {@link ValueConverter#convertBack(Object)}.
+     * @return a function reading Excel sheets
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration is invalid.
+     */
+    public static <T> ReadSheetFunc<T> getReadSheetFunc(@NonNull Class<T> type) {
+        ReadableObjectInfo objectInfo = getReadableInfo(type);
+        return (file, sheetName, consumer) -> readSheet(type, objectInfo, file, sheetName, consumer);
+    }
+
+    private static <T> void readSheet(
+        Class<T> type,
+        ReadableObjectInfo objectInfo,
+        Path file,
+        @Nullable String sheetName,
+        Consumer<T> consumer
+    ) {
+        try (OPCPackage opcPackage = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(opcPackage);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(opcPackage, false);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetData = sheets.next()) {
+                    if (sheetName == null || sheetName.equals(sheets.getSheetName())) {
+                        XMLReader xmlReader = XMLHelper.newXMLReader();
+                        xmlReader.setContentHandler(new SheetHandler<>(type, objectInfo, sharedStrings, consumer));
+                        xmlReader.parse(new InputSource(sheetData));
+                        return;
+                    }
+                }
+            }
+            throw new Bean2ExcelException(String.format("Can't find sheet \"%s\"", sheetName));
+        }
+        catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new Bean2ExcelException(String.format("Failed to read Excel file \"%s\"", file), e);
+        }
+    }
+
+    /**
+     * Convert the value of a cell to a value assignable to a field.
+     * @param value a {@link String}, {@link Double} or {@link Boolean}
+     */
+    private static Object coerce(Object value, Class<?> type) {
+        Class<?> wrapperType = Accessors.wrap(type);
+        if (wrapperType.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Double number) {
+            if (wrapperType == String.class) {
+                return NumberToTextConverter.toText(number);
+            }
+            if (wrapperType == Float.class) {
+                return number.floatValue();
+            }
+            if (wrapperType == Long.class || wrapperType == Integer.class
+                || wrapperType == Short.class || wrapperType == Byte.class) {
+                long integral = number.longValue();
+                if (integral != number) {
+                    throw new IllegalArgumentException(String.format("%s is not an integer", number));
+                }
+                if (wrapperType == Integer.class) {
+                    return (int) checkRange(integral, Integer.MIN_VALUE, Integer.MAX_VALUE, type);
+                }
+                if (wrapperType == Short.class) {
+                    return (short) checkRange(integral, Short.MIN_VALUE, Short.MAX_VALUE, type);
+                }
+                if (wrapperType == Byte.class) {
+                    return (byte) checkRange(integral, Byte.MIN_VALUE, Byte.MAX_VALUE, type);
+                }
+                return integral;
+            }
+        }
+        if (value instanceof String text && Number.class.isAssignableFrom(wrapperType)) {
+            return coerce(Double.parseDouble(text.trim()), type);
+        }
+        if (value instanceof Boolean bool && wrapperType == String.class) {
+            return bool.toString();
+        }
+        throw new IllegalArgumentException(String.format(
+            "%s of type %s can't be assigned to %s", value, value.getClass().getName(), type.getName()));
+    }
+
+    private static long checkRange(long value, long min, long max, Class<?> type) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(String.format("%d is out of the range of %s", value, type.getName()));
+        }
+        return value;
+    }
+
+    /**
+     * Parse the xml of a sheet, see the "Worksheets" part of ECMA-376.
+     */
+    private static class SheetHandler<T> extends DefaultHandler {
+        private final Class<T> type;
+        private final ReadableObjectInfo objectInfo;
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final Consumer<T> consumer;
+
+        // fields by column index, set when the header is read
+        private ReadableFieldInfo @Nullable [] columnFields;
+        private final Map<Integer, String> header = new HashMap<>();
+        private Object[] rowValues = new Object[0];
+        private boolean rowEmpty;
+        private int rowNumber;
+
+        private int columnIndex;
+        private @Nullable String cellType;
+        private final StringBuilder cellText = new StringBuilder();
+        private boolean inValue;
+
+        private SheetHandler(
+            Class<T> type,
+            ReadableObjectInfo objectInfo,
+            ReadOnlySharedStringsTable sharedStrings,
+            Consumer<T> consumer
+        ) {
+            this.type = type;
+            this.objectInfo = objectInfo;
+            this.sharedStrings = sharedStrings;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowNumber = r == null ? rowNumber + 1 : Integer.parseInt(r);
+                    columnIndex = -1;
+                    rowEmpty = true;
+                    Arrays.fill(rowValues, null);
+                }
+                case "c" -> {
+                    String r = attributes.getValue("r");
+                    columnIndex = r == null ? columnIndex + 1 : new CellReference(r).getCol();
+                    cellType = attributes.getValue("t");
+                    cellText.setLength(0);
+                }
+                // "v" is the value of a cell, "t" the text of an inline string
+                case "v", "t" -> inValue = true;
+                default -> {}
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                cellText.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "c" -> endCell();
+                case "row" -> endRow();
+                default -> {}
+            }
+        }
+
+        private void endCell() {
+            Object value = getCellValue();
+            if (value == null) {
+                return;
+            }
+            if (columnFields == null) {
+                // a column name typed as a number, e.g. a year, is stored as a number
+                header.put(
+                    columnIndex, value instanceof Double number ? NumberToTextConverter.toText(number) : value.toString());
+            }
+            else if (columnIndex < rowValues.length && columnFields[columnIndex] != null) {
+                rowValues[columnIndex] = value;
+                rowEmpty = false;
+            }
+        }
+
+        private @Nullable Object getCellValue() {
+            String text = cellText.toString();
+            if (cellType == null || cellType.equals("n")) {
+                return text.isEmpty() ? null : Double.parseDouble(text);
+            }
+            return switch (cellType) {
+                case "s" -> sharedStrings.getItemAt(Integer.parseInt(text)).getString();
+                case "b" -> text.equals("1");
+                // inline strings, formula strings, errors and dates in the ISO 8601 format
+                default -> text;
+            };
+        }
+
+        private void endRow() {
+            if (columnFields == null) {
+                readHeader();
+            }
+            else if (!rowEmpty) {
+                consumer.accept(type.cast(createObject()));
+            }
+        }
+
+        private void readHeader() {
+            Map<String, ReadableFieldInfo> fieldsByName = new LinkedHashMap<>();
+            for (ReadableFieldInfo fieldInfo : objectInfo.fieldInfoList()) {
+                fieldsByName.put(fieldInfo.columnInfo().columnName(), fieldInfo);
+            }
+            List<String> missingColumns = fieldsByName.keySet().stream()
+                .filter(columnName -> !header.containsValue(columnName))
+                .map(columnName -> '"' + columnName + '"')
+                .toList();
+            if (!missingColumns.isEmpty()) {
+                throw new Bean2ExcelException(String.format(
+                    "Columns %s of %s are missing in the header at row %d",
+                    String.join(", ", missingColumns), type.getName(), rowNumber));
+            }
+            int columnCount = header.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+            columnFields = new ReadableFieldInfo[columnCount];
+            header.forEach((index, columnName) -> columnFields[index] = fieldsByName.get(columnName));
+            rowValues = new Object[columnCount];
+        }
+
+        private Object createObject() {
+            Object[] arguments = objectInfo.defaultArguments().clone();
+            ReadableFieldInfo[] fields = columnFields;
+            Object[] values = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                if (rowValues[i] != null) {
+                    values[i] = getFieldValue(fields[i], i);
+                    if (fields[i].argumentIndex() >= 0) {
+                        arguments[fields[i].argumentIndex()] = values[i];
+                    }
+                }
+            }
+            Object object = objectInfo.constructor().apply(arguments);
+            for (int i = 0; i < fields.length; i++) {
+                if (values[i] != null && fields[i].setter() != null) {
+                    fields[i].setter().accept(object, values[i]);
+                }
+            }
+            return object;
+        }
+
+        private @Nullable Object getFieldValue(ReadableFieldInfo fieldInfo, int column) {
+            try {
+                Object value = fieldInfo.columnInfo().valueConverter().convertBack(rowValues[column]);
+                return value == null ? null : coerce(value, fieldInfo.type());
+            }
+            catch (IllegalArgumentException | ArithmeticException e) {
+                throw new Bean2ExcelException(String.format(
+                    "Invalid value of column \"%s\" at cell %s: %s",
+                    fieldInfo.columnInfo().columnName(),
+                    new CellReference(rowNumber - 1, column).formatAsString(),
+                    e.getMessage()), e);
+            }
+        }
+    }
+}
@@ -39,5 +39,29 @@ public @interface ExcelColumn {
     String columnName();
     CellType cellType();
     int order() default 0;
+
+    /**
+     * Without a declared converter, values of fields of some types are converted by the library:
+     * {@code LocalDate}, {@code LocalDateTime}, {@code LocalTime} and {@code Date} values of
+     * {@link CellType#NUMERIC NUMERIC} columns are written as Excel dates, {@code BigDecimal} and
+     * {@code BigInteger} values as numbers rounded to the 15 significant digits kept by Excel. In
+     * {@link CellType#STRING STRING} columns, enums are written as their name, and {@code BigDecimal},
+     * {@code BigInteger}, {@code long} and {@code int} values as text keeping all their digits.
+     */
     Class<? extends ValueConverter> valueConverter() default IdentityValueConverter.class;
+
+    /**
+     * @return Excel format of the cells of the column, e.g. {@code "#,##0.00"} or {@code "dd/mm/yyyy"}, resolved
+     * once per column. Empty for the format of the style of the column, or for the default format of dates:
+     * {@code "yyyy-mm-dd"}, {@code "yyyy-mm-dd hh:mm:ss"} or {@code "hh:mm:ss"}.
+     */
+    String format() default "";
+
+    /**
+     * @return whether the column has few distinct values, such as a status or a country. Strings of such a column
+     * are stored once in the shared strings table of workbooks written straight to an output stream, and cells refer
+     * to them, see {@link ExportOptions#sharedStringsLimit()}. Ignored for columns of other types than
+     * {@link CellType#STRING STRING}.
+     */
+    boolean lowCardinality() default false;
 }
@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Flatten the columns of a nested bean into the columns of the enclosing class.
+ * The nested columns keep their own order, and are placed at {@link #order()} among the columns of the enclosing
+ * class. Getters are chained once per class into a null-safe accessor: when the nested bean is {@code null},
+ * its columns are left blank.
+ * <br/>
+ * With {@link #expand()}, the annotated field is a collection whose elements are written on repeated rows,
+ * the columns of the enclosing class being repeated on each row. An object with an empty or {@code null}
+ * collection is written on a single row with blank element columns.
+ * Only one collection per exported class can be expanded, and only in the exported class itself.
+ * Nested columns are not read by {@link Excel2Bean}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExcelNested {
+    /**
+     * @return prefix of the column names of the nested bean
+     */
+    String prefix() default "";
+
+    int order() default 0;
+
+    /**
+     * @return {@code true} to write the elements of a collection on repeated rows,
+     * the element type is read from the type argument of the field
+     */
+    boolean expand() default false;
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives metrics of exports, see {@link ExportOptions#metrics()}. Adapters for Micrometer and JFR are
+ * provided in {@code bean2Excel.metrics}.
+ * <br/>
+ * Exports without metrics don't measure anything. With metrics, the time spent in each phase of writing a cell
+ * is measured on one row out of {@link #sampleInterval()}, then extrapolated to the whole sheet.
+ * Methods may be called concurrently by different exports, so implementations must be thread safe.
+ */
+public interface ExportMetrics {
+
+    int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /**
+     * @return number of rows between two rows whose phases are timed, 1 to time every row.
+     * Default is {@value DEFAULT_SAMPLE_INTERVAL}.
+     */
+    default int sampleInterval() {
+        return DEFAULT_SAMPLE_INTERVAL;
+    }
+
+    /**
+     * Called when a {@link Bean2Excel.CreateSheetFunc} returns a sheet.
+     * @param metrics metrics of the sheet
+     */
+    void sheetCreated(@NotNull SheetMetrics metrics);
+
+    /**
+     * Called when a workbook has been written by {@link Bean2Excel#writeWorkbook} or {@link WorkbookExport}.
+     * @param result summary of the workbook, including the number of bytes written
+     * @param elapsedNanos time spent writing the workbook
+     */
+    default void workbookWritten(@NotNull ExportResult result, long elapsedNanos) {}
+}
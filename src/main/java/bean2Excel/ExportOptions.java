@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.Builder;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Options of the functions returned by {@link Bean2Excel#getCreateSheetFunc(Class, ExportOptions)}.
+ * Functions are compiled per bean type and {@link #projection()}, other options are read on each call,
+ * so options can be created per call.
+ * <br/>
+ * Unset (zero) values are replaced by their defaults.
+ * @param parallelism number of chunks of rows converted concurrently, or number of sheets built concurrently
+ *                    by {@link Bean2Excel#writeWorkbook(java.io.OutputStream, java.util.List, ExportOptions)}.
+ *                    When greater than 1, getters and value converters are called from the executor's threads,
+ *                    so they must be thread safe. Cells of a sheet created by a {@link Bean2Excel.CreateSheetFunc}
+ *                    are always written by the calling thread. Default is 1 (no parallelism).
+ * @param chunkSize number of rows in each chunk converted concurrently, default is {@value DEFAULT_CHUNK_SIZE}
+ * @param executor executor converting chunks of rows, default is {@link ForkJoinPool#commonPool()}
+ * @param autoFitSampleRows number of data rows, from the first one, measured to estimate the width of autofit
+ *                          columns. Default is all rows, but for workbooks written straight to an output stream,
+ *                          which measure at most 1000 rows since they keep them in memory until then.
+ * @param maxRowsPerSheet number of data rows of each sheet written by
+ *                        {@link Bean2Excel#writeWorkbook(java.io.OutputStream, java.util.List, ExportOptions)},
+ *                        further rows are written to new sheets. Default is {@value MAX_ROWS_PER_SHEET},
+ *                        the maximum allowed by the xlsx format. With a parallelism of 1, sheets are also
+ *                        split when their xml reaches about 4 GB, the limit of sheets streamed to the output.
+ * @param metrics receives metrics of the sheets and workbooks written with these options, if any.
+ *                Nothing is measured by default.
+ * @param projection columns written by the functions returned by
+ *                   {@link Bean2Excel#getCreateSheetFunc(Class, ExportOptions)}, each projection is compiled as
+ *                   its own function. Default is {@link ColumnProjection#ALL}.
+ * @param sharedStringsLimit number of distinct values of each {@link org.apache.poi.ss.usermodel.CellType#STRING STRING}
+ *                           column of a sheet stored once in the shared strings table by
+ *                           {@link Bean2Excel#writeWorkbook(java.io.OutputStream, java.util.List, ExportOptions)},
+ *                           further values are written inline. A column of a few repeated values is thus fully
+ *                           shared, while a column of unique values such as identifiers stays mostly inline.
+ *                           Default is 0: only columns declared {@link ExcelColumn#lowCardinality()} are shared,
+ *                           with no limit.
+ */
+@Builder(toBuilder = true)
+public record ExportOptions(
+    int parallelism,
+    int chunkSize,
+    @Nullable Executor executor,
+    int autoFitSampleRows,
+    int maxRowsPerSheet,
+    @Nullable ExportMetrics metrics,
+    @Nullable ColumnProjection projection,
+    int sharedStringsLimit
+) {
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    // rows of the xlsx format, but the header
+    public static final int MAX_ROWS_PER_SHEET = 1048575;
+
+    public static final ExportOptions DEFAULT = ExportOptions.builder().build();
+
+    public ExportOptions {
+        if (parallelism < 0) {
+            throw new Bean2ExcelException(String.format("Parallelism must not be negative, got %d", parallelism));
+        }
+        if (chunkSize < 0) {
+            throw new Bean2ExcelException(String.format("Chunk size must not be negative, got %d", chunkSize));
+        }
+        if (autoFitSampleRows < 0) {
+            throw new Bean2ExcelException(String.format(
+                "Auto fit sample rows must not be negative, got %d", autoFitSampleRows));
+        }
+        if (maxRowsPerSheet < 0 || maxRowsPerSheet > MAX_ROWS_PER_SHEET) {
+            throw new Bean2ExcelException(String.format(
+                "Max rows per sheet must be between 0 and %d, got %d", MAX_ROWS_PER_SHEET, maxRowsPerSheet));
+        }
+        if (sharedStringsLimit < 0) {
+            throw new Bean2ExcelException(String.format(
+                "Shared strings limit must not be negative, got %d", sharedStringsLimit));
+        }
+        if (parallelism == 0) {
+            parallelism = 1;
+        }
+        if (chunkSize == 0) {
+            chunkSize = DEFAULT_CHUNK_SIZE;
+        }
+        if (autoFitSampleRows == 0) {
+            autoFitSampleRows = Integer.MAX_VALUE;
+        }
+        if (maxRowsPerSheet == 0) {
+            maxRowsPerSheet = MAX_ROWS_PER_SHEET;
+        }
+        if (projection == null) {
+            projection = ColumnProjection.ALL;
+        }
+    }
+
+    Executor executorOrDefault() {
+        return executor != null ? executor : ForkJoinPool.commonPool();
+    }
+}
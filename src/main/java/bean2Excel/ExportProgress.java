@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the sheets and rows of an export and forwards them to an optional {@link ExportProgressListener}.
+ * Counters are shared by the threads building sheets concurrently.
+ */
+final class ExportProgress {
+    private final @Nullable ExportProgressListener listener;
+    private final int interval;
+    private final AtomicInteger sheetCount = new AtomicInteger();
+    private final AtomicLong rowCount = new AtomicLong();
+
+    /**
+     * @param listener listener of the progress, if any
+     * @param interval number of rows of a sheet between calls to {@link ExportProgressListener#rowsWritten}
+     */
+    ExportProgress(@Nullable ExportProgressListener listener, int interval) {
+        this.listener = listener;
+        this.interval = interval;
+    }
+
+    int interval() {
+        return interval;
+    }
+
+    void sheetStarted(@NotNull String sheetName) {
+        if (listener != null) {
+            listener.sheetStarted(sheetName);
+        }
+    }
+
+    /**
+     * Called when the number of rows of a sheet reaches a multiple of the interval.
+     */
+    void rowsWritten(@NotNull String sheetName, long sheetRowCount) {
+        long totalRowCount = rowCount.addAndGet(interval);
+        if (listener != null) {
+            listener.rowsWritten(sheetName, sheetRowCount, totalRowCount);
+        }
+    }
+
+    void sheetFinished(@NotNull String sheetName, long sheetRowCount) {
+        sheetCount.incrementAndGet();
+        // rows since the last multiple of the interval
+        rowCount.addAndGet(sheetRowCount % interval);
+        if (listener != null) {
+            listener.sheetFinished(sheetName, sheetRowCount);
+        }
+    }
+
+    ExportResult result(long bytesWritten) {
+        return new ExportResult(sheetCount.get(), rowCount.get(), bytesWritten);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the progress of a workbook export, see {@link WorkbookExport#progressListener()}.
+ * <br/>
+ * Rows are reported once written to their sheet. When sheets are built concurrently, methods are called
+ * from the executor's threads, so implementations must be thread safe, and sheets are copied to the output
+ * after they are reported finished.
+ */
+@FunctionalInterface
+public interface ExportProgressListener {
+
+    /**
+     * Called every {@link WorkbookExport#progressInterval()} rows of a sheet.
+     * @param sheetName name of the sheet
+     * @param sheetRowCount number of data rows written to the sheet so far
+     * @param totalRowCount number of data rows written to all sheets so far
+     */
+    void rowsWritten(@NotNull String sheetName, long sheetRowCount, long totalRowCount);
+
+    /**
+     * Called before the header of a sheet is written.
+     * @param sheetName name of the sheet
+     */
+    default void sheetStarted(@NotNull String sheetName) {}
+
+    /**
+     * Called after the last row of a sheet is written.
+     * @param sheetName name of the sheet
+     * @param sheetRowCount number of data rows of the sheet
+     */
+    default void sheetFinished(@NotNull String sheetName, long sheetRowCount) {}
+}
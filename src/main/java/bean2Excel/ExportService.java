@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.Builder;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the {@link WorkbookExport}s of concurrent requests, e.g. of a report API, with bounded resources.
+ * <br/>
+ * Each export runs on its own thread, a virtual thread when the runtime supports them, and only uses
+ * the memory of the sheets it is writing: a buffer, at most 1000
+ * measured rows and a deflater per sheet. The service bounds the number of sheets written at the same time
+ * across exports, an export holding as many sheets of that budget as it writes concurrently, see
+ * {@link ExportOptions#parallelism()}. Exports beyond the budget wait in a bounded queue, without holding
+ * a thread, and exports beyond the queue are rejected so that callers can shed load, e.g. answer 503.
+ * <br/>
+ * An export failing only fails its own future. Metadata of Java Beans classes is cached once for all exports.
+ * <pre>
+ * ExportService service = ExportService.builder().maxConcurrentSheets(32).build();
+ * service.submit(WorkbookExport.builder().sheet(SheetSource.of(ClassA.class, "Orders", orders)).build(),
+ *     response.getOutputStream()).join();
+ * </pre>
+ */
+public final class ExportService implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_QUEUED_EXPORTS = 1024;
+
+    private final int maxConcurrentSheets;
+    private final int maxQueuedExports;
+    private final Executor executor;
+    private final @Nullable ExecutorService ownedExecutor;
+
+    // guarded by this
+    private final Deque<PendingExport> queue = new ArrayDeque<>();
+    private int availableSheets;
+    private boolean closed;
+
+    private final AtomicInteger runningExports = new AtomicInteger();
+
+    /**
+     * @param maxConcurrentSheets number of sheets written at the same time by all exports,
+     *                            default is the number of processors
+     * @param maxQueuedExports number of exports waiting for the budget, further exports are rejected.
+     *                         Default is {@value DEFAULT_MAX_QUEUED_EXPORTS}.
+     * @param executor runs the exports, default is a virtual thread per export, or a cached thread pool
+     *                 on runtimes without virtual threads
+     */
+    @Builder
+    private ExportService(int maxConcurrentSheets, int maxQueuedExports, @Nullable Executor executor) {
+        if (maxConcurrentSheets < 0) {
+            throw new Bean2ExcelException(String.format(
+                "Max concurrent sheets must not be negative, got %d", maxConcurrentSheets));
+        }
+        if (maxQueuedExports < 0) {
+            throw new Bean2ExcelException(String.format(
+                "Max queued exports must not be negative, got %d", maxQueuedExports));
+        }
+        this.maxConcurrentSheets = maxConcurrentSheets == 0
+            ? Runtime.getRuntime().availableProcessors()
+            : maxConcurrentSheets;
+        this.maxQueuedExports = maxQueuedExports == 0 ? DEFAULT_MAX_QUEUED_EXPORTS : maxQueuedExports;
+        this.availableSheets = this.maxConcurrentSheets;
+        this.ownedExecutor = executor == null ? newExportExecutor() : null;
+        this.executor = executor != null ? executor : ownedExecutor;
+    }
+
+    /**
+     * An export waiting for its share of the budget.
+     */
+    private record PendingExport(
+        int sheets,
+        Supplier<ExportResult> export,
+        CompletableFuture<ExportResult> result
+    ) {}
+
+    /**
+     * Write a workbook to an output stream once the budget allows it, see {@link WorkbookExport#writeTo(OutputStream)}.
+     * @param outputStream where the workbook is written, it is flushed but not closed
+     * @return a future completed with the summary of the written workbook, or completed exceptionally with
+     * a {@link Bean2ExcelException}, also when the queue is full or the service is closed
+     */
+    public CompletableFuture<ExportResult> submit(@NonNull WorkbookExport export, @NonNull OutputStream outputStream) {
+        return submit(export, () -> export.writeTo(outputStream));
+    }
+
+    /**
+     * Write a workbook to a file once the budget allows it, see {@link WorkbookExport#writeTo(Path)}.
+     * @param file path of the xlsx file
+     * @return a future completed with the summary of the written workbook, or completed exceptionally with
+     * a {@link Bean2ExcelException}, also when the queue is full or the service is closed
+     */
+    public CompletableFuture<ExportResult> submit(@NonNull WorkbookExport export, @NonNull Path file) {
+        return submit(export, () -> export.writeTo(file));
+    }
+
+    private CompletableFuture<ExportResult> submit(WorkbookExport export, Supplier<ExportResult> write) {
+        // sheets written concurrently by the export, an export larger than the budget runs alone
+        int sheets = Math.min(Math.min(export.options().parallelism(), export.sheets().size()), maxConcurrentSheets);
+        PendingExport pending = new PendingExport(sheets, write, new CompletableFuture<>());
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new Bean2ExcelException("The export service is closed"));
+            }
+            if (queue.size() >= maxQueuedExports) {
+                return CompletableFuture.failedFuture(new Bean2ExcelException(String.format(
+                    "The export queue is full, %d exports are waiting", queue.size())));
+            }
+            queue.add(pending);
+        }
+        startPendingExports();
+        return pending.result();
+    }
+
+    /**
+     * Start exports in order while the budget allows, so that large exports are not starved by small ones.
+     */
+    private void startPendingExports() {
+        while (true) {
+            PendingExport pending;
+            synchronized (this) {
+                pending = queue.peek();
+                if (pending == null || pending.sheets() > availableSheets) {
+                    return;
+                }
+                queue.poll();
+                availableSheets -= pending.sheets();
+            }
+            start(pending);
+        }
+    }
+
+    private void start(PendingExport pending) {
+        runningExports.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    pending.result().complete(pending.export().get());
+                }
+                catch (Throwable e) {
+                    pending.result().completeExceptionally(e);
+                }
+                finally {
+                    release(pending);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            pending.result().completeExceptionally(new Bean2ExcelException("The export was rejected by the executor", e));
+            release(pending);
+        }
+    }
+
+    private void release(PendingExport pending) {
+        runningExports.decrementAndGet();
+        synchronized (this) {
+            availableSheets += pending.sheets();
+        }
+        startPendingExports();
+    }
+
+    /**
+     * @return number of exports being written
+     */
+    public int runningExports() {
+        return runningExports.get();
+    }
+
+    /**
+     * @return number of exports waiting for the budget
+     */
+    public synchronized int queuedExports() {
+        return queue.size();
+    }
+
+    /**
+     * Reject further exports and fail the queued ones. Running exports are completed, the threads of the default
+     * executor end with them.
+     */
+    @Override
+    public void close() {
+        Deque<PendingExport> cancelled;
+        synchronized (this) {
+            closed = true;
+            cancelled = new ArrayDeque<>(queue);
+            queue.clear();
+        }
+        cancelled.forEach(pending -> pending.result().completeExceptionally(
+            new Bean2ExcelException("The export service is closed")));
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return a virtual thread per task executor, looked up reflectively to run on Java 17,
+     * or a cached thread pool of daemon threads, whose number is bounded by the number of running exports
+     */
+    static ExecutorService newExportExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            // no virtual threads, or only as a preview feature
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "bean2Excel-export-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
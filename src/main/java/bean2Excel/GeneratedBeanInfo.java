@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import bean2Excel.style.CellStylePropertiesProvider;
+import bean2Excel.style.CellStyleProvider;
+import org.apache.poi.ss.usermodel.CellType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Excel declaration of a Java Beans class, generated at compile time by
+ * {@link bean2Excel.processor.Bean2ExcelProcessor}. Not intended to be implemented by hand.
+ * <br/>
+ * Generated classes are registered as services of this interface, {@link Bean2Excel} uses them instead of
+ * reflection when they are found on the class path.
+ * @param <T> type of the Java Beans class
+ */
+public interface GeneratedBeanInfo<T> {
+
+    /**
+     * Suffix of the name of generated classes.
+     */
+    String GENERATED_CLASS_SUFFIX = "_Bean2Excel";
+
+    /**
+     * @param beanClassName binary name of a Java Beans class, see {@link Class#getName()}
+     * @return binary name of the class generated for it
+     */
+    static String generatedClassName(String beanClassName) {
+        int packageEnd = beanClassName.lastIndexOf('.') + 1;
+        return beanClassName.substring(0, packageEnd)
+            + beanClassName.substring(packageEnd).replace('$', '_')
+            + GENERATED_CLASS_SUFFIX;
+    }
+
+    Class<T> beanType();
+
+    /**
+     * @return provider declared by {@link bean2Excel.style.GeneralCellStyle}, or {@code null}
+     */
+    @Nullable CellStyleProvider generalStyle();
+
+    List<Column> columns();
+
+    /**
+     * A field annotated with {@link ExcelColumn}.
+     * @param doubleGetter unboxed getter of a field of numeric primitive type, otherwise {@code null}
+     * @param booleanGetter unboxed getter of a field of primitive boolean type, otherwise {@code null}
+     * @param style declared by {@link bean2Excel.style.CellStyleProperties}, or {@code null}
+     * @param type type of the field
+     */
+    record Column(
+        @NotNull String columnName,
+        @NotNull CellType cellType,
+        int order,
+        @NotNull String format,
+        boolean lowCardinality,
+        @NotNull Class<?> type,
+        @NotNull Function<Object, ?> getter,
+        @Nullable ToDoubleFunction<Object> doubleGetter,
+        @Nullable Predicate<Object> booleanGetter,
+        @NotNull ValueConverter valueConverter,
+        @Nullable Style style
+    ) {}
+
+    /**
+     * Values of {@link bean2Excel.style.CellStyleProperties}.
+     */
+    record Style(
+        boolean autoFit,
+        @NotNull List<CellStylePropertiesProvider> headerCellStyle,
+        @NotNull List<CellStylePropertiesProvider> cellStyle
+    ) {}
+}
@@ -31,4 +31,9 @@ public class IdentityValueConverter implements ValueConverter {
     public Object convert(Object o) {
         return o;
     }
+
+    @Override
+    public Object convertBack(Object cellValue) {
+        return cellValue;
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import static bean2Excel.BeanInfo.GetterFunc;
+
+/**
+ * Writes the elements of a collection on repeated rows, see {@link ExcelNested#expand()}.
+ * The columns of a class expanding a collection read an {@link ExpandedRow} instead of the object itself.
+ * @param collectionGetter getter of the expanded collection
+ */
+record RowExpander(@NotNull GetterFunc<?> collectionGetter) {
+
+    /**
+     * An object and one element of its collection, {@code null} when the collection is empty.
+     */
+    static final class ExpandedRow {
+        private Object object;
+        private @Nullable Object element;
+    }
+
+    static Object object(Object row) {
+        return ((ExpandedRow) row).object;
+    }
+
+    static @Nullable Object element(Object row) {
+        return ((ExpandedRow) row).element;
+    }
+
+    /**
+     * Iterate over the rows of objects, without copying their collections.
+     * @param reuseRows {@code true} to return the same row on each call to {@code next()}, when rows are
+     *                  written one by one, {@code false} when they are collected before being written
+     */
+    Iterator<Object> expand(@NotNull Iterator<?> objects, boolean reuseRows) {
+        return new Iterator<>() {
+            private final ExpandedRow reusedRow = new ExpandedRow();
+            private Object object;
+            private Iterator<?> elements = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext() || objects.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                Object element = null;
+                if (elements.hasNext()) {
+                    element = elements.next();
+                }
+                else {
+                    object = objects.next();
+                    Iterable<?> collection = (Iterable<?>) collectionGetter.exec(object);
+                    elements = collection == null ? Collections.emptyIterator() : collection.iterator();
+                    if (elements.hasNext()) {
+                        element = elements.next();
+                    }
+                }
+                ExpandedRow row = reuseRows ? reusedRow : new ExpandedRow();
+                row.object = object;
+                row.element = element;
+                return row;
+            }
+        };
+    }
+}
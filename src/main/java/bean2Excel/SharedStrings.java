@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static bean2Excel.SheetXmlWriter.MAIN_NAMESPACE;
+import static bean2Excel.SheetXmlWriter.XML_DECLARATION;
+
+/**
+ * Shared strings table of a workbook written by {@link SpreadsheetMLWriter}, see the "Shared String Table" part
+ * of ECMA-376. Each string is stored once, cells refer to it by its index in the table.
+ * <br/>
+ * Only strings of low-cardinality columns are added, through a {@link ColumnDictionary} per column and sheet,
+ * so the table is shared by the threads writing sheets concurrently but only locked on the first occurrence
+ * of a value in a sheet.
+ */
+class SharedStrings {
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * @return index of the string in the table, added if missing
+     */
+    synchronized int index(@NotNull String value) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            indexes.put(value, index);
+            strings.add(value);
+        }
+        return index;
+    }
+
+    synchronized boolean isEmpty() {
+        return strings.isEmpty();
+    }
+
+    /**
+     * @param maxSize maximum number of distinct values of the column stored in the table
+     */
+    ColumnDictionary newDictionary(int maxSize) {
+        return new ColumnDictionary(this, maxSize);
+    }
+
+    /**
+     * Write the xml of the table.
+     */
+    synchronized void write(@NotNull Writer writer) throws IOException {
+        writer.write(XML_DECLARATION);
+        writer.write("<sst xmlns=\"" + MAIN_NAMESPACE + "\" uniqueCount=\"" + strings.size() + "\">");
+        for (String value : strings) {
+            writer.write("<si><t");
+            if (SheetXmlWriter.needsSpacePreserved(value)) {
+                writer.write(" xml:space=\"preserve\"");
+            }
+            writer.write('>');
+            SheetXmlWriter.writeEscaped(writer, value);
+            writer.write("</t></si>");
+        }
+        writer.write("</sst>");
+    }
+
+    /**
+     * Values of a column of a sheet stored in the shared strings table. Once the column has {@code maxSize}
+     * distinct values, new ones are written inline, so a column of mostly unique values doesn't fill the table.
+     * A dictionary is used by a single thread.
+     */
+    static class ColumnDictionary {
+        private final SharedStrings sharedStrings;
+        private final int maxSize;
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private ColumnDictionary(SharedStrings sharedStrings, int maxSize) {
+            this.sharedStrings = sharedStrings;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return index of the value in the shared strings table, or -1 if the value is to be written inline
+         */
+        int index(@NotNull String value) {
+            Integer index = indexes.get(value);
+            if (index != null) {
+                return index;
+            }
+            if (indexes.size() >= maxSize) {
+                return -1;
+            }
+            int sharedIndex = sharedStrings.index(value);
+            indexes.put(value, sharedIndex);
+            return sharedIndex;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.NonNull;
+
+/**
+ * Position of a {@link Bean2Excel.SheetAppender} between two batches, to resume appending after a failure.
+ * @param sheetName name of the sheet
+ * @param nextRowIndex index of the next row to be written, the header being row 0
+ */
+public record SheetCheckpoint(
+    @NonNull String sheetName,
+    int nextRowIndex
+) {
+    public SheetCheckpoint {
+        if (nextRowIndex < 1) {
+            throw new Bean2ExcelException(String.format(
+                "The next row of sheet \"%s\" must be after the header, got %d", sheetName, nextRowIndex));
+        }
+    }
+
+    /**
+     * @return number of data rows written before the checkpoint
+     */
+    public int rowCount() {
+        return nextRowIndex - 1;
+    }
+}
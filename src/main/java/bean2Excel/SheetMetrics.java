@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Metrics of a sheet created by a {@link Bean2Excel.CreateSheetFunc}, see {@link ExportMetrics}.
+ * Time spent in each phase is estimated from sampled rows, when rows are converted in parallel the time spent
+ * by other threads in getters and converters is measured on every row, and split between {@code getterNanos}
+ * and {@code converterNanos} as in sampled rows.
+ * @param type type of the Java Beans objects
+ * @param sheetName name of the sheet
+ * @param rowCount number of data rows
+ * @param elapsedNanos time spent creating the sheet
+ * @param getterNanos estimated time spent reading field values
+ * @param converterNanos estimated time spent in value converters
+ * @param styleNanos estimated time spent resolving and setting cell styles
+ * @param cellWriteNanos estimated time spent creating cells and setting their values
+ * @param autoSizeNanos estimated time spent measuring and sizing autofit columns
+ * @param stylesCreated number of cell styles added to the workbook
+ */
+public record SheetMetrics(
+    @NotNull Class<?> type,
+    @NotNull String sheetName,
+    long rowCount,
+    long elapsedNanos,
+    long getterNanos,
+    long converterNanos,
+    long styleNanos,
+    long cellWriteNanos,
+    long autoSizeNanos,
+    int stylesCreated
+) {
+    /**
+     * @return number of data rows created per second
+     */
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the creation of a sheet for {@link ExportMetrics}. Phases of sampled rows are timed by the thread
+ * creating the sheet, the conversion of chunks of rows by the threads converting them, which also time
+ * the getters and converters of sampled rows to split the conversion time between them.
+ */
+final class SheetMetricsRecorder {
+    private final ExportMetrics metrics;
+    private final int sampleInterval;
+    private final Workbook workbook;
+    private final int stylesBefore;
+    private final long startNanos = System.nanoTime();
+
+    private long sampledRowCount;
+    private long sampledGetterNanos;
+    private long sampledConverterNanos;
+    private long sampledStyleNanos;
+    private long sampledCellWriteNanos;
+    private long sampledMeasuredRowCount;
+    private long sampledMeasureNanos;
+    private long applyWidthNanos;
+    private final LongAdder conversionNanos = new LongAdder();
+    private final LongAdder sampledConversionGetterNanos = new LongAdder();
+    private final LongAdder sampledConversionConverterNanos = new LongAdder();
+
+    SheetMetricsRecorder(@NotNull ExportMetrics metrics, @NotNull Workbook workbook) {
+        this.metrics = metrics;
+        this.sampleInterval = Math.max(1, metrics.sampleInterval());
+        this.workbook = workbook;
+        this.stylesBefore = workbook.getNumCellStyles();
+    }
+
+    /**
+     * @param rowIndex index of a data row
+     * @return whether the phases of the row should be timed
+     */
+    boolean isSampled(int rowIndex) {
+        return rowIndex % sampleInterval == 0;
+    }
+
+    /**
+     * @param measured whether the cells of the row were measured for autofit columns
+     */
+    void addSampledRow(
+        long getterNanos,
+        long converterNanos,
+        long styleNanos,
+        long cellWriteNanos,
+        boolean measured,
+        long measureNanos
+    ) {
+        sampledRowCount++;
+        sampledGetterNanos += getterNanos;
+        sampledConverterNanos += converterNanos;
+        sampledStyleNanos += styleNanos;
+        sampledCellWriteNanos += cellWriteNanos;
+        if (measured) {
+            sampledMeasuredRowCount++;
+            sampledMeasureNanos += measureNanos;
+        }
+    }
+
+    /**
+     * Called by the threads converting chunks of rows.
+     */
+    void addConversion(long nanos) {
+        conversionNanos.add(nanos);
+    }
+
+    /**
+     * Called by the threads converting chunks of rows, for sampled rows.
+     */
+    void addSampledConversion(long getterNanos, long converterNanos) {
+        sampledConversionGetterNanos.add(getterNanos);
+        sampledConversionConverterNanos.add(converterNanos);
+    }
+
+    void addApplyWidth(long nanos) {
+        applyWidthNanos += nanos;
+    }
+
+    /**
+     * @param measuredRowCount number of data rows measured for autofit columns,
+     *                         at most {@link ExportOptions#autoFitSampleRows()}
+     */
+    void sheetCreated(@NotNull Class<?> type, @NotNull String sheetName, long rowCount, long measuredRowCount) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double scale = sampledRowCount == 0 ? 0 : (double) rowCount / sampledRowCount;
+        double measureScale = sampledMeasuredRowCount == 0 ? 0 : (double) measuredRowCount / sampledMeasuredRowCount;
+
+        // conversion is timed on every row, the share of getters is estimated from sampled rows
+        long conversion = conversionNanos.sum();
+        long sampledConversionGetter = sampledConversionGetterNanos.sum();
+        long sampledConversion = sampledConversionGetter + sampledConversionConverterNanos.sum();
+        long conversionGetterNanos = sampledConversion == 0
+            ? 0
+            : Math.round(conversion * ((double) sampledConversionGetter / sampledConversion));
+
+        metrics.sheetCreated(new SheetMetrics(
+            type,
+            sheetName,
+            rowCount,
+            elapsedNanos,
+            Math.round(sampledGetterNanos * scale) + conversionGetterNanos,
+            Math.round(sampledConverterNanos * scale) + conversion - conversionGetterNanos,
+            Math.round(sampledStyleNanos * scale),
+            Math.round(sampledCellWriteNanos * scale),
+            Math.round(sampledMeasureNanos * measureScale) + applyWidthNanos,
+            workbook.getNumCellStyles() - stylesBefore
+        ));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * A sheet of a workbook written by {@link Bean2Excel#writeWorkbook(java.io.OutputStream, java.util.List, ExportOptions)}.
+ * @param type type of the Java Beans objects
+ * @param sheetName name of the sheet, further sheets are named {@code sheetName_2}, {@code sheetName_3}, etc.
+ *                  when the objects don't fit in a single sheet
+ * @param objects Java Beans objects, each object is the data of a row
+ * @param projection columns of the sheet, see {@link ColumnProjection}
+ * @param <T> type of the Java Beans objects
+ */
+public record SheetSource<T>(
+    @NonNull Class<T> type,
+    @NonNull String sheetName,
+    @NonNull Iterator<T> objects,
+    @NonNull ColumnProjection projection
+) {
+    /**
+     * A sheet of all the columns of the Java Beans class.
+     */
+    public SheetSource(@NonNull Class<T> type, @NonNull String sheetName, @NonNull Iterator<T> objects) {
+        this(type, sheetName, objects, ColumnProjection.ALL);
+    }
+
+    /**
+     * @return a copy of this source writing the columns of the projection
+     */
+    public SheetSource<T> withProjection(@NonNull ColumnProjection projection) {
+        return new SheetSource<>(type, sheetName, objects, projection);
+    }
+
+    /**
+     * @param objects a collection of Java Beans objects, e.g. a {@link java.util.List}
+     */
+    public static <T> SheetSource<T> of(@NonNull Class<T> type, @NonNull String sheetName, @NonNull Iterable<T> objects) {
+        return new SheetSource<>(type, sheetName, objects.iterator());
+    }
+
+    /**
+     * @param objects a stream of Java Beans objects, consumed lazily, it is not closed
+     */
+    public static <T> SheetSource<T> of(@NonNull Class<T> type, @NonNull String sheetName, @NonNull Stream<T> objects) {
+        return new SheetSource<>(type, sheetName, objects.iterator());
+    }
+}
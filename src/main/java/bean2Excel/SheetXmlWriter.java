@@ -0,0 +1,383 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.CellReference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static bean2Excel.ColumnWidthEstimator.CharWidths;
+import static bean2Excel.SharedStrings.ColumnDictionary;
+
+/**
+ * Write the xml of a worksheet, see the "Worksheets" part of ECMA-376.
+ * <br/>
+ * Rows are written one after another, cells from left to right, a cell with a blank value and the default style
+ * is skipped. Strings are written inline, but the ones of columns with a {@link ColumnDictionary}, which are
+ * written as references to the shared strings table of the workbook. Autofit columns are sized from the first rows of the sheet.
+ * The sheet is complete once {@link #finish()} is called, which doesn't close the writer.
+ * <br/>
+ * Values are written to a reusable buffer, so writing a row allocates nothing but the text of
+ * non integral numbers.
+ */
+class SheetXmlWriter {
+
+    static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    static final String MAIN_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    // integral values beyond this are written as doubles, they can't be stored exactly anyway
+    private static final double MAX_INTEGRAL_VALUE = 1e15;
+
+    /**
+     * Maximum number of data rows measured to autofit columns. Column widths are written before rows,
+     * so these rows are kept in memory until they are measured.
+     */
+    static final int MAX_AUTO_FIT_SAMPLE_ROWS = 1000;
+
+    private final Writer writer;
+    private final char[] buffer = new char[1 << 16];
+    private int bufferSize;
+
+    // cell references are the column letters followed by the row number
+    private final List<char[]> columnLetters = new ArrayList<>();
+    private int rowNumber;
+    private int columnIndex;
+
+    // set while rows of a sheet with autofit columns are measured
+    private @Nullable ColumnWidthEstimator estimator;
+    private CharWidths @Nullable [] styleCharWidths;
+    private @Nullable StringBuilder measuredRows;
+    // rows measured, the header included
+    private final int measuredRowCount;
+
+    private final ColumnDictionary @Nullable [] dictionaries;
+
+    /**
+     * @param writer where the xml is written
+     * @param estimator estimator of the width of the columns, or {@code null} if no column is autofit
+     * @param styleCharWidths width of the characters of the font of each cell style, used with the estimator
+     * @param autoFitSampleRows number of data rows measured with the estimator,
+     *                          at most {@value MAX_AUTO_FIT_SAMPLE_ROWS}
+     * @param dictionaries shared strings of each column, {@code null} for columns whose strings are written inline,
+     *                     or {@code null} if all strings are written inline
+     */
+    SheetXmlWriter(
+        @NotNull Writer writer,
+        @Nullable ColumnWidthEstimator estimator,
+        CharWidths @Nullable [] styleCharWidths,
+        int autoFitSampleRows,
+        ColumnDictionary @Nullable [] dictionaries
+    ) throws IOException {
+        this.writer = writer;
+        this.dictionaries = dictionaries;
+        this.measuredRowCount = 1 + Math.min(autoFitSampleRows, MAX_AUTO_FIT_SAMPLE_ROWS);
+        append(XML_DECLARATION);
+        append("<worksheet xmlns=\"").append(MAIN_NAMESPACE).append("\">");
+        if (estimator != null && styleCharWidths != null) {
+            this.estimator = estimator;
+            this.styleCharWidths = styleCharWidths;
+            flushBuffer();
+            measuredRows = new StringBuilder();
+        } else {
+            append("<sheetData>");
+        }
+    }
+
+    /**
+     * @return number of rows written
+     */
+    int rowCount() {
+        return rowNumber;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the sheet already has the maximum number of rows
+     */
+    void startRow() throws IOException {
+        if (rowNumber == SpreadsheetVersion.EXCEL2007.getMaxRows()) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid row number (%d) outside allowable range (0..%d)",
+                rowNumber, SpreadsheetVersion.EXCEL2007.getLastRowIndex()));
+        }
+        rowNumber++;
+        columnIndex = 0;
+        append("<row r=\"").append(rowNumber).append("\">");
+    }
+
+    void endRow() throws IOException {
+        append("</row>");
+        if (measuredRows != null && rowNumber >= measuredRowCount) {
+            endMeasuring();
+        }
+        if (bufferSize > buffer.length / 2) {
+            flushBuffer();
+        }
+    }
+
+    void writeString(@NotNull String value, int style) throws IOException {
+        if (isMeasured()) {
+            estimator.measure(columnIndex, value, styleCharWidths[style]);
+        }
+        ColumnDictionary dictionary = dictionaries != null && columnIndex < dictionaries.length
+            ? dictionaries[columnIndex]
+            : null;
+        int sharedIndex = dictionary == null ? -1 : dictionary.index(value);
+        if (sharedIndex >= 0) {
+            startCell(style).append(" t=\"s\"><v>").append(sharedIndex).append("</v></c>");
+            return;
+        }
+        startCell(style).append(" t=\"inlineStr\"><is><t");
+        if (needsSpacePreserved(value)) {
+            append(" xml:space=\"preserve\"");
+        }
+        append('>').appendEscaped(value).append("</t></is></c>");
+    }
+
+    /**
+     * @return whether leading or trailing whitespaces of the text would be dropped without {@code xml:space}
+     */
+    static boolean needsSpacePreserved(String value) {
+        return !value.isEmpty()
+            && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+    }
+
+    void writeNumber(double value, int style) throws IOException {
+        if (isMeasured()) {
+            estimator.measure(columnIndex, value, styleCharWidths[style]);
+        }
+        if (Double.isNaN(value)) {
+            writeError("#NUM!", style);
+            return;
+        }
+        if (Double.isInfinite(value)) {
+            writeError("#DIV/0!", style);
+            return;
+        }
+        startCell(style).append("><v>");
+        if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL_VALUE) {
+            append((long) value);
+        } else {
+            append(Double.toString(value));
+        }
+        append("</v></c>");
+    }
+
+    void writeBoolean(boolean value, int style) throws IOException {
+        if (isMeasured()) {
+            estimator.measure(columnIndex, value, styleCharWidths[style]);
+        }
+        startCell(style).append(" t=\"b\"><v>").append(value ? '1' : '0').append("</v></c>");
+    }
+
+    void writeBlank(int style) throws IOException {
+        if (style != 0) {
+            startCell(style).append("/>");
+        } else {
+            columnIndex++;
+        }
+    }
+
+    private boolean isMeasured() {
+        return measuredRows != null && estimator.isAutoFit(columnIndex);
+    }
+
+    /**
+     * Write the width of the autofit columns, followed by the rows measured so far.
+     */
+    private void endMeasuring() throws IOException {
+        flushBuffer();
+        StringBuilder rows = measuredRows;
+        measuredRows = null;
+
+        append("<cols>");
+        for (int column = 0; column < estimator.columnCount(); column++) {
+            if (estimator.isAutoFit(column)) {
+                append("<col min=\"").append(column + 1).append("\" max=\"").append(column + 1)
+                    .append("\" width=\"").append(Double.toString(estimator.getColumnWidth(column) / 256.0))
+                    .append("\" customWidth=\"1\"/>");
+            }
+        }
+        append("</cols><sheetData>");
+        flushBuffer();
+        writer.append(rows);
+        estimator = null;
+        styleCharWidths = null;
+    }
+
+    private void writeError(String error, int style) throws IOException {
+        startCell(style).append(" t=\"e\"><v>").append(error).append("</v></c>");
+    }
+
+    private SheetXmlWriter startCell(int style) throws IOException {
+        append("<c r=\"").append(columnLetters(columnIndex++)).append(rowNumber).append('"');
+        if (style != 0) {
+            append(" s=\"").append(style).append('"');
+        }
+        return this;
+    }
+
+    private char[] columnLetters(int columnIndex) {
+        while (columnLetters.size() <= columnIndex) {
+            columnLetters.add(CellReference.convertNumToColString(columnLetters.size()).toCharArray());
+        }
+        return columnLetters.get(columnIndex);
+    }
+
+    /**
+     * End the sheet, the writer is flushed but not closed.
+     */
+    void finish() throws IOException {
+        if (measuredRows != null) {
+            endMeasuring();
+        }
+        append("</sheetData></worksheet>");
+        flushBuffer();
+        writer.flush();
+    }
+
+    private SheetXmlWriter append(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[bufferSize++] = c;
+        return this;
+    }
+
+    private SheetXmlWriter append(String value) throws IOException {
+        int length = value.length();
+        if (length > buffer.length) {
+            flushBuffer();
+            if (measuredRows != null) {
+                measuredRows.append(value);
+            } else {
+                writer.write(value);
+            }
+            return this;
+        }
+        ensureCapacity(length);
+        value.getChars(0, length, buffer, bufferSize);
+        bufferSize += length;
+        return this;
+    }
+
+    private SheetXmlWriter append(char[] value) throws IOException {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, bufferSize, value.length);
+        bufferSize += value.length;
+        return this;
+    }
+
+    private SheetXmlWriter append(long value) throws IOException {
+        // 20 characters fit any long
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[bufferSize++] = '-';
+            value = -value;
+        }
+        int start = bufferSize;
+        do {
+            buffer[bufferSize++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = bufferSize - 1; i < j; i++, j--) {
+            char c = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = c;
+        }
+        return this;
+    }
+
+    /**
+     * Append text escaped for xml. Characters not allowed in xml are replaced by '?', as POI does.
+     */
+    private SheetXmlWriter appendEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escaped = escape(c);
+            if (escaped != null) {
+                append(escaped);
+            } else {
+                append(c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Same as {@link #appendEscaped(String)}, to an unbuffered writer.
+     */
+    static void writeEscaped(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escaped = escape(c);
+            if (escaped != null) {
+                writer.write(escaped);
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+
+    /**
+     * @return the text replacing the character in xml, or {@code null} if it is written as is
+     */
+    private static @Nullable String escape(char c) {
+        return switch (c) {
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '&' -> "&amp;";
+            case '"' -> "&quot;";
+            case '\t', '\n' -> null;
+            case '\r' -> "&#xd;";
+            default -> isValidXmlChar(c) ? null : "?";
+        };
+    }
+
+    private static boolean isValidXmlChar(char c) {
+        return c >= 0x20 && c <= 0xD7FF
+            || Character.isSurrogate(c)
+            || c >= 0xE000 && c <= 0xFFFD;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (bufferSize + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (measuredRows != null) {
+            measuredRows.append(buffer, 0, bufferSize);
+        } else {
+            writer.write(buffer, 0, bufferSize);
+        }
+        bufferSize = 0;
+    }
+}
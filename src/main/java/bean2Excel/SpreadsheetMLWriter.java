@@ -0,0 +1,272 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static bean2Excel.ColumnWidthEstimator.CharWidths;
+import static bean2Excel.SharedStrings.ColumnDictionary;
+import static bean2Excel.SheetXmlWriter.MAIN_NAMESPACE;
+import static bean2Excel.SheetXmlWriter.XML_DECLARATION;
+import static bean2Excel.ZipPackageWriter.DeflatedData;
+import static bean2Excel.ZipPackageWriter.DeflatingOutputStream;
+
+/**
+ * Write a workbook in the xlsx format straight to an output stream, without building POI's object model.
+ * <br/>
+ * Sheets are written one after another with {@link SheetXmlWriter}, or added from parts deflated beforehand.
+ * Strings of low-cardinality columns are collected in the {@link SharedStrings} of the workbook, written last.
+ * The workbook is complete once {@link #close()} is called, which doesn't close the output stream.
+ */
+class SpreadsheetMLWriter implements Closeable {
+
+    private static final String RELATIONSHIPS_NAMESPACE =
+        "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PACKAGE_RELATIONSHIPS_NAMESPACE =
+        "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private static final String SHARED_STRINGS_PART = "xl/sharedStrings.xml";
+
+    // below the 4 GB limit of streamed zip entries by more than a buffered row and the end of the sheet
+    static final long MAX_STREAMED_SHEET_SIZE = 4_000_000_000L;
+
+    private final ZipPackageWriter zip;
+    private final byte @NotNull [] stylesXml;
+    private final List<String> sheetNames = new ArrayList<>();
+    private final SharedStrings sharedStrings = new SharedStrings();
+    private final long maxSheetSize;
+
+    private @Nullable DeflatingOutputStream sheetOutput;
+    private @Nullable SheetXmlWriter sheetWriter;
+
+    /**
+     * @param outputStream where the workbook is written
+     * @param stylesXml content of the styles part, cell styles are referred by their index in this part
+     */
+    SpreadsheetMLWriter(@NotNull OutputStream outputStream, byte @NotNull [] stylesXml) {
+        this(outputStream, stylesXml, MAX_STREAMED_SHEET_SIZE);
+    }
+
+    /**
+     * @param maxSheetSize size of the xml of a sheet from which {@link #sheetFull()} is true
+     */
+    SpreadsheetMLWriter(@NotNull OutputStream outputStream, byte @NotNull [] stylesXml, long maxSheetSize) {
+        this.zip = new ZipPackageWriter(outputStream);
+        this.stylesXml = stylesXml;
+        this.maxSheetSize = maxSheetSize;
+    }
+
+    /**
+     * Start a new sheet, ending the current one if any.
+     * @throws IllegalArgumentException if the name is not a valid sheet name
+     */
+    SheetXmlWriter startSheet(@NotNull String sheetName) throws IOException {
+        return startSheet(sheetName, null, null, 0, null);
+    }
+
+    /**
+     * Start a new sheet whose autofit columns are sized from its first rows, ending the current sheet if any.
+     * @param estimator estimator of the width of the columns, or {@code null} if no column is autofit
+     * @param styleCharWidths width of the characters of the font of each cell style
+     * @param autoFitSampleRows number of data rows measured with the estimator,
+     *                          at most {@value SheetXmlWriter#MAX_AUTO_FIT_SAMPLE_ROWS}
+     * @param dictionaries dictionaries of {@link #sharedStrings()} by column, {@code null} if all strings
+     *                     are written inline
+     * @throws IllegalArgumentException if the name is not a valid sheet name
+     */
+    SheetXmlWriter startSheet(
+        @NotNull String sheetName,
+        @Nullable ColumnWidthEstimator estimator,
+        CharWidths @Nullable [] styleCharWidths,
+        int autoFitSampleRows,
+        ColumnDictionary @Nullable [] dictionaries
+    ) throws IOException {
+        addSheetName(sheetName);
+        sheetOutput = zip.startEntry(sheetPartName(sheetNames.size()));
+        sheetWriter = new SheetXmlWriter(
+            new OutputStreamWriter(sheetOutput, StandardCharsets.UTF_8), estimator, styleCharWidths, autoFitSampleRows, dictionaries);
+        return sheetWriter;
+    }
+
+    /**
+     * Sheets started by {@link #startSheet} are streamed to the output and can't exceed 4 GB of xml,
+     * see {@link ZipPackageWriter#startEntry(String)}. Further rows should then be written to another sheet.
+     * @return whether the xml written to the current sheet reached {@value MAX_STREAMED_SHEET_SIZE} bytes
+     */
+    boolean sheetFull() {
+        return sheetOutput != null && sheetOutput.size() >= maxSheetSize;
+    }
+
+    /**
+     * @return shared strings table of the workbook, also used by sheets written beforehand
+     */
+    SharedStrings sharedStrings() {
+        return sharedStrings;
+    }
+
+    /**
+     * Add a sheet written beforehand by a {@link SheetXmlWriter} into a {@link ZipPackageWriter.DeflatingOutputStream},
+     * ending the current sheet if any.
+     * @throws IllegalArgumentException if the name is not a valid sheet name
+     */
+    void addSheet(@NotNull String sheetName, @NotNull DeflatedData data, @NotNull InputStream compressedData)
+        throws IOException {
+        addSheetName(sheetName);
+        zip.addEntry(sheetPartName(sheetNames.size()), data, compressedData);
+    }
+
+    private void addSheetName(String sheetName) throws IOException {
+        WorkbookUtil.validateSheetName(sheetName);
+        for (String existingName : sheetNames) {
+            if (existingName.equalsIgnoreCase(sheetName)) {
+                throw new IllegalArgumentException(String.format("The workbook already contains a sheet named \"%s\"", sheetName));
+            }
+        }
+        endSheet();
+        sheetNames.add(sheetName);
+    }
+
+    private static String sheetPartName(int sheet) {
+        return "xl/worksheets/sheet" + sheet + ".xml";
+    }
+
+    private void endSheet() throws IOException {
+        if (sheetWriter == null || sheetOutput == null) {
+            return;
+        }
+        sheetWriter.finish();
+        sheetOutput.close();
+        sheetWriter = null;
+        sheetOutput = null;
+    }
+
+    /**
+     * @return number of bytes written to the output stream so far
+     */
+    long bytesWritten() {
+        return zip.bytesWritten();
+    }
+
+    /**
+     * End the current sheet and write the parts describing the workbook.
+     * The output stream is flushed but not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        endSheet();
+
+        writePart("[Content_Types].xml", contentTypes());
+        writePart("_rels/.rels", XML_DECLARATION
+            + "<Relationships xmlns=\"" + PACKAGE_RELATIONSHIPS_NAMESPACE + "\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS_NAMESPACE + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>");
+        writePart("xl/workbook.xml", workbook());
+        writePart("xl/_rels/workbook.xml.rels", workbookRelationships());
+        writePart("xl/styles.xml", stylesXml);
+        if (!sharedStrings.isEmpty()) {
+            try (Writer part = new OutputStreamWriter(zip.startEntry(SHARED_STRINGS_PART), StandardCharsets.UTF_8)) {
+                sharedStrings.write(part);
+            }
+        }
+
+        zip.close();
+    }
+
+    private void writePart(String name, String content) throws IOException {
+        writePart(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writePart(String name, byte[] content) throws IOException {
+        try (OutputStream part = zip.startEntry(name)) {
+            part.write(content);
+        }
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+            .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+            .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+            .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+            .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+            .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int sheet = 1; sheet <= sheetNames.size(); sheet++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(sheet)
+                .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        if (!sharedStrings.isEmpty()) {
+            xml.append("<Override PartName=\"/").append(SHARED_STRINGS_PART)
+                .append("\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+            .append("<workbook xmlns=\"").append(MAIN_NAMESPACE)
+            .append("\" xmlns:r=\"").append(RELATIONSHIPS_NAMESPACE).append("\"><sheets>");
+        for (int sheet = 1; sheet <= sheetNames.size(); sheet++) {
+            xml.append("<sheet name=\"").append(escape(sheetNames.get(sheet - 1)))
+                .append("\" sheetId=\"").append(sheet)
+                .append("\" r:id=\"rId").append(sheet).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelationships() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+            .append("<Relationships xmlns=\"").append(PACKAGE_RELATIONSHIPS_NAMESPACE).append("\">");
+        for (int sheet = 1; sheet <= sheetNames.size(); sheet++) {
+            xml.append("<Relationship Id=\"rId").append(sheet)
+                .append("\" Type=\"").append(RELATIONSHIPS_NAMESPACE)
+                .append("/worksheet\" Target=\"worksheets/sheet").append(sheet).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheetNames.size() + 1)
+            .append("\" Type=\"").append(RELATIONSHIPS_NAMESPACE)
+            .append("/styles\" Target=\"styles.xml\"/>");
+        if (!sharedStrings.isEmpty()) {
+            xml.append("<Relationship Id=\"rId").append(sheetNames.size() + 2)
+                .append("\" Type=\"").append(RELATIONSHIPS_NAMESPACE)
+                .append("/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        return xml.append("</Relationships>").toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+/**
+ * A {@link ValueConverter} of the values of {@link org.apache.poi.ss.usermodel.CellType#STRING STRING} columns,
+ * typed so that values don't need to be cast.
+ * <br/>
+ * Not called for {@code null} values, which are written as blank cells.
+ * @param <T> type of the field
+ */
+public interface StringValueConverter<T> extends ValueConverter {
+
+    /**
+     * @param value value of the field, never {@code null}
+     * @return text of the cell, or {@code null} for a blank cell
+     */
+    String convertToString(T value);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    default Object convert(Object o) {
+        return o == null ? null : convertToString((T) o);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import bean2Excel.style.CellStylePropertiesProvider;
+import bean2Excel.style.StyleCondition;
+import org.apache.poi.ss.usermodel.Cell;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+import static bean2Excel.BeanInfo.StyleRuleInfo;
+
+/**
+ * Conditional styles of a column, compiled once per column so that choosing the style of a cell
+ * only compares its value with the conditions of the rules, see {@link bean2Excel.style.ConditionalStyle}.
+ */
+final class StyleRules {
+
+    /**
+     * @param numeric whether the rule only matches numbers
+     * @param equalTo matching strings, {@code null} if the rule matches values of any type
+     */
+    private record Rule(
+        double min,
+        double max,
+        boolean numeric,
+        @Nullable Set<String> equalTo,
+        @Nullable StyleCondition condition
+    ) {}
+
+    private final Rule[] rules;
+    private final List<List<CellStylePropertiesProvider>> cellStyles;
+
+    StyleRules(@NotNull List<StyleRuleInfo> ruleInfos) {
+        this.rules = ruleInfos.stream()
+            .map(info -> new Rule(
+                info.min(),
+                info.max(),
+                info.min() != Double.NEGATIVE_INFINITY || info.max() != Double.POSITIVE_INFINITY,
+                info.equalTo().isEmpty() ? null : Set.copyOf(info.equalTo()),
+                info.condition()
+            ))
+            .toArray(Rule[]::new);
+        this.cellStyles = ruleInfos.stream().map(StyleRuleInfo::cellStyle).toList();
+    }
+
+    int size() {
+        return rules.length;
+    }
+
+    /**
+     * @return style properties providers of a rule
+     */
+    List<CellStylePropertiesProvider> cellStyle(int rule) {
+        return cellStyles.get(rule);
+    }
+
+    /**
+     * @return index of the first rule matching the number, or -1
+     */
+    int match(double number) {
+        for (int i = 0; i < rules.length; i++) {
+            Rule rule = rules[i];
+            if (rule.equalTo() == null
+                && number >= rule.min() && number < rule.max()
+                && (rule.condition() == null || rule.condition().test(number))
+            ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first rule matching the string, or -1
+     */
+    int match(@NotNull String text) {
+        for (int i = 0; i < rules.length; i++) {
+            Rule rule = rules[i];
+            if (!rule.numeric()
+                && (rule.equalTo() == null || rule.equalTo().contains(text))
+                && (rule.condition() == null || rule.condition().test(text))
+            ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first rule matching the boolean, or -1
+     */
+    int match(boolean value) {
+        for (int i = 0; i < rules.length; i++) {
+            Rule rule = rules[i];
+            if (!rule.numeric()
+                && (rule.equalTo() == null || rule.equalTo().contains(Boolean.toString(value)))
+                && (rule.condition() == null || rule.condition().test(value))
+            ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param cellValue value written in a cell, {@code null} for blank cells
+     * @return index of the first rule matching the value, or -1
+     */
+    int match(@Nullable Object cellValue) {
+        if (cellValue instanceof Number number) {
+            return match(number.doubleValue());
+        }
+        if (cellValue instanceof String text) {
+            return match(text);
+        }
+        if (cellValue instanceof Boolean value) {
+            return match(value.booleanValue());
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first rule matching the value of the cell, or -1
+     */
+    int match(@NotNull Cell cell) {
+        return switch (cell.getCellType()) {
+            case NUMERIC -> match(cell.getNumericCellValue());
+            case STRING -> match(cell.getStringCellValue());
+            case BOOLEAN -> match(cell.getBooleanCellValue());
+            default -> -1;
+        };
+    }
+}
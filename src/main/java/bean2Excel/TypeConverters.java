@@ -0,0 +1,312 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+
+/**
+ * Converters of the values of fields whose type has no direct cell representation, used when a column doesn't
+ * declare a {@link ValueConverter}: temporal values are written as Excel dates, big numbers as numbers or as
+ * exact text, enums as their name. Converters can convert cell values back, for {@link Excel2Bean}.
+ */
+final class TypeConverters {
+
+    /**
+     * A converter chosen from the type of a field.
+     * @param defaultFormat format of the cells when the column doesn't declare one, empty for none
+     */
+    record TypeConverter(
+        @NotNull ValueConverter valueConverter,
+        @NotNull String defaultFormat
+    ) {}
+
+    static final String DATE_FORMAT = "yyyy-mm-dd";
+    static final String DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm:ss";
+    static final String TIME_FORMAT = "hh:mm:ss";
+
+    // Excel keeps 15 significant digits of numbers
+    private static final MathContext EXCEL_PRECISION = new MathContext(15, RoundingMode.HALF_EVEN);
+
+    // serial number of 1970-01-01 in the 1900 date system
+    private static final int EPOCH_SERIAL = 25569;
+    // days before 1900-03-01 are shifted by the 1900 leap year bug of Excel
+    private static final long FIRST_UNSHIFTED_EPOCH_DAY = LocalDate.of(1900, 3, 1).toEpochDay();
+    private static final double NANOS_PER_DAY = 86_400_000_000_000d;
+    // length of an ISO date
+    private static final int DATE_LENGTH = 10;
+
+    private TypeConverters() {}
+
+    /**
+     * @return the converter of the values of a field of the type written to cells of the type,
+     * {@code null} if the values are written as is
+     */
+    static @Nullable TypeConverter forType(@NotNull Class<?> type, @NotNull CellType cellType) {
+        if (cellType == CellType.NUMERIC) {
+            if (type == LocalDate.class) {
+                return new TypeConverter(new LocalDateConverter(), DATE_FORMAT);
+            }
+            if (type == LocalDateTime.class) {
+                return new TypeConverter(new LocalDateTimeConverter(), DATE_TIME_FORMAT);
+            }
+            if (type == LocalTime.class) {
+                return new TypeConverter(new LocalTimeConverter(), TIME_FORMAT);
+            }
+            if (type == Date.class) {
+                return new TypeConverter(new DateConverter(), DATE_TIME_FORMAT);
+            }
+            if (type == BigDecimal.class) {
+                return new TypeConverter(new BigDecimalConverter(), "");
+            }
+            if (type == BigInteger.class) {
+                return new TypeConverter(new BigIntegerConverter(), "");
+            }
+        }
+        if (cellType == CellType.STRING) {
+            if (type.isEnum()) {
+                return new TypeConverter(enumConverter(type), "");
+            }
+            if (type == BigDecimal.class) {
+                return new TypeConverter(new PlainStringConverter(BigDecimal::new), "");
+            }
+            if (type == BigInteger.class) {
+                return new TypeConverter(new PlainStringConverter(BigInteger::new), "");
+            }
+            if (type == long.class || type == Long.class) {
+                return new TypeConverter(new PlainStringConverter(Long::valueOf), "");
+            }
+            if (type == int.class || type == Integer.class) {
+                return new TypeConverter(new PlainStringConverter(Integer::valueOf), "");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return serial number of the day in the 1900 date system, without allocating
+     */
+    private static double serial(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (epochDay < FIRST_UNSHIFTED_EPOCH_DAY) {
+            return DateUtil.getExcelDate(date);
+        }
+        return epochDay + EPOCH_SERIAL;
+    }
+
+    private static double fractionOfDay(LocalTime time) {
+        return time.toNanoOfDay() / NANOS_PER_DAY;
+    }
+
+    /**
+     * Read the value of a numeric column, also from a text cell holding a number, as typed by hand or imported.
+     * @param fromText parser of text that isn't a number, e.g. an ISO date, or {@code null} if there is none
+     * @throws IllegalArgumentException if the value is neither a number nor valid text
+     */
+    private static <T> T fromCell(
+        Object cellValue,
+        DoubleFunction<T> fromNumber,
+        @Nullable Function<String, T> fromText
+    ) {
+        if (cellValue instanceof Number number) {
+            return fromNumber.apply(number.doubleValue());
+        }
+        if (!(cellValue instanceof String value)) {
+            throw new IllegalArgumentException(String.format("Expected a number, got \"%s\"", cellValue));
+        }
+        String text = value.trim();
+        try {
+            return fromNumber.apply(Double.parseDouble(text));
+        }
+        catch (NumberFormatException e) {
+            if (fromText == null) {
+                throw new IllegalArgumentException(String.format("Expected a number, got \"%s\"", text), e);
+            }
+        }
+        try {
+            return fromText.apply(text);
+        }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Expected a number or an ISO date, got \"%s\"", text), e);
+        }
+    }
+
+    /**
+     * @return a date and time in ISO format, with a 'T' or a space before the time, or a date at the start of the day
+     */
+    private static LocalDateTime parseDateTime(String text) {
+        if (text.length() <= DATE_LENGTH) {
+            return LocalDate.parse(text).atStartOfDay();
+        }
+        return LocalDateTime.parse(text.replace(' ', 'T'));
+    }
+
+    private static final class LocalDateConverter implements DoubleValueConverter<LocalDate> {
+        @Override
+        public double convertToDouble(LocalDate value) {
+            return serial(value);
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return fromCell(cellValue, serial -> DateUtil.getLocalDateTime(serial).toLocalDate(), LocalDate::parse);
+        }
+    }
+
+    private static final class LocalDateTimeConverter implements DoubleValueConverter<LocalDateTime> {
+        @Override
+        public double convertToDouble(LocalDateTime value) {
+            return serial(value.toLocalDate()) + fractionOfDay(value.toLocalTime());
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return fromCell(cellValue, DateUtil::getLocalDateTime, TypeConverters::parseDateTime);
+        }
+    }
+
+    private static final class LocalTimeConverter implements DoubleValueConverter<LocalTime> {
+        @Override
+        public double convertToDouble(LocalTime value) {
+            return fractionOfDay(value);
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return fromCell(cellValue, serial -> DateUtil.getLocalDateTime(serial).toLocalTime(), LocalTime::parse);
+        }
+    }
+
+    /**
+     * Dates are written in the default time zone, like {@link org.apache.poi.ss.usermodel.Cell#setCellValue(Date)}.
+     */
+    private static final class DateConverter implements DoubleValueConverter<Date> {
+        @Override
+        public double convertToDouble(Date value) {
+            return DateUtil.getExcelDate(value);
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return fromCell(
+                cellValue,
+                DateUtil::getJavaDate,
+                text -> Date.from(parseDateTime(text).atZone(ZoneId.systemDefault()).toInstant())
+            );
+        }
+    }
+
+    private static final class BigDecimalConverter implements DoubleValueConverter<BigDecimal> {
+        @Override
+        public double convertToDouble(BigDecimal value) {
+            return value.precision() > EXCEL_PRECISION.getPrecision()
+                ? value.round(EXCEL_PRECISION).doubleValue()
+                : value.doubleValue();
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            // text keeps all the digits
+            return cellValue instanceof String text
+                ? new BigDecimal(text.trim())
+                : fromCell(cellValue, BigDecimal::valueOf, null);
+        }
+    }
+
+    private static final class BigIntegerConverter implements DoubleValueConverter<BigInteger> {
+        @Override
+        public double convertToDouble(BigInteger value) {
+            return value.bitLength() < 50 ? value.longValue() : new BigDecimal(value).round(EXCEL_PRECISION).doubleValue();
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            BigDecimal value = cellValue instanceof String text
+                ? new BigDecimal(text.trim())
+                : fromCell(cellValue, BigDecimal::valueOf, null);
+            return value.toBigIntegerExact();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueConverter enumConverter(Class<?> type) {
+        return new EnumConverter(type);
+    }
+
+    private static final class EnumConverter<E extends Enum<E>> implements StringValueConverter<E> {
+        private final Class<E> type;
+
+        private EnumConverter(Class<E> type) {
+            this.type = type;
+        }
+
+        @Override
+        public String convertToString(E value) {
+            return value.name();
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return Enum.valueOf(type, cellValue.toString().trim());
+        }
+    }
+
+    /**
+     * Numbers written as text, so that they keep all their digits.
+     */
+    private static final class PlainStringConverter implements StringValueConverter<Object> {
+        private final Function<String, Object> parser;
+
+        private PlainStringConverter(Function<String, Object> parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public String convertToString(Object value) {
+            return value instanceof BigDecimal bigDecimal ? bigDecimal.toPlainString() : value.toString();
+        }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return parser.apply(cellValue.toString().trim());
+        }
+    }
+}
@@ -27,4 +27,17 @@ package bean2Excel;
 
 public interface ValueConverter {
     Object convert(Object o);
+
+    /**
+     * Inverse of {@link #convert(Object)}, used by {@link Excel2Bean} to turn the value of a cell back into the
+     * value of the field.
+     * @param cellValue a {@link String}, {@link Double} or {@link Boolean} depending on the type of the cell,
+     *                  never {@code null}
+     * @return the value of the field
+     * @throws Bean2ExcelException if the converter can't be reversed
+     */
+    default Object convertBack(Object cellValue) {
+        throw new Bean2ExcelException(String.format(
+            "Value converter \"%s\" can't convert cell values back", getClass().getName()));
+    }
 }
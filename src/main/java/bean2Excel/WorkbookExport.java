@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A workbook written straight to an output stream, a file or a channel, in the xlsx format.
+ * The workbook is written incrementally while objects are pulled from the sheet sources,
+ * see {@link Bean2Excel#writeWorkbook(OutputStream, List, ExportOptions)}. Sheets written while rows are
+ * produced are limited to 4 GB of xml, further rows are written to the next sheet as when
+ * {@link ExportOptions#maxRowsPerSheet()} is reached.
+ * <br/>
+ * Sheet sources are consumed by the export, so an export can only be written once.
+ * <pre>
+ * WorkbookExport.builder()
+ *     .sheet(SheetSource.of(ClassA.class, "My sheet", objectList))
+ *     .progressListener((sheetName, sheetRowCount, totalRowCount) -> log.info("{} rows written", totalRowCount))
+ *     .build()
+ *     .writeToAsync(outputStream);
+ * </pre>
+ * @param sheets sources of the sheets, in the order of the sheets
+ * @param options options of the export, default is {@link ExportOptions#DEFAULT}
+ * @param progressListener listener of the progress of the export, if any
+ * @param progressInterval number of rows of a sheet between calls to {@link ExportProgressListener#rowsWritten},
+ *                         default is {@value DEFAULT_PROGRESS_INTERVAL}
+ * @param asyncExecutor runs the exports of the {@code writeToAsync} methods, which block on the output and on
+ *                      the sheets written by {@link ExportOptions#executor()}, so it must not be that executor.
+ *                      Default is a virtual thread per export, or a thread per concurrent export on runtimes
+ *                      without virtual threads.
+ */
+@Builder(toBuilder = true)
+public record WorkbookExport(
+    @Singular List<SheetSource<?>> sheets,
+    @Nullable ExportOptions options,
+    @Nullable ExportProgressListener progressListener,
+    int progressInterval,
+    @Nullable Executor asyncExecutor
+) {
+    public static final int DEFAULT_PROGRESS_INTERVAL = 10000;
+
+    // a few zip entries fit in a buffer
+    private static final int BUFFER_SIZE = 65536;
+
+    // threads end when idle, so the executor is never shut down
+    private static final Executor DEFAULT_ASYNC_EXECUTOR = ExportService.newExportExecutor();
+
+    public WorkbookExport {
+        if (sheets.isEmpty()) {
+            throw new Bean2ExcelException("A workbook needs at least one sheet");
+        }
+        if (progressInterval < 0) {
+            throw new Bean2ExcelException(String.format(
+                "Progress interval must not be negative, got %d", progressInterval));
+        }
+        if (options == null) {
+            options = ExportOptions.DEFAULT;
+        }
+        if (progressInterval == 0) {
+            progressInterval = DEFAULT_PROGRESS_INTERVAL;
+        }
+    }
+
+    /**
+     * Write the workbook to an output stream.
+     * @param outputStream where the workbook is written, it is flushed but not closed
+     * @return summary of the written workbook
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+     * or that the workbook couldn't be written.
+     */
+    public ExportResult writeTo(@NonNull OutputStream outputStream) {
+        return Bean2Excel.writeWorkbook(outputStream, sheets, options, new ExportProgress(progressListener, progressInterval));
+    }
+
+    /**
+     * Write the workbook to a file, which is created or replaced. The file is deleted if the export fails.
+     * @param file path of the xlsx file
+     * @return summary of the written workbook
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+     * or that the workbook couldn't be written.
+     */
+    public ExportResult writeTo(@NonNull Path file) {
+        boolean written = false;
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            ExportResult result = writeTo(outputStream);
+            written = true;
+            return result;
+        }
+        catch (IOException e) {
+            throw new Bean2ExcelException(String.format("Failed to write file %s", file), e);
+        }
+        finally {
+            if (!written) {
+                try {
+                    Files.deleteIfExists(file);
+                }
+                catch (IOException ignored) {
+                    // the export failure is more relevant
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the workbook to a channel, e.g. a {@link java.nio.channels.FileChannel} or a socket channel.
+     * @param channel where the workbook is written, it is not closed
+     * @return summary of the written workbook
+     * @throws Bean2ExcelException a runtime exception indicating that a declaration or usage is invalid,
+     * or that the workbook couldn't be written.
+     */
+    public ExportResult writeTo(@NonNull WritableByteChannel channel) {
+        // the stream of the channel isn't closed, since that would close the channel
+        return writeTo(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    }
+
+    /**
+     * Write the workbook to an output stream using the {@link #asyncExecutor()}.
+     * Bytes are written as soon as rows are produced, e.g. the download of a workbook can start
+     * before its last rows are produced.
+     * @param outputStream where the workbook is written, it is flushed but not closed
+     * @return a future completed with the summary of the written workbook, or completed exceptionally with
+     * a {@link Bean2ExcelException}
+     */
+    public CompletableFuture<ExportResult> writeToAsync(@NonNull OutputStream outputStream) {
+        return CompletableFuture.supplyAsync(() -> writeTo(outputStream), asyncExecutorOrDefault());
+    }
+
+    /**
+     * Write the workbook to a file using the {@link #asyncExecutor()}, see {@link #writeTo(Path)}.
+     * @param file path of the xlsx file
+     * @return a future completed with the summary of the written workbook, or completed exceptionally with
+     * a {@link Bean2ExcelException}
+     */
+    public CompletableFuture<ExportResult> writeToAsync(@NonNull Path file) {
+        return CompletableFuture.supplyAsync(() -> writeTo(file), asyncExecutorOrDefault());
+    }
+
+    /**
+     * Write the workbook to a channel using the {@link #asyncExecutor()}, see {@link #writeTo(WritableByteChannel)}.
+     * @param channel where the workbook is written, it is not closed
+     * @return a future completed with the summary of the written workbook, or completed exceptionally with
+     * a {@link Bean2ExcelException}
+     */
+    public CompletableFuture<ExportResult> writeToAsync(@NonNull WritableByteChannel channel) {
+        return CompletableFuture.supplyAsync(() -> writeTo(channel), asyncExecutorOrDefault());
+    }
+
+    private Executor asyncExecutorOrDefault() {
+        return asyncExecutor != null ? asyncExecutor : DEFAULT_ASYNC_EXECUTOR;
+    }
+}
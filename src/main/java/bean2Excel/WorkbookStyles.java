@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import bean2Excel.style.CellStyleProvider;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static bean2Excel.CellStyleCache.StyleKey;
+
+/**
+ * Registry of the styles created by exports into a workbook, shared by all the sheets and calls writing into it,
+ * so that each style is created, or searched for, once per workbook.
+ * <br/>
+ * Registries are attached to their workbook with a weak key, and hold style indices only, as styles refer to
+ * their workbook. Indices are unsigned, as a workbook has up to 64000 styles.
+ * Like the workbook itself, a registry isn't thread safe.
+ */
+final class WorkbookStyles {
+
+    private static final Map<Workbook, WorkbookStyles> registries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Class<?>, Integer> generalStyles = new HashMap<>();
+    private final Map<StyleKey, Integer> resolvedStyles = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @return the registry of the workbook, created on first use
+     */
+    static WorkbookStyles of(@NotNull Workbook workbook) {
+        return registries.computeIfAbsent(workbook, key -> new WorkbookStyles());
+    }
+
+    static StyleStats stats(@NotNull Workbook workbook) {
+        WorkbookStyles workbookStyles = registries.get(workbook);
+        return workbookStyles == null ? new StyleStats(0, 0, 0, 0) : workbookStyles.stats();
+    }
+
+    /**
+     * Get the general style of a provider, the provider is called once per class and workbook. Styles are
+     * registered by provider class, so all instances of a class must provide the same style, e.g. be stateless.
+     */
+    CellStyle generalStyle(@NotNull CellStyleProvider provider, @NotNull Workbook workbook) {
+        Integer index = generalStyles.get(provider.getClass());
+        if (index != null) {
+            hitCount++;
+            return workbook.getCellStyleAt(index);
+        }
+        missCount++;
+        CellStyle cellStyle = provider.getCellStyle(workbook);
+        generalStyles.put(provider.getClass(), Short.toUnsignedInt(cellStyle.getIndex()));
+        return cellStyle;
+    }
+
+    /**
+     * @return index of the style resolved for the properties, {@code null} if not resolved yet
+     */
+    @Nullable Integer resolvedStyle(@NotNull StyleKey key) {
+        Integer index = resolvedStyles.get(key);
+        if (index != null) {
+            hitCount++;
+        }
+        else {
+            missCount++;
+        }
+        return index;
+    }
+
+    void addResolvedStyle(@NotNull StyleKey key, int index) {
+        resolvedStyles.put(key, index);
+    }
+
+    StyleStats stats() {
+        return new StyleStats(generalStyles.size(), resolvedStyles.size(), hitCount, missCount);
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Write a zip file of deflated entries, see the ZIP File Format Specification (APPNOTE.TXT).
+ * <br/>
+ * Unlike {@link java.util.zip.ZipOutputStream}, entries can also be added from data deflated beforehand,
+ * e.g. by other threads, using {@link DeflatingOutputStream}. Zip64 records are written when needed.
+ * <br/>
+ * Entries streamed through {@link #startEntry(String)} are limited to 4 GB: their sizes are unknown when their local
+ * header is written, which then has no zip64 extra field, and streaming readers only expect a zip64 data descriptor
+ * after such a field. Larger entries must be deflated beforehand and added with {@link #addEntry}.
+ */
+class ZipPackageWriter implements Closeable {
+
+    // deflating dominates the time of writing rows, the fastest level makes files only slightly larger
+    static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+    private static final int UTF8_FLAG = 0x800;
+    private static final int DEFLATED = 8;
+    // 1980-01-01 00:00, the earliest MS-DOS date
+    private static final int DOS_TIME = 0;
+    private static final int DOS_DATE = (1 << 5) | 1;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    /**
+     * Checksum and sizes of deflated data.
+     */
+    record DeflatedData(long crc, long size, long compressedSize) {}
+
+    private record Entry(
+        byte @NotNull [] name,
+        int flags,
+        @NotNull DeflatedData data,
+        long offset
+    ) {}
+
+    /**
+     * Deflate data into an output stream, keeping track of its checksum and sizes.
+     */
+    static class DeflatingOutputStream extends FilterOutputStream {
+        private final Deflater deflater = new Deflater(COMPRESSION_LEVEL, true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[8192];
+        private final long maxSize;
+        private long size;
+        private @Nullable DeflatedData data;
+
+        DeflatingOutputStream(@NotNull OutputStream out) {
+            this(out, Long.MAX_VALUE);
+        }
+
+        /**
+         * @param maxSize maximum number of bytes written to this stream
+         */
+        DeflatingOutputStream(@NotNull OutputStream out, long maxSize) {
+            super(out);
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return number of bytes written to this stream so far, before deflating
+         */
+        long size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            if (data != null) {
+                throw new IOException("Stream already finished");
+            }
+            if (len > maxSize - size) {
+                throw new IOException(String.format("Entry exceeds the maximum size of %d bytes", maxSize));
+            }
+            crc.update(b, off, len);
+            size += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        /**
+         * Write the remaining deflated data, the underlying stream is neither flushed nor closed.
+         */
+        DeflatedData finish() throws IOException {
+            if (data == null) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflate();
+                }
+                data = new DeflatedData(crc.getValue(), size, deflater.getBytesWritten());
+                deflater.end();
+            }
+            return data;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            out.close();
+        }
+
+        private void deflate() throws IOException {
+            int length = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+            if (length > 0) {
+                out.write(buffer, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Count bytes written to the underlying stream, to know the offset of the entries.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private final CountingOutputStream out;
+    private final List<Entry> entries = new ArrayList<>();
+    private final byte[] header = new byte[64];
+    private final long maxStreamedEntrySize;
+    private boolean inEntry;
+
+    /**
+     * @param out where the zip file is written, it is flushed but not closed by {@link #close()}
+     */
+    ZipPackageWriter(@NotNull OutputStream out) {
+        this(out, ZIP64_MAGIC - 1);
+    }
+
+    /**
+     * @param maxStreamedEntrySize maximum size of entries streamed through {@link #startEntry(String)}, uncompressed
+     *                             and compressed, at most 4 GB
+     */
+    ZipPackageWriter(@NotNull OutputStream out, long maxStreamedEntrySize) {
+        this.out = new CountingOutputStream(out);
+        this.maxStreamedEntrySize = Math.min(maxStreamedEntrySize, ZIP64_MAGIC - 1);
+    }
+
+    /**
+     * @return number of bytes written to the output stream so far
+     */
+    long bytesWritten() {
+        return out.count;
+    }
+
+    /**
+     * Start an entry whose data is written to the returned stream, the entry ends when the stream is closed.
+     * The stream doesn't close this writer.
+     * <br/>
+     * Writing more than 4 GB to the stream, or data deflated to more than 4 GB, fails with an {@link IOException}.
+     */
+    DeflatingOutputStream startEntry(@NotNull String name) throws IOException {
+        if (inEntry) {
+            throw new IllegalStateException("The previous entry is not closed");
+        }
+        inEntry = true;
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = out.count;
+        int flags = DATA_DESCRIPTOR_FLAG | UTF8_FLAG;
+        // sizes are written in the data descriptor
+        writeLocalHeader(nameBytes, flags, new DeflatedData(0, 0, 0), false);
+
+        long dataOffset = out.count;
+        return new DeflatingOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte @NotNull [] b, int off, int len) throws IOException {
+                if (len > maxStreamedEntrySize - (ZipPackageWriter.this.out.count - dataOffset)) {
+                    throw new IOException(String.format(
+                        "Deflated entry \"%s\" exceeds the maximum size of %d bytes", name, maxStreamedEntrySize));
+                }
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                // the zip file isn't complete yet
+            }
+        }, maxStreamedEntrySize) {
+            @Override
+            public void close() throws IOException {
+                if (!inEntry) {
+                    return;
+                }
+                // sizes fit the data descriptor without zip64, see the limit of the streams
+                DeflatedData data = finish();
+                int length = putInt(0, DATA_DESCRIPTOR_SIGNATURE);
+                length = putInt(length, (int) data.crc());
+                length = putInt(length, (int) data.compressedSize());
+                length = putInt(length, (int) data.size());
+                out.write(header, 0, length);
+                entries.add(new Entry(nameBytes, flags, data, offset));
+                inEntry = false;
+            }
+        };
+    }
+
+    /**
+     * Add an entry from data deflated beforehand.
+     * @param data checksum and sizes returned by {@link DeflatingOutputStream#finish()}
+     * @param compressedData the deflated data, exactly {@link DeflatedData#compressedSize()} bytes are copied
+     */
+    void addEntry(@NotNull String name, @NotNull DeflatedData data, @NotNull InputStream compressedData)
+        throws IOException {
+        if (inEntry) {
+            throw new IllegalStateException("The previous entry is not closed");
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = out.count;
+        int flags = UTF8_FLAG;
+        writeLocalHeader(nameBytes, flags, data, data.size() >= ZIP64_MAGIC || data.compressedSize() >= ZIP64_MAGIC);
+
+        byte[] buffer = new byte[8192];
+        long remaining = data.compressedSize();
+        while (remaining > 0) {
+            int length = compressedData.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (length < 0) {
+                throw new IOException(String.format("Deflated data of entry \"%s\" is truncated", name));
+            }
+            out.write(buffer, 0, length);
+            remaining -= length;
+        }
+        entries.add(new Entry(nameBytes, flags, data, offset));
+    }
+
+    /**
+     * Write the central directory. The underlying stream is flushed but not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (inEntry) {
+            throw new IllegalStateException("The last entry is not closed");
+        }
+        long centralDirectoryOffset = out.count;
+        for (Entry entry : entries) {
+            writeCentralHeader(entry);
+        }
+        long centralDirectorySize = out.count - centralDirectoryOffset;
+
+        boolean zip64 = entries.size() >= ZIP64_MAGIC_COUNT
+            || centralDirectoryOffset >= ZIP64_MAGIC
+            || centralDirectorySize >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = out.count;
+            int length = putInt(0, ZIP64_END_SIGNATURE);
+            // size of the remaining record
+            length = putLong(length, 44);
+            length = putShort(length, ZIP64_VERSION);
+            length = putShort(length, ZIP64_VERSION);
+            length = putInt(length, 0);
+            length = putInt(length, 0);
+            length = putLong(length, entries.size());
+            length = putLong(length, entries.size());
+            length = putLong(length, centralDirectorySize);
+            length = putLong(length, centralDirectoryOffset);
+            out.write(header, 0, length);
+
+            length = putInt(0, ZIP64_LOCATOR_SIGNATURE);
+            length = putInt(length, 0);
+            length = putLong(length, zip64EndOffset);
+            length = putInt(length, 1);
+            out.write(header, 0, length);
+        }
+
+        int length = putInt(0, END_SIGNATURE);
+        length = putShort(length, 0);
+        length = putShort(length, 0);
+        length = putShort(length, Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        length = putShort(length, Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        length = putInt(length, (int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+        length = putInt(length, (int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        length = putShort(length, 0);
+        out.write(header, 0, length);
+        out.flush();
+    }
+
+    private void writeLocalHeader(byte[] name, int flags, DeflatedData data, boolean zip64) throws IOException {
+        int length = putInt(0, LOCAL_HEADER_SIGNATURE);
+        length = putShort(length, zip64 ? ZIP64_VERSION : VERSION);
+        length = putShort(length, flags);
+        length = putShort(length, DEFLATED);
+        length = putShort(length, DOS_TIME);
+        length = putShort(length, DOS_DATE);
+        length = putInt(length, (int) data.crc());
+        length = putInt(length, zip64 ? (int) ZIP64_MAGIC : (int) data.compressedSize());
+        length = putInt(length, zip64 ? (int) ZIP64_MAGIC : (int) data.size());
+        length = putShort(length, name.length);
+        length = putShort(length, zip64 ? 20 : 0);
+        out.write(header, 0, length);
+        out.write(name);
+        if (zip64) {
+            length = putShort(0, ZIP64_EXTRA_ID);
+            length = putShort(length, 16);
+            length = putLong(length, data.size());
+            length = putLong(length, data.compressedSize());
+            out.write(header, 0, length);
+        }
+    }
+
+    private void writeCentralHeader(Entry entry) throws IOException {
+        DeflatedData data = entry.data();
+        boolean zip64Size = data.size() >= ZIP64_MAGIC;
+        boolean zip64CompressedSize = data.compressedSize() >= ZIP64_MAGIC;
+        boolean zip64Offset = entry.offset() >= ZIP64_MAGIC;
+        int extraLength = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+        boolean zip64 = extraLength > 0;
+
+        int length = putInt(0, CENTRAL_HEADER_SIGNATURE);
+        length = putShort(length, zip64 ? ZIP64_VERSION : VERSION);
+        length = putShort(length, zip64 ? ZIP64_VERSION : VERSION);
+        length = putShort(length, entry.flags());
+        length = putShort(length, DEFLATED);
+        length = putShort(length, DOS_TIME);
+        length = putShort(length, DOS_DATE);
+        length = putInt(length, (int) data.crc());
+        length = putInt(length, (int) Math.min(data.compressedSize(), ZIP64_MAGIC));
+        length = putInt(length, (int) Math.min(data.size(), ZIP64_MAGIC));
+        length = putShort(length, entry.name().length);
+        length = putShort(length, zip64 ? extraLength + 4 : 0);
+        // comment length, disk number, internal and external attributes
+        length = putShort(length, 0);
+        length = putShort(length, 0);
+        length = putShort(length, 0);
+        length = putInt(length, 0);
+        length = putInt(length, (int) Math.min(entry.offset(), ZIP64_MAGIC));
+        out.write(header, 0, length);
+        out.write(entry.name());
+
+        if (zip64) {
+            length = putShort(0, ZIP64_EXTRA_ID);
+            length = putShort(length, extraLength);
+            if (zip64Size) {
+                length = putLong(length, data.size());
+            }
+            if (zip64CompressedSize) {
+                length = putLong(length, data.compressedSize());
+            }
+            if (zip64Offset) {
+                length = putLong(length, entry.offset());
+            }
+            out.write(header, 0, length);
+        }
+    }
+
+    private int putShort(int index, int value) {
+        header[index] = (byte) value;
+        header[index + 1] = (byte) (value >>> 8);
+        return index + 2;
+    }
+
+    private int putInt(int index, int value) {
+        putShort(index, value);
+        putShort(index + 2, value >>> 16);
+        return index + 4;
+    }
+
+    private int putLong(int index, long value) {
+        putInt(index, (int) value);
+        putInt(index + 4, (int) (value >>> 32));
+        return index + 8;
+    }
+}
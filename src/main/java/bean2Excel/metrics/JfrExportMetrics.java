@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.metrics;
+
+import bean2Excel.Bean2Excel;
+import bean2Excel.CacheStats;
+import bean2Excel.ExportMetrics;
+import bean2Excel.ExportResult;
+import bean2Excel.SheetMetrics;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Emits export metrics as JDK Flight Recorder events, which cost nothing unless a recording enables them:
+ * <ul>
+ *     <li>{@code bean2Excel.SheetCreated} for each sheet created by a {@link Bean2Excel.CreateSheetFunc}</li>
+ *     <li>{@code bean2Excel.WorkbookWritten} for each workbook written straight to an output stream</li>
+ *     <li>{@code bean2Excel.CacheStatistics} periodically, with the statistics of {@link Bean2Excel#getCacheStats()}</li>
+ * </ul>
+ */
+public final class JfrExportMetrics implements ExportMetrics {
+
+    @Name("bean2Excel.SheetCreated")
+    @Label("Sheet Created")
+    @Category("Bean2Excel")
+    @StackTrace(false)
+    static class SheetCreatedEvent extends Event {
+        @Label("Type")
+        Class<?> type;
+        @Label("Sheet Name")
+        String sheetName;
+        @Label("Rows")
+        long rowCount;
+        @Label("Rows per Second")
+        double rowsPerSecond;
+        @Label("Elapsed") @Timespan
+        long elapsed;
+        @Label("Getters") @Timespan @Description("Estimated from sampled rows")
+        long getters;
+        @Label("Converters") @Timespan @Description("Estimated from sampled rows")
+        long converters;
+        @Label("Styles") @Timespan @Description("Estimated from sampled rows")
+        long styles;
+        @Label("Cell Writes") @Timespan @Description("Estimated from sampled rows")
+        long cellWrites;
+        @Label("Auto Size") @Timespan @Description("Estimated from sampled rows")
+        long autoSize;
+        @Label("Styles Created")
+        int stylesCreated;
+    }
+
+    @Name("bean2Excel.WorkbookWritten")
+    @Label("Workbook Written")
+    @Category("Bean2Excel")
+    @StackTrace(false)
+    static class WorkbookWrittenEvent extends Event {
+        @Label("Sheets")
+        int sheetCount;
+        @Label("Rows")
+        long rowCount;
+        @Label("Bytes Written") @DataAmount
+        long bytesWritten;
+        @Label("Elapsed") @Timespan
+        long elapsed;
+    }
+
+    @Name("bean2Excel.CacheStatistics")
+    @Label("Cache Statistics")
+    @Category("Bean2Excel")
+    @Period("60 s")
+    @StackTrace(false)
+    static class CacheStatisticsEvent extends Event {
+        @Label("Size")
+        int size;
+        @Label("Maximum Size")
+        int maximumSize;
+        @Label("Hits")
+        long hitCount;
+        @Label("Misses")
+        long missCount;
+        @Label("Evictions")
+        long evictionCount;
+    }
+
+    static {
+        FlightRecorder.addPeriodicEvent(CacheStatisticsEvent.class, () -> {
+            CacheStats stats = Bean2Excel.getCacheStats();
+            CacheStatisticsEvent event = new CacheStatisticsEvent();
+            event.size = stats.size();
+            event.maximumSize = stats.maximumSize();
+            event.hitCount = stats.hitCount();
+            event.missCount = stats.missCount();
+            event.evictionCount = stats.evictionCount();
+            event.commit();
+        });
+    }
+
+    @Override
+    public void sheetCreated(@NotNull SheetMetrics metrics) {
+        SheetCreatedEvent event = new SheetCreatedEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.type = metrics.type();
+        event.sheetName = metrics.sheetName();
+        event.rowCount = metrics.rowCount();
+        event.rowsPerSecond = metrics.rowsPerSecond();
+        event.elapsed = metrics.elapsedNanos();
+        event.getters = metrics.getterNanos();
+        event.converters = metrics.converterNanos();
+        event.styles = metrics.styleNanos();
+        event.cellWrites = metrics.cellWriteNanos();
+        event.autoSize = metrics.autoSizeNanos();
+        event.stylesCreated = metrics.stylesCreated();
+        event.commit();
+    }
+
+    @Override
+    public void workbookWritten(@NotNull ExportResult result, long elapsedNanos) {
+        WorkbookWrittenEvent event = new WorkbookWrittenEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.sheetCount = result.sheetCount();
+        event.rowCount = result.rowCount();
+        event.bytesWritten = result.bytesWritten();
+        event.elapsed = elapsedNanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.metrics;
+
+import bean2Excel.Bean2Excel;
+import bean2Excel.ExportMetrics;
+import bean2Excel.ExportResult;
+import bean2Excel.SheetMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records export metrics in a Micrometer {@link MeterRegistry}. Requires {@code io.micrometer:micrometer-core}
+ * on the classpath, which is an optional dependency of Bean2Excel.
+ * <br/>
+ * Sheet meters are tagged with the simple name of the Java Beans class:
+ * <ul>
+ *     <li>{@code bean2excel.sheet} timer of the creation of sheets</li>
+ *     <li>{@code bean2excel.sheet.phase} timer of each phase, tagged {@code phase}</li>
+ *     <li>{@code bean2excel.sheet.rows} counter of data rows, its rate gives rows per second</li>
+ *     <li>{@code bean2excel.sheet.styles} summary of the cell styles created per sheet</li>
+ * </ul>
+ * Workbooks written straight to an output stream are recorded in the {@code bean2excel.workbook} timer, and the
+ * {@code bean2excel.workbook.rows} and {@code bean2excel.workbook.bytes} counters. Statistics of
+ * {@link Bean2Excel#getCacheStats()} are exposed as {@code bean2excel.cache.*} meters.
+ */
+public final class MicrometerExportMetrics implements ExportMetrics {
+    private final MeterRegistry registry;
+    private final Timer workbookTimer;
+    private final Counter workbookRows;
+    private final Counter workbookBytes;
+
+    /**
+     * @param registry registry of the meters, cache meters are registered right away
+     */
+    public MicrometerExportMetrics(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        this.workbookTimer = registry.timer("bean2excel.workbook");
+        this.workbookRows = registry.counter("bean2excel.workbook.rows");
+        this.workbookBytes = Counter.builder("bean2excel.workbook.bytes").baseUnit("bytes").register(registry);
+
+        FunctionCounter.builder("bean2excel.cache.hits", Bean2Excel.class, type -> Bean2Excel.getCacheStats().hitCount())
+            .register(registry);
+        FunctionCounter.builder("bean2excel.cache.misses", Bean2Excel.class, type -> Bean2Excel.getCacheStats().missCount())
+            .register(registry);
+        FunctionCounter.builder("bean2excel.cache.evictions", Bean2Excel.class,
+                type -> Bean2Excel.getCacheStats().evictionCount())
+            .register(registry);
+        Gauge.builder("bean2excel.cache.size", Bean2Excel.class, type -> Bean2Excel.getCacheStats().size())
+            .register(registry);
+    }
+
+    @Override
+    public void sheetCreated(@NotNull SheetMetrics metrics) {
+        Tags tags = Tags.of("type", metrics.type().getSimpleName());
+        registry.timer("bean2excel.sheet", tags).record(metrics.elapsedNanos(), TimeUnit.NANOSECONDS);
+        recordPhase(tags, "getter", metrics.getterNanos());
+        recordPhase(tags, "converter", metrics.converterNanos());
+        recordPhase(tags, "style", metrics.styleNanos());
+        recordPhase(tags, "cell_write", metrics.cellWriteNanos());
+        recordPhase(tags, "auto_size", metrics.autoSizeNanos());
+        registry.counter("bean2excel.sheet.rows", tags).increment(metrics.rowCount());
+        DistributionSummary.builder("bean2excel.sheet.styles").tags(tags).register(registry)
+            .record(metrics.stylesCreated());
+    }
+
+    @Override
+    public void workbookWritten(@NotNull ExportResult result, long elapsedNanos) {
+        workbookTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        workbookRows.increment(result.rowCount());
+        workbookBytes.increment(result.bytesWritten());
+    }
+
+    private void recordPhase(Tags tags, String phase, long nanos) {
+        registry.timer("bean2excel.sheet.phase", tags.and("phase", phase)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
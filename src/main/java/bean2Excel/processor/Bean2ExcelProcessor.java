@@ -0,0 +1,370 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Generate an implementation of {@code bean2Excel.GeneratedBeanInfo} for each class declaring fields annotated
+ * with {@code bean2Excel.ExcelColumn}, so that the declaration is read without reflection at runtime.
+ * <br/>
+ * The processor is not registered automatically, enable it using the {@code -processor} option of javac
+ * (or the {@code annotationProcessors} configuration of the maven compiler plugin). Classes that can't be
+ * handled (e.g. private classes, or private fields without accessor) are skipped with a note, and are read using
+ * reflection at runtime.
+ */
+@SupportedAnnotationTypes(Bean2ExcelProcessor.EXCEL_COLUMN)
+public class Bean2ExcelProcessor extends AbstractProcessor {
+
+    static final String EXCEL_COLUMN = "bean2Excel.ExcelColumn";
+    private static final String EXCEL_NESTED = "bean2Excel.ExcelNested";
+    private static final String CELL_STYLE_PROPERTIES = "bean2Excel.style.CellStyleProperties";
+    private static final String GENERAL_CELL_STYLE = "bean2Excel.style.GeneralCellStyle";
+    private static final String CONDITIONAL_STYLE = "bean2Excel.style.ConditionalStyle";
+    private static final String CONDITIONAL_STYLES = "bean2Excel.style.ConditionalStyles";
+    private static final String GENERATED_BEAN_INFO = "bean2Excel.GeneratedBeanInfo";
+    private static final String GENERATED_CLASS_SUFFIX = "_Bean2Excel";
+    private static final String SERVICE_FILE = "META-INF/services/" + GENERATED_BEAN_INFO;
+
+    private final Set<String> generatedClassNames = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        Set<TypeElement> beanTypes = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD) {
+                    beanTypes.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+
+        for (TypeElement beanType : beanTypes) {
+            try {
+                generate(beanType);
+            }
+            catch (SkipException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    String.format("Bean2Excel: %s, reflection will be used instead", e.getMessage()), beanType);
+            }
+            catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Bean2Excel: failed to write generated class: " + e.getMessage(), beanType);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement beanType) throws IOException {
+        Elements elements = processingEnv.getElementUtils();
+        checkAccessible(beanType);
+
+        String binaryName = elements.getBinaryName(beanType).toString();
+        String packageName = elements.getPackageOf(beanType).getQualifiedName().toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+            .replace('$', '_') + GENERATED_CLASS_SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String beanName = typeName(beanType.asType());
+
+        List<String> columns = new ArrayList<>();
+        for (TypeElement curType = beanType; curType != null; curType = superclass(curType)) {
+            for (VariableElement field : ElementFilter.fieldsIn(curType.getEnclosedElements())) {
+                if (findAnnotation(field, EXCEL_NESTED) != null) {
+                    throw new SkipException(String.format("field \"%s\" is a nested bean", field.getSimpleName()));
+                }
+                AnnotationMirror excelColumn = findAnnotation(field, EXCEL_COLUMN);
+                if (excelColumn != null) {
+                    columns.add(column(beanType, beanName, field, excelColumn));
+                }
+            }
+        }
+
+        AnnotationMirror generalCellStyle = findAnnotation(beanType, GENERAL_CELL_STYLE);
+        String generalStyle = generalCellStyle == null ? "null" : newInstance(generalCellStyle, "cellStyle");
+
+        FileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, beanType);
+        try (Writer writer = sourceFile.openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n");
+            writer.write("public final class " + simpleName
+                + " implements " + GENERATED_BEAN_INFO + "<" + beanName + "> {\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public Class<" + beanName + "> beanType() {\n");
+            writer.write("        return " + beanName + ".class;\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public bean2Excel.style.CellStyleProvider generalStyle() {\n");
+            writer.write("        return " + generalStyle + ";\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public java.util.List<" + GENERATED_BEAN_INFO + ".Column> columns() {\n");
+            writer.write("        return java.util.List.of(\n");
+            writer.write(String.join(",\n", columns));
+            writer.write("\n        );\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        }
+        generatedClassNames.add(qualifiedName);
+    }
+
+    private String column(TypeElement beanType, String beanName, VariableElement field, AnnotationMirror excelColumn) {
+        String getter = getter(beanType, beanName, field);
+        if (findAnnotation(field, CONDITIONAL_STYLE) != null || findAnnotation(field, CONDITIONAL_STYLES) != null) {
+            throw new SkipException(String.format("field \"%s\" has conditional styles", field.getSimpleName()));
+        }
+
+        TypeKind fieldKind = field.asType().getKind();
+        String doubleGetter = fieldKind.isPrimitive() && fieldKind != TypeKind.BOOLEAN ? getter : "null";
+        String booleanGetter = fieldKind == TypeKind.BOOLEAN ? getter : "null";
+
+        AnnotationMirror cellStyleProperties = findAnnotation(field, CELL_STYLE_PROPERTIES);
+        String style = "null";
+        if (cellStyleProperties != null) {
+            style = "new " + GENERATED_BEAN_INFO + ".Style("
+                + getValue(cellStyleProperties, "autoFit") + ", "
+                + newInstances(cellStyleProperties, "headerCellStyle") + ", "
+                + newInstances(cellStyleProperties, "cellStyle") + ")";
+        }
+
+        VariableElement cellType = (VariableElement) getValue(excelColumn, "cellType");
+        return "            new " + GENERATED_BEAN_INFO + ".Column(\n"
+            + "                " + processingEnv.getElementUtils().getConstantExpression(getValue(excelColumn, "columnName")) + ",\n"
+            + "                org.apache.poi.ss.usermodel.CellType." + cellType.getSimpleName() + ",\n"
+            + "                " + getValue(excelColumn, "order") + ",\n"
+            + "                " + processingEnv.getElementUtils().getConstantExpression(getValue(excelColumn, "format")) + ",\n"
+            + "                " + getValue(excelColumn, "lowCardinality") + ",\n"
+            + "                " + classLiteral(field.asType()) + ",\n"
+            + "                " + getter + ",\n"
+            + "                " + doubleGetter + ",\n"
+            + "                " + booleanGetter + ",\n"
+            + "                " + newInstance(excelColumn, "valueConverter") + ",\n"
+            + "                " + style + "\n"
+            + "            )";
+    }
+
+    /**
+     * Same naming rule as the reflection based lookup of getters.
+     */
+    private static String getterName(VariableElement field) {
+        String verb = field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get";
+        String name = field.getSimpleName().toString();
+        return verb + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Same lookup as the reflection based one: the getter, then an accessor named after the field, then the field
+     * itself, which the generated class can only read if it isn't private and is declared in the same package.
+     */
+    private String getter(TypeElement beanType, String beanName, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        if (hasAccessor(beanType, getterName(field), null)) {
+            return "o -> ((" + beanName + ") o)." + getterName(field) + "()";
+        }
+        if (hasAccessor(beanType, name, field.asType())) {
+            return "o -> ((" + beanName + ") o)." + name + "()";
+        }
+        Elements elements = processingEnv.getElementUtils();
+        if (!field.getModifiers().contains(Modifier.STATIC)
+            && (field.getModifiers().contains(Modifier.PUBLIC)
+                || !field.getModifiers().contains(Modifier.PRIVATE)
+                    && elements.getPackageOf(field).equals(elements.getPackageOf(beanType)))
+        ) {
+            return "o -> ((" + beanName + ") o)." + name;
+        }
+        throw new SkipException(String.format(
+            "can't find public accessor for private field \"%s\"", field.getSimpleName()));
+    }
+
+    /**
+     * @param returnType required return type, {@code null} for any
+     */
+    private boolean hasAccessor(TypeElement beanType, String accessorName, TypeMirror returnType) {
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(beanType))) {
+            if (method.getSimpleName().contentEquals(accessorName)
+                && method.getParameters().isEmpty()
+                && method.getModifiers().contains(Modifier.PUBLIC)
+                && !method.getModifiers().contains(Modifier.STATIC)
+                && (returnType == null || processingEnv.getTypeUtils().isSameType(method.getReturnType(), returnType))
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkAccessible(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new SkipException(String.format("\"%s\" is not accessible", element.getSimpleName()));
+            }
+        }
+    }
+
+    private String newInstance(AnnotationMirror annotation, String name) {
+        return newInstance((TypeMirror) getValue(annotation, name));
+    }
+
+    private String newInstances(AnnotationMirror annotation, String name) {
+        @SuppressWarnings("unchecked")
+        List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) getValue(annotation, name);
+        List<String> instances = new ArrayList<>();
+        for (AnnotationValue value : values) {
+            instances.add(newInstance((TypeMirror) value.getValue()));
+        }
+        return "java.util.List.of(" + String.join(", ", instances) + ")";
+    }
+
+    private String newInstance(TypeMirror type) {
+        TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+        checkAccessible(typeElement);
+        boolean hasPublicNoArgsConstructor = ElementFilter.constructorsIn(typeElement.getEnclosedElements()).stream()
+            .anyMatch(constructor -> constructor.getParameters().isEmpty()
+                && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!hasPublicNoArgsConstructor) {
+            throw new SkipException(String.format(
+                "\"%s\" doesn't have a public no args constructor", typeElement.getQualifiedName()));
+        }
+        return "new " + typeName(type) + "()";
+    }
+
+    private String typeName(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        return ((TypeElement) types.asElement(types.erasure(type))).getQualifiedName().toString();
+    }
+
+    /**
+     * @return the class literal of the erasure of a type, {@code Object.class} for arrays
+     */
+    private String classLiteral(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase(Locale.ROOT) + ".class";
+        }
+        if (type.getKind() == TypeKind.DECLARED || type.getKind() == TypeKind.TYPEVAR) {
+            return typeName(type) + ".class";
+        }
+        return "java.lang.Object.class";
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private Object getValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalStateException("Missing annotation value " + name);
+    }
+
+    /**
+     * Register generated classes as services, keeping the ones registered by previous compilations.
+     */
+    private void writeServiceFile() {
+        if (generatedClassNames.isEmpty()) {
+            return;
+        }
+        Filer filer = processingEnv.getFiler();
+        Set<String> serviceNames = new TreeSet<>(generatedClassNames);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))
+            ) {
+                reader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(serviceNames::add);
+            }
+        }
+        catch (IOException e) {
+            // no services registered yet
+        }
+
+        try {
+            FileObject serviceFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = serviceFile.openWriter()) {
+                for (String serviceName : serviceNames) {
+                    writer.write(serviceName + "\n");
+                }
+            }
+        }
+        catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Bean2Excel: failed to write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static class SkipException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SkipException(String message) {
+            super(message);
+        }
+    }
+}
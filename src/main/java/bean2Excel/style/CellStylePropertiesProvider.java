@@ -31,5 +31,20 @@ import java.util.Map;
 
 public interface CellStylePropertiesProvider {
 
+    /**
+     * @param cell the cell to be styled, its value is already set. Prefer {@link ConditionalStyle}
+     *             to style cells depending on their value, as it doesn't call providers for each cell.
+     * @return style properties, see {@link org.apache.poi.ss.util.CellUtil}
+     */
     Map<String, Object> getCellStyleProperties(Cell cell);
+
+    /**
+     * Whether the properties returned by {@link #getCellStyleProperties(Cell)} depend on the given cell.
+     * If not, the provider is called only once per column of each sheet, and the resulting style is reused
+     * for the other cells of the column.
+     * @return {@code true} by default
+     */
+    default boolean isCellDependent() {
+        return true;
+    }
 }
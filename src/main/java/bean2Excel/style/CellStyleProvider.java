@@ -28,6 +28,10 @@ package bean2Excel.style;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Workbook;
 
+/**
+ * Provide a cell style, created in the workbook or found in it. General styles, see {@link GeneralCellStyle},
+ * are created once per provider class and workbook, so all instances of a provider class must provide the same style.
+ */
 public interface CellStyleProvider {
     CellStyle getCellStyle(Workbook workbook);
 }
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.style;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Style properties applied on top of the style of a column to the cells whose value matches a condition.
+ * Rules are evaluated in declaration order on the value written in the cell, the first matching rule applies.
+ * A rule matches when all of its set conditions hold, blank cells never match.
+ * <br/>
+ * Conditions are compiled once per column, and the style of each rule is created once per sheet, from the first
+ * cell matching the rule, so the providers of {@link #cellStyle()} should not depend on the cell.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(ConditionalStyles.class)
+public @interface ConditionalStyle {
+    /**
+     * @return lower bound, inclusive, of matching numeric values. Setting a bound restricts the rule to numbers.
+     */
+    double min() default Double.NEGATIVE_INFINITY;
+
+    /**
+     * @return upper bound, exclusive, of matching numeric values. Setting a bound restricts the rule to numbers.
+     */
+    double max() default Double.POSITIVE_INFINITY;
+
+    /**
+     * @return matching string values, booleans are matched by {@code "true"} and {@code "false"}.
+     * Setting values restricts the rule to strings and booleans.
+     */
+    String[] equalTo() default {};
+
+    /**
+     * @return condition tested on the value of the cell, {@link StyleCondition} itself for no condition
+     */
+    Class<? extends StyleCondition> condition() default StyleCondition.class;
+
+    Class<? extends CellStylePropertiesProvider>[] cellStyle();
+}
@@ -35,4 +35,9 @@ public class DefaultCellStyleProperties implements CellStylePropertiesProvider {
     public Map<String, Object> getCellStyleProperties(Cell cell) {
         return Collections.emptyMap();
     }
+
+    @Override
+    public boolean isCellDependent() {
+        return false;
+    }
 }
@@ -25,21 +25,62 @@
 
 package bean2Excel;
 
+import bean2Excel.style.CellStyleProperties;
+import bean2Excel.style.CellStylePropertiesProvider;
+import bean2Excel.style.ConditionalStyle;
+import bean2Excel.style.DefaultCellStyleProperties;
 import bean2Excel.style.GeneralCellStyle;
+import bean2Excel.style.StyleCondition;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class Bean2ExcelTest {
@@ -60,11 +101,244 @@ public class Bean2ExcelTest {
 
     }
 
+    @Getter
+    @AllArgsConstructor
+    public static class StyledClass {
+        @ExcelColumn(columnName = "column 1", cellType = CellType.STRING)
+        @CellStyleProperties
+        private String column1;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @GeneralCellStyle
+    public static class BorderedClass {
+        @ExcelColumn(columnName = "column 1", cellType = CellType.STRING)
+        @CellStyleProperties(cellStyle = MediumBorder.class, autoFit = false)
+        private String column1;
+        @ExcelColumn(columnName = "column 2", cellType = CellType.STRING)
+        @CellStyleProperties(cellStyle = { MediumBorder.class, DefaultCellStyleProperties.class }, autoFit = false)
+        private String column2;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ConditionalClass {
+        @ExcelColumn(columnName = "amount", cellType = CellType.NUMERIC)
+        @ConditionalStyle(max = 0, cellStyle = ThickBottom.class)
+        @ConditionalStyle(min = 100, cellStyle = MediumBorder.class)
+        private double amount;
+        @ExcelColumn(columnName = "status", cellType = CellType.STRING, order = 1)
+        @ConditionalStyle(equalTo = { "late", "cancelled" }, cellStyle = ThickBottom.class)
+        @ConditionalStyle(condition = IsUpperCase.class, cellStyle = MediumBorder.class)
+        private String status;
+        @ExcelColumn(columnName = "value dependent", cellType = CellType.STRING, order = 2)
+        @CellStyleProperties(cellStyle = ThickBottomIfX.class, autoFit = false)
+        private String valueDependent;
+    }
+
+    @AllArgsConstructor
+    public static class WideClass {
+        @ExcelColumn(columnName = "id", cellType = CellType.NUMERIC)
+        private int id;
+        @ExcelColumn(columnName = "name", cellType = CellType.STRING, order = 1)
+        private String name;
+        @ExcelColumn(columnName = "secret", cellType = CellType.STRING, order = 2)
+        private String secret;
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSecret() {
+            throw new UnsupportedOperationException("not projected");
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Address {
+        @ExcelColumn(columnName = "city", cellType = CellType.STRING)
+        private String city;
+        @ExcelColumn(columnName = "floor", cellType = CellType.NUMERIC, order = 1)
+        private int floor;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class OrderLine {
+        @ExcelColumn(columnName = "product", cellType = CellType.STRING)
+        private String product;
+        @ExcelColumn(columnName = "quantity", cellType = CellType.NUMERIC, order = 1)
+        private int quantity;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Order {
+        @ExcelColumn(columnName = "id", cellType = CellType.NUMERIC)
+        private int id;
+        @ExcelNested(prefix = "shipping ", order = 1)
+        private Address shipping;
+        @ExcelNested(order = 2, expand = true)
+        private List<OrderLine> lines;
+    }
+
+    @Getter
+    public static class Node {
+        @ExcelColumn(columnName = "name", cellType = CellType.STRING)
+        private String name;
+        @ExcelNested(prefix = "parent ")
+        private Node parent;
+    }
+
+    public record PointRecord(
+        @ExcelColumn(columnName = "x", cellType = CellType.NUMERIC) double x,
+        @ExcelColumn(columnName = "label", cellType = CellType.STRING, order = 1) String label
+    ) {}
+
+    public static class Fluent {
+        @ExcelColumn(columnName = "name", cellType = CellType.STRING)
+        private final String name;
+        @ExcelColumn(columnName = "active", cellType = CellType.BOOLEAN, order = 1)
+        private final boolean active;
+        @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 2)
+        private final int count;
+
+        public Fluent(String name, boolean active, int count) {
+            this.name = name;
+            this.active = active;
+            this.count = count;
+        }
+
+        public String name() {
+            return name;
+        }
+    }
+
+    public enum Level { LOW, HIGH }
+
+    public record TypedValues(
+        @ExcelColumn(columnName = "date", cellType = CellType.NUMERIC) LocalDate date,
+        @ExcelColumn(columnName = "time", cellType = CellType.NUMERIC, order = 1, format = "dd/mm/yyyy hh:mm")
+        LocalDateTime time,
+        @ExcelColumn(columnName = "amount", cellType = CellType.NUMERIC, order = 2, format = "#,##0.00") BigDecimal amount,
+        @ExcelColumn(columnName = "exact", cellType = CellType.STRING, order = 3) BigDecimal exact,
+        @ExcelColumn(columnName = "level", cellType = CellType.STRING, order = 4) Level level,
+        @ExcelColumn(columnName = "id", cellType = CellType.STRING, order = 5) long id
+    ) {}
+
+    public record FormattedValues(
+        @ExcelColumn(columnName = "time", cellType = CellType.NUMERIC) @CellStyleProperties LocalDateTime time,
+        @ExcelColumn(columnName = "amount", cellType = CellType.NUMERIC, order = 1, format = "#,##0.00")
+        @CellStyleProperties BigDecimal amount
+    ) {}
+
+    public record Ticket(
+        @ExcelColumn(columnName = "id", cellType = CellType.STRING) String id,
+        @ExcelColumn(columnName = "status", cellType = CellType.STRING, order = 1, lowCardinality = true) String status,
+        @ExcelColumn(columnName = "region", cellType = CellType.STRING, order = 2) String region
+    ) {}
+
+    public static class ThickBottom implements CellStylePropertiesProvider {
+        @Override
+        public Map<String, Object> getCellStyleProperties(Cell cell) {
+            return Map.of(CellUtil.BORDER_BOTTOM, BorderStyle.THICK);
+        }
+    }
+
+    public static class ThickBottomIfX implements CellStylePropertiesProvider {
+        @Override
+        public Map<String, Object> getCellStyleProperties(Cell cell) {
+            return cell.getCellType() == CellType.STRING && cell.getStringCellValue().equals("x")
+                ? Map.of(CellUtil.BORDER_BOTTOM, BorderStyle.THICK)
+                : Map.of();
+        }
+    }
+
+    public static class IsUpperCase implements StyleCondition {
+        @Override
+        public boolean test(@NotNull Object cellValue) {
+            return cellValue instanceof String text && text.equals(text.toUpperCase());
+        }
+    }
+
+    public static class MediumBorder implements CellStylePropertiesProvider {
+        @Override
+        public Map<String, Object> getCellStyleProperties(Cell cell) {
+            return Map.of(CellUtil.BORDER_TOP, BorderStyle.MEDIUM);
+        }
+    }
+
     public static class String2DoubleConverter implements ValueConverter {
         @Override
         public Object convert(Object o) {
             return Double.parseDouble((String) o);
         }
+
+        @Override
+        public Object convertBack(Object cellValue) {
+            return Double.toString((Double) cellValue);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TypedClass {
+        @ExcelColumn(columnName = "length", cellType = CellType.NUMERIC, valueConverter = LengthConverter.class)
+        private String text;
+        @ExcelColumn(columnName = "nonEmpty", cellType = CellType.BOOLEAN, order = 1,
+            valueConverter = NonEmptyConverter.class)
+        private String otherText;
+        @ExcelColumn(columnName = "border", cellType = CellType.STRING, order = 2, valueConverter = NameConverter.class)
+        private BorderStyle borderStyle;
+        @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 3)
+        private Integer count;
+    }
+
+    public static class LengthConverter implements DoubleValueConverter<String> {
+        @Override
+        public double convertToDouble(String value) {
+            return value.length();
+        }
+    }
+
+    public static class NonEmptyConverter implements BooleanValueConverter<String> {
+        @Override
+        public boolean convertToBoolean(String value) {
+            return !value.isEmpty();
+        }
+    }
+
+    public static class NameConverter implements StringValueConverter<BorderStyle> {
+        @Override
+        public String convertToString(BorderStyle value) {
+            return value.name();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PrimitiveClass {
+        @ExcelColumn(columnName = "int", cellType = CellType.NUMERIC)
+        private int intValue;
+        @ExcelColumn(columnName = "double", cellType = CellType.NUMERIC, order = 1)
+        private double doubleValue;
+        @ExcelColumn(columnName = "boolean", cellType = CellType.BOOLEAN, order = 2)
+        private boolean booleanValue;
+        @ExcelColumn(columnName = "integer", cellType = CellType.NUMERIC, order = 3)
+        private Integer integerWrapper;
+        @ExcelColumn(columnName = "doubleWrapper", cellType = CellType.NUMERIC, order = 4)
+        private Double doubleWrapper;
+        @ExcelColumn(columnName = "booleanWrapper", cellType = CellType.BOOLEAN, order = 5)
+        private Boolean booleanWrapper;
+        @ExcelColumn(columnName = "text", cellType = CellType.STRING, order = 6,
+            valueConverter = IdentityValueConverter.class)
+        private String text;
     }
 
     static int TEST_DATA_COUNT = 1000;
@@ -107,6 +381,966 @@ public class Bean2ExcelTest {
         }
     }
 
+    @Test
+    void parallelConversion() throws Exception {
+        ExportOptions options = ExportOptions.builder().parallelism(4).chunkSize(64).build();
+
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(ClassA.class, options).exec(List.of(testData), workbook, "My sheet");
+
+            assertEquals(TEST_DATA_COUNT, sheet.getLastRowNum());
+            for (int i = 0; i < TEST_DATA_COUNT; i++) {
+                Row curRow = sheet.getRow(i+1);
+                ClassA curObject = testData[i];
+                assertEquals(curObject.getColumn1(), curRow.getCell(3).getStringCellValue());
+                assertEquals(curObject.getColumn2(), curRow.getCell(2).getNumericCellValue(), 0.1);
+                assertEquals(curObject.isColumn3(), curRow.getCell(1).getBooleanCellValue());
+                assertEquals(curObject.getColumn4(), Double.toString(curRow.getCell(0).getNumericCellValue()));
+            }
+        }
+    }
+
+    @Test
+    void cacheStats() {
+        Bean2Excel.clearCache();
+        CacheStats initialStats = Bean2Excel.getCacheStats();
+
+        Bean2Excel.getCreateSheetFunc(ClassA.class);
+        Bean2Excel.getCreateSheetFunc(ClassA.class);
+        CacheStats stats = Bean2Excel.getCacheStats();
+        assertEquals(1, stats.size());
+        assertEquals(initialStats.missCount() + 1, stats.missCount());
+        assertEquals(initialStats.hitCount() + 1, stats.hitCount());
+
+        // options other than the projection share the compiled function, and are read on each call
+        List<SheetMetrics> sheetMetrics = new ArrayList<>();
+        Sheet sheet = Bean2Excel.getCreateSheetFunc(ClassA.class, ExportOptions.builder()
+            .parallelism(2).executor(Runnable::run).metrics(sheetMetrics::add).build())
+            .exec(List.of(testData), new XSSFWorkbook(), "My sheet");
+        assertEquals(1, Bean2Excel.getCacheStats().size());
+        assertEquals(initialStats.missCount() + 1, Bean2Excel.getCacheStats().missCount());
+        assertEquals(1, sheetMetrics.size());
+        assertEquals(TEST_DATA_COUNT, sheet.getLastRowNum());
+
+        Bean2Excel.setMaximumCacheSize(1);
+        try {
+            Bean2Excel.getCreateSheetFunc(StyledClass.class);
+            stats = Bean2Excel.getCacheStats();
+            assertEquals(1, stats.size());
+            assertEquals(initialStats.evictionCount() + 1, stats.evictionCount());
+        }
+        finally {
+            Bean2Excel.setMaximumCacheSize(CreateSheetFuncCache.DEFAULT_MAXIMUM_SIZE);
+        }
+    }
+
+    @Test
+    void projectionsCountTowardCacheSize() throws Exception {
+        Bean2Excel.clearCache();
+        Bean2Excel.setMaximumCacheSize(2);
+        try {
+            List<WideClass> objects = List.of(new WideClass(1, "a", "s"));
+            // e.g. projections built per request from tenant settings
+            List<ColumnProjection> projections = List.of(
+                ColumnProjection.include("id"), ColumnProjection.include("name"), ColumnProjection.include("id", "name"),
+                ColumnProjection.include("name", "id"), ColumnProjection.exclude("secret"), ColumnProjection.exclude("secret", "id"));
+            for (ColumnProjection projection : projections) {
+                Bean2Excel.getCreateSheetFunc(WideClass.class, ExportOptions.builder().projection(projection).build())
+                    .exec(objects, new XSSFWorkbook(), "Sheet");
+                Bean2Excel.getWriteWorkbookFunc(WideClass.class, projection)
+                    .exec(objects, OutputStream.nullOutputStream(), "Direct");
+                Bean2Excel.writeWorkbook(OutputStream.nullOutputStream(),
+                    List.of(SheetSource.of(WideClass.class, "Sheet", objects).withProjection(projection)),
+                    ExportOptions.DEFAULT);
+                assertTrue(Bean2Excel.getCacheStats().size() <= 2, Bean2Excel.getCacheStats().toString());
+            }
+            assertTrue(Bean2Excel.getCacheStats().evictionCount() >= projections.size() - 2);
+            // functions writing to output streams were evicted along with their projection
+            long missCount = Bean2Excel.getCacheStats().missCount();
+            Bean2Excel.getWriteWorkbookFunc(WideClass.class, projections.get(0));
+            assertEquals(missCount + 1, Bean2Excel.getCacheStats().missCount());
+        }
+        finally {
+            Bean2Excel.setMaximumCacheSize(CreateSheetFuncCache.DEFAULT_MAXIMUM_SIZE);
+        }
+    }
+
+    @Test
+    void cellStylesAreReused() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            int initialStyleCount = workbook.getNumCellStyles();
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(BorderedClass.class).exec(
+                Stream.generate(() -> new BorderedClass("a", "b")).limit(100).toList(), workbook, "My sheet");
+
+            // general style, and the general style with a medium top border
+            assertEquals(initialStyleCount + 2, workbook.getNumCellStyles());
+            CellStyle cellStyle = sheet.getRow(1).getCell(0).getCellStyle();
+            assertEquals(BorderStyle.MEDIUM, cellStyle.getBorderTop());
+            assertEquals(BorderStyle.THIN, cellStyle.getBorderLeft());
+            for (int i = 1; i <= 100; i++) {
+                assertEquals(cellStyle.getIndex(), sheet.getRow(i).getCell(0).getCellStyle().getIndex());
+                assertEquals(cellStyle.getIndex(), sheet.getRow(i).getCell(1).getCellStyle().getIndex());
+            }
+        }
+    }
+
+    @Test
+    void streamSource() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(ClassA.class)
+                .exec(Stream.of(testData).limit(10), workbook, "My sheet");
+
+            assertEquals(10, sheet.getLastRowNum());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(testData[i].getColumn1(), sheet.getRow(i+1).getCell(3).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void streamingWorkbook() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SXSSFWorkbook streamingWorkbook = Bean2Excel.createStreamingWorkbook(10, true);
+        try {
+            Bean2Excel.getCreateSheetFunc(ClassA.class).exec(List.of(testData), streamingWorkbook, "My sheet");
+            Sheet styledSheet = Bean2Excel.getCreateSheetFunc(StyledClass.class)
+                .exec(List.of(new StyledClass("a"), new StyledClass("a much longer value")), streamingWorkbook, "Styled");
+            assertTrue(styledSheet.getColumnWidth(0) > 0);
+            streamingWorkbook.write(out);
+        }
+        finally {
+            streamingWorkbook.dispose();
+            streamingWorkbook.close();
+        }
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("My sheet");
+            assertEquals(TEST_DATA_COUNT, sheet.getLastRowNum());
+            assertEquals("column 4", sheet.getRow(0).getCell(0).getStringCellValue());
+            for (int i = 0; i < TEST_DATA_COUNT; i++) {
+                Row curRow = sheet.getRow(i+1);
+                ClassA curObject = testData[i];
+                // random strings may contain characters that are not valid in xml, so they aren't compared here
+                assertEquals(curObject.getColumn2(), curRow.getCell(2).getNumericCellValue(), 0.1);
+                assertEquals(curObject.isColumn3(), curRow.getCell(1).getBooleanCellValue());
+                assertEquals(curObject.getColumn4(), Double.toString(curRow.getCell(0).getNumericCellValue()));
+            }
+        }
+    }
+
+    @Test
+    void directWriter() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(ClassA.class).exec(List.of(testData), out, "My sheet");
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("My sheet");
+            assertEquals(TEST_DATA_COUNT, sheet.getLastRowNum());
+            assertEquals("column 4", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("column 1", sheet.getRow(0).getCell(3).getStringCellValue());
+            for (int i = 0; i < TEST_DATA_COUNT; i++) {
+                Row curRow = sheet.getRow(i+1);
+                ClassA curObject = testData[i];
+                // invalid xml characters are replaced by '?'
+                assertEquals(curObject.getColumn1().length(), curRow.getCell(3).getStringCellValue().length());
+                assertEquals(curObject.getColumn2(), curRow.getCell(2).getNumericCellValue());
+                assertEquals(curObject.isColumn3(), curRow.getCell(1).getBooleanCellValue());
+                assertEquals(curObject.getColumn4(), Double.toString(curRow.getCell(0).getNumericCellValue()));
+            }
+        }
+    }
+
+    @Test
+    void directWriterStyles() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(BorderedClass.class).exec(
+            Stream.generate(() -> new BorderedClass(" a ", null)).limit(10), out, "My sheet");
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("My sheet");
+            assertEquals(10, sheet.getLastRowNum());
+            Cell cell = sheet.getRow(1).getCell(0);
+            assertEquals(" a ", cell.getStringCellValue());
+            assertEquals(BorderStyle.MEDIUM, cell.getCellStyle().getBorderTop());
+            assertEquals(BorderStyle.THIN, cell.getCellStyle().getBorderLeft());
+            // blank cells keep the style of their column
+            Cell blankCell = sheet.getRow(10).getCell(1);
+            assertEquals(CellType.BLANK, blankCell.getCellType());
+            assertEquals(BorderStyle.MEDIUM, blankCell.getCellStyle().getBorderTop());
+        }
+    }
+
+    @Test
+    void splitSheets() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            List<Sheet> sheets = Bean2Excel.getCreateSheetFunc(ClassA.class)
+                .execSplit(Arrays.asList(testData).subList(0, 10), workbook, "My sheet", 3);
+            assertEquals(4, sheets.size());
+            assertEquals(List.of("My sheet", "My sheet_2", "My sheet_3", "My sheet_4"),
+                sheets.stream().map(Sheet::getSheetName).toList());
+            assertEquals(3, sheets.get(0).getLastRowNum());
+            assertEquals(1, sheets.get(3).getLastRowNum());
+            assertEquals(testData[9].getColumn2(), sheets.get(3).getRow(1).getCell(2).getNumericCellValue());
+
+            List<Sheet> emptySheets = Bean2Excel.getCreateSheetFunc(ClassA.class)
+                .execSplit(List.of(), workbook, "Empty", 0);
+            assertEquals(1, emptySheets.size());
+            assertEquals(0, emptySheets.get(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    void multiSheetWorkbook() throws Exception {
+        for (int parallelism : new int[] { 1, 3 }) {
+            ExportOptions options = ExportOptions.builder().parallelism(parallelism).maxRowsPerSheet(400).build();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Bean2Excel.writeWorkbook(out, List.of(
+                SheetSource.of(ClassA.class, "A rather long name of a sheet", List.of(testData)),
+                SheetSource.of(BorderedClass.class, "Bordered",
+                    Stream.generate(() -> new BorderedClass("a", "b")).limit(5)),
+                SheetSource.of(StyledClass.class, "Styled", List.of(new StyledClass("a much longer value")))
+            ), options);
+
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                assertEquals(5, workbook.getNumberOfSheets());
+                assertEquals("A rather long name of a sheet", workbook.getSheetName(0));
+                assertEquals("A rather long name of a sheet_2", workbook.getSheetName(1));
+                assertEquals("A rather long name of a sheet_3", workbook.getSheetName(2));
+                assertEquals("Bordered", workbook.getSheetName(3));
+                assertEquals(400, workbook.getSheetAt(0).getLastRowNum());
+                assertEquals(200, workbook.getSheetAt(2).getLastRowNum());
+                Row lastRow = workbook.getSheetAt(2).getRow(200);
+                assertEquals(testData[TEST_DATA_COUNT - 1].getColumn2(), lastRow.getCell(2).getNumericCellValue());
+
+                Cell borderedCell = workbook.getSheet("Bordered").getRow(5).getCell(1);
+                assertEquals("b", borderedCell.getStringCellValue());
+                assertEquals(BorderStyle.MEDIUM, borderedCell.getCellStyle().getBorderTop());
+                assertTrue(workbook.getSheet("Styled").getColumnWidth(0) > workbook.getSheet("Bordered").getColumnWidth(0));
+            }
+        }
+    }
+
+    @Test
+    void streamedSheetSizeLimit() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.writeWorkbook(out, List.of(SheetSource.of(ClassA.class, "My sheet", List.of(testData))),
+            ExportOptions.DEFAULT, new ExportProgress(null, Integer.MAX_VALUE), 20000);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertTrue(workbook.getNumberOfSheets() > 1, "sheets: " + workbook.getNumberOfSheets());
+            assertEquals("My sheet_2", workbook.getSheetName(1));
+            int rowCount = 0;
+            for (Sheet sheet : workbook) {
+                rowCount += sheet.getLastRowNum();
+            }
+            assertEquals(TEST_DATA_COUNT, rowCount);
+            Sheet lastSheet = workbook.getSheetAt(workbook.getNumberOfSheets() - 1);
+            assertEquals(testData[TEST_DATA_COUNT - 1].getColumn2(),
+                lastSheet.getRow(lastSheet.getLastRowNum()).getCell(2).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void metrics() throws Exception {
+        List<SheetMetrics> sheetMetrics = Collections.synchronizedList(new ArrayList<>());
+        ExportMetrics metrics = new ExportMetrics() {
+            @Override
+            public int sampleInterval() {
+                return 10;
+            }
+
+            @Override
+            public void sheetCreated(@NotNull SheetMetrics metrics) {
+                sheetMetrics.add(metrics);
+            }
+        };
+        for (int parallelism : new int[] { 1, 2 }) {
+            ExportOptions options = ExportOptions.builder().parallelism(parallelism).chunkSize(100).metrics(metrics).build();
+            try (Workbook workbook = new XSSFWorkbook()) {
+                Sheet sheet = Bean2Excel.getCreateSheetFunc(TypedClass.class, options).exec(
+                    Stream.generate(() -> new TypedClass("abc", "x", null, 1)).limit(100), workbook, "Typed");
+                // sampled rows are written like other rows
+                for (int row = 1; row <= 100; row++) {
+                    assertEquals(3, sheet.getRow(row).getCell(0).getNumericCellValue());
+                }
+            }
+        }
+
+        assertEquals(2, sheetMetrics.size());
+        for (SheetMetrics sheet : sheetMetrics) {
+            assertEquals(TypedClass.class, sheet.type());
+            assertEquals(100, sheet.rowCount());
+            assertTrue(sheet.elapsedNanos() > 0);
+            // getters are also timed when rows are converted in parallel
+            assertTrue(sheet.getterNanos() > 0);
+            assertTrue(sheet.converterNanos() > 0);
+            assertTrue(sheet.cellWriteNanos() > 0);
+            assertTrue(sheet.styleNanos() > 0);
+            assertTrue(sheet.rowsPerSecond() > 0);
+        }
+
+        ExportOptions options = ExportOptions.builder().metrics(metrics).build();
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Bean2Excel.getCreateSheetFunc(BorderedClass.class, options).exec(List.of(new BorderedClass("a", "b")), workbook, "1");
+            Bean2Excel.getCreateSheetFunc(BorderedClass.class, options).exec(List.of(new BorderedClass("a", "b")), workbook, "2");
+        }
+        assertTrue(sheetMetrics.get(2).stylesCreated() > 0);
+        // styles are shared by the sheets of a workbook
+        assertEquals(0, sheetMetrics.get(3).stylesCreated());
+    }
+
+    @Test
+    void workbookStylesBeyondShortIndices() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            // styles created by the export get indices above Short.MAX_VALUE
+            while (workbook.getNumCellStyles() <= Short.MAX_VALUE + 1) {
+                workbook.createCellStyle();
+            }
+            Sheet first = Bean2Excel.getCreateSheetFunc(BorderedClass.class)
+                .exec(List.of(new BorderedClass("a", "b")), workbook, "First");
+            Sheet second = Bean2Excel.getCreateSheetFunc(BorderedClass.class)
+                .exec(List.of(new BorderedClass("a", "b")), workbook, "Second");
+
+            assertTrue(Bean2Excel.getStyleStats(workbook).hitCount() > 0);
+            CellStyle cellStyle = second.getRow(1).getCell(1).getCellStyle();
+            assertTrue(Short.toUnsignedInt(cellStyle.getIndex()) > Short.MAX_VALUE);
+            assertEquals(first.getRow(1).getCell(1).getCellStyle().getIndex(), cellStyle.getIndex());
+            assertEquals(BorderStyle.MEDIUM, cellStyle.getBorderTop());
+            assertEquals(first.getRow(0).getCell(0).getCellStyle().getIndex(),
+                second.getRow(0).getCell(0).getCellStyle().getIndex());
+        }
+    }
+
+    @Test
+    void workbookStyles() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook(); Workbook otherWorkbook = new XSSFWorkbook()) {
+            Bean2Excel.getCreateSheetFunc(BorderedClass.class).exec(List.of(new BorderedClass("a", "b")), workbook, "0");
+            int styleCount = workbook.getNumCellStyles();
+            for (int i = 1; i < 20; i++) {
+                Bean2Excel.getCreateSheetFunc(BorderedClass.class).exec(List.of(new BorderedClass("a", "b")), workbook, "" + i);
+            }
+            assertEquals(styleCount, workbook.getNumCellStyles());
+            assertEquals(
+                workbook.getSheet("0").getRow(1).getCell(1).getCellStyle().getIndex(),
+                workbook.getSheet("19").getRow(1).getCell(1).getCellStyle().getIndex()
+            );
+
+            StyleStats stats = Bean2Excel.getStyleStats(workbook);
+            assertEquals(1, stats.generalStyleCount());
+            assertTrue(stats.resolvedStyleCount() > 0);
+            assertTrue(stats.hitCount() >= 19);
+            assertEquals(new StyleStats(0, 0, 0, 0), Bean2Excel.getStyleStats(otherWorkbook));
+        }
+    }
+
+    @Test
+    void conditionalStyles() throws Exception {
+        List<ConditionalClass> objects = List.of(
+            new ConditionalClass(-1, "late", "x"),
+            new ConditionalClass(50, "on time", "y"),
+            new ConditionalClass(100, "URGENT", null),
+            new ConditionalClass(-5, "cancelled", "x")
+        );
+        ByteArrayOutputStream directOut = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(ConditionalClass.class).exec(objects, directOut, "Conditional");
+
+        for (int parallelism : new int[] { 0, 1, 2 }) {
+            try (Workbook workbook = parallelism == 0
+                ? new XSSFWorkbook(new ByteArrayInputStream(directOut.toByteArray()))
+                : new XSSFWorkbook()
+            ) {
+                Sheet sheet = parallelism == 0
+                    ? workbook.getSheetAt(0)
+                    : Bean2Excel.getCreateSheetFunc(ConditionalClass.class,
+                        ExportOptions.builder().parallelism(parallelism).chunkSize(1).build()
+                    ).exec(objects, workbook, "Conditional");
+
+                assertEquals(BorderStyle.THICK, sheet.getRow(1).getCell(0).getCellStyle().getBorderBottom());
+                assertEquals(BorderStyle.NONE, sheet.getRow(2).getCell(0).getCellStyle().getBorderBottom());
+                assertEquals(BorderStyle.NONE, sheet.getRow(2).getCell(0).getCellStyle().getBorderTop());
+                assertEquals(BorderStyle.MEDIUM, sheet.getRow(3).getCell(0).getCellStyle().getBorderTop());
+                // cells matching the same rule share their style
+                assertEquals(sheet.getRow(1).getCell(0).getCellStyle(), sheet.getRow(4).getCell(0).getCellStyle());
+
+                assertEquals(BorderStyle.THICK, sheet.getRow(1).getCell(1).getCellStyle().getBorderBottom());
+                assertEquals(BorderStyle.NONE, sheet.getRow(2).getCell(1).getCellStyle().getBorderBottom());
+                assertEquals(BorderStyle.MEDIUM, sheet.getRow(3).getCell(1).getCellStyle().getBorderTop());
+                assertEquals(BorderStyle.THICK, sheet.getRow(4).getCell(1).getCellStyle().getBorderBottom());
+
+                if (parallelism > 0) {
+                    // providers see the value of the cell
+                    assertEquals(BorderStyle.THICK, sheet.getRow(1).getCell(2).getCellStyle().getBorderBottom());
+                    assertEquals(BorderStyle.NONE, sheet.getRow(2).getCell(2).getCellStyle().getBorderBottom());
+                }
+            }
+        }
+    }
+
+    @Test
+    void columnProjection() throws Exception {
+        List<WideClass> objects = List.of(new WideClass(1, "a", "s"), new WideClass(2, "b", "s"));
+        ColumnProjection projection = ColumnProjection.include("name", "id");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(WideClass.class, ExportOptions.builder().projection(projection).build())
+                .exec(objects, workbook, "Included");
+            assertEquals(2, sheet.getRow(0).getLastCellNum());
+            assertEquals("name", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("b", sheet.getRow(2).getCell(0).getStringCellValue());
+            assertEquals(2, sheet.getRow(2).getCell(1).getNumericCellValue());
+
+            Sheet excluded = Bean2Excel.getCreateSheetFunc(WideClass.class,
+                ExportOptions.builder().projection(ColumnProjection.exclude("secret")).build()
+            ).exec(objects, workbook, "Excluded");
+            assertEquals("id", excluded.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("name", excluded.getRow(0).getCell(1).getStringCellValue());
+            assertNull(excluded.getRow(0).getCell(2));
+
+            Sheet reordered = Bean2Excel.getCreateSheetFunc(ClassA.class,
+                ExportOptions.builder().projection(ColumnProjection.reorder("column 2")).build()
+            ).exec(List.of(testData), workbook, "Reordered");
+            assertEquals("column 2", reordered.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("column 4", reordered.getRow(0).getCell(1).getStringCellValue());
+            assertEquals(testData[0].getColumn2(), reordered.getRow(1).getCell(0).getNumericCellValue());
+        }
+        // each projection is its own function
+        Bean2Excel.getCreateSheetFunc(WideClass.class, ExportOptions.builder().projection(projection).build());
+        long missCount = Bean2Excel.getCacheStats().missCount();
+        Bean2Excel.getCreateSheetFunc(WideClass.class,
+            ExportOptions.builder().projection(ColumnProjection.include("name", "id")).build());
+        assertEquals(missCount, Bean2Excel.getCacheStats().missCount());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(WideClass.class, projection).exec(objects, out, "Direct");
+        ByteArrayOutputStream multiOut = new ByteArrayOutputStream();
+        Bean2Excel.writeWorkbook(multiOut, List.of(
+            SheetSource.of(WideClass.class, "Projected", objects).withProjection(ColumnProjection.include("id")),
+            SheetSource.of(WideClass.class, "Other", objects).withProjection(projection)
+        ), ExportOptions.DEFAULT);
+        try (Workbook direct = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+             Workbook multi = new XSSFWorkbook(new ByteArrayInputStream(multiOut.toByteArray()))
+        ) {
+            assertEquals("a", direct.getSheetAt(0).getRow(1).getCell(0).getStringCellValue());
+            assertEquals(2, direct.getSheetAt(0).getRow(1).getLastCellNum());
+            assertEquals(1, multi.getSheet("Projected").getRow(1).getLastCellNum());
+            assertEquals("b", multi.getSheet("Other").getRow(2).getCell(0).getStringCellValue());
+        }
+
+        assertThrows(Bean2ExcelException.class, () -> Bean2Excel.getCreateSheetFunc(WideClass.class,
+            ExportOptions.builder().projection(ColumnProjection.include("unknown")).build()));
+        assertThrows(Bean2ExcelException.class, () -> ColumnProjection.include("id", "id"));
+    }
+
+    @Test
+    void nestedBeans() throws Exception {
+        List<Order> orders = List.of(
+            new Order(1, new Address("Paris", 3), List.of(new OrderLine("pen", 2), new OrderLine("ink", 1))),
+            new Order(2, null, List.of()),
+            new Order(3, new Address("Lyon", 0), null),
+            new Order(4, null, List.of(new OrderLine("paper", 5)))
+        );
+        List<String> header = List.of("id", "shipping city", "shipping floor", "product", "quantity");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            for (int parallelism : new int[] {1, 2}) {
+                Sheet sheet = Bean2Excel.getCreateSheetFunc(Order.class,
+                    ExportOptions.builder().parallelism(parallelism).chunkSize(2).build()
+                ).exec(orders, workbook, "Orders " + parallelism);
+                assertOrderRows(sheet, header);
+            }
+            List<Sheet> split = Bean2Excel.getCreateSheetFunc(Order.class)
+                .execSplit(orders, workbook, "Split", 3);
+            assertEquals(2, split.size());
+            assertEquals("paper", split.get(1).getRow(2).getCell(3).getStringCellValue());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(Order.class).exec(orders, out, "Direct");
+        ByteArrayOutputStream parallelOut = new ByteArrayOutputStream();
+        Bean2Excel.writeWorkbook(parallelOut, List.of(
+            SheetSource.of(Order.class, "First", orders),
+            SheetSource.of(Order.class, "Second", orders)
+        ), ExportOptions.builder().parallelism(2).build());
+        try (Workbook direct = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+             Workbook parallel = new XSSFWorkbook(new ByteArrayInputStream(parallelOut.toByteArray()))
+        ) {
+            assertOrderRows(direct.getSheetAt(0), header);
+            assertOrderRows(parallel.getSheet("Second"), header);
+        }
+
+        assertThrows(Bean2ExcelException.class, () -> Bean2Excel.getCreateSheetFunc(Node.class));
+    }
+
+    private static void assertOrderRows(Sheet sheet, List<String> header) {
+        for (int i = 0; i < header.size(); i++) {
+            assertEquals(header.get(i), sheet.getRow(0).getCell(i).getStringCellValue());
+        }
+        // an order per line, orders without lines on a single row
+        assertEquals(5, sheet.getLastRowNum());
+        assertEquals(1, sheet.getRow(2).getCell(0).getNumericCellValue());
+        assertEquals("Paris", sheet.getRow(2).getCell(1).getStringCellValue());
+        assertEquals(3, sheet.getRow(2).getCell(2).getNumericCellValue());
+        assertEquals("ink", sheet.getRow(2).getCell(3).getStringCellValue());
+        assertEquals(CellType.BLANK, sheet.getRow(3).getCell(1, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK).getCellType());
+        assertEquals(CellType.BLANK, sheet.getRow(3).getCell(2, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK).getCellType());
+        assertEquals(CellType.BLANK, sheet.getRow(3).getCell(3, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK).getCellType());
+        assertEquals("Lyon", sheet.getRow(4).getCell(1).getStringCellValue());
+        assertEquals(CellType.BLANK, sheet.getRow(4).getCell(4, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK).getCellType());
+        assertEquals(4, sheet.getRow(5).getCell(0).getNumericCellValue());
+        assertEquals(5, sheet.getRow(5).getCell(4).getNumericCellValue());
+    }
+
+    @Test
+    void accessorsWithoutGetters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(PointRecord.class).exec(List.of(new PointRecord(1.5, "a")), out, "Records");
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(1.5, workbook.getSheetAt(0).getRow(1).getCell(0).getNumericCellValue());
+            assertEquals("a", workbook.getSheetAt(0).getRow(1).getCell(1).getStringCellValue());
+
+            // an accessor named after the field, and fields read directly
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(Fluent.class)
+                .exec(List.of(new Fluent("b", true, 4)), workbook, "Fields");
+            assertEquals("b", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertTrue(sheet.getRow(1).getCell(1).getBooleanCellValue());
+            assertEquals(4, sheet.getRow(1).getCell(2).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void sheetAppender() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Bean2Excel.SheetAppender<WideClass> appender =
+                Bean2Excel.getSheetAppender(WideClass.class, workbook, "Appended", ExportOptions.builder()
+                    .projection(ColumnProjection.exclude("secret")).build());
+            assertEquals(2, appender.append(List.of(new WideClass(1, "a", "s"), new WideClass(2, "b", "s"))));
+            SheetCheckpoint checkpoint = appender.checkpoint();
+            assertEquals(2, checkpoint.rowCount());
+
+            // a batch failing halfway
+            Iterator<WideClass> failing = Stream.iterate(3, i -> i + 1)
+                .map(i -> {
+                    if (i == 5) {
+                        throw new IllegalStateException("broken batch");
+                    }
+                    return new WideClass(i, "c", "s");
+                })
+                .iterator();
+            assertThrows(IllegalStateException.class, () -> appender.append(failing));
+
+            Bean2Excel.SheetAppender<WideClass> resumed = Bean2Excel.getSheetAppender(
+                WideClass.class, workbook, checkpoint, ExportOptions.builder().projection(ColumnProjection.exclude("secret")).build());
+            assertEquals(1, resumed.append(Stream.of(new WideClass(3, "d", "s"))));
+            assertEquals(4, resumed.checkpoint().nextRowIndex());
+
+            // continued after the last row, the header is written once
+            Bean2Excel.SheetAppender<WideClass> reopened = Bean2Excel.getSheetAppender(
+                WideClass.class, workbook, "Appended", ExportOptions.builder().projection(ColumnProjection.exclude("secret")).build());
+            reopened.append(List.of(new WideClass(4, "e", "s")));
+
+            Sheet sheet = workbook.getSheet("Appended");
+            assertEquals(4, sheet.getLastRowNum());
+            assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+            for (int row = 1; row <= 4; row++) {
+                assertEquals(row, sheet.getRow(row).getCell(0).getNumericCellValue());
+            }
+            assertEquals("d", sheet.getRow(3).getCell(1).getStringCellValue());
+        }
+        assertThrows(Bean2ExcelException.class, () -> new SheetCheckpoint("Appended", 0));
+    }
+
+    @Test
+    void typedValues() throws Exception {
+        TypedValues values = new TypedValues(
+            LocalDate.of(2024, 2, 29),
+            LocalDateTime.of(2024, 3, 1, 13, 30),
+            new BigDecimal("1234567.891"),
+            new BigDecimal("12345678901234567890.123"),
+            Level.HIGH,
+            1234567890123456789L
+        );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(TypedValues.class).exec(List.of(values, values), out, "Direct");
+        try (Workbook workbook = new XSSFWorkbook(); Workbook direct = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Bean2Excel.getCreateSheetFunc(TypedValues.class).exec(List.of(values, values), workbook, "Typed");
+            int styleCount = workbook.getNumCellStyles();
+            Bean2Excel.getCreateSheetFunc(TypedValues.class, ExportOptions.builder().parallelism(2).build())
+                .exec(List.of(values, values), workbook, "Parallel");
+            // formats are resolved once per column
+            assertEquals(styleCount, workbook.getNumCellStyles());
+
+            for (Sheet sheet : List.of(workbook.getSheet("Typed"), workbook.getSheet("Parallel"), direct.getSheetAt(0))) {
+                Row row = sheet.getRow(2);
+                assertEquals(LocalDate.of(2024, 2, 29).atStartOfDay(), row.getCell(0).getLocalDateTimeCellValue());
+                assertEquals("yyyy-mm-dd", row.getCell(0).getCellStyle().getDataFormatString());
+                assertEquals(LocalDateTime.of(2024, 3, 1, 13, 30), row.getCell(1).getLocalDateTimeCellValue());
+                assertEquals("dd/mm/yyyy hh:mm", row.getCell(1).getCellStyle().getDataFormatString());
+                assertEquals(1234567.891, row.getCell(2).getNumericCellValue());
+                assertEquals("#,##0.00", row.getCell(2).getCellStyle().getDataFormatString());
+                assertEquals("12345678901234567890.123", row.getCell(3).getStringCellValue());
+                assertEquals("HIGH", row.getCell(4).getStringCellValue());
+                assertEquals("1234567890123456789", row.getCell(5).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void sharedStrings() throws Exception {
+        List<Ticket> tickets = IntStream.range(0, 100)
+            .mapToObj(i -> new Ticket("T-" + i, i % 3 == 0 ? "closed" : "open", i % 2 == 0 ? "north" : " south"))
+            .toList();
+        for (int parallelism : new int[] { 1, 2 }) {
+            ExportOptions options = ExportOptions.builder().parallelism(parallelism).sharedStringsLimit(3).build();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Bean2Excel.writeWorkbook(out, List.of(
+                SheetSource.of(Ticket.class, "Tickets", tickets),
+                SheetSource.of(Ticket.class, "Copy", tickets)
+            ), options);
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                // headers and values of status and region, the header and first two values of id
+                assertEquals(9, workbook.getSharedStringSource().getUniqueCount());
+                for (int sheetIndex = 0; sheetIndex < workbook.getNumberOfSheets(); sheetIndex++) {
+                    XSSFSheet sheet = workbook.getSheetAt(sheetIndex);
+                    for (int i = 0; i < tickets.size(); i++) {
+                        Row row = sheet.getRow(i + 1);
+                        assertEquals(tickets.get(i).id(), row.getCell(0).getStringCellValue());
+                        assertEquals(tickets.get(i).status(), row.getCell(1).getStringCellValue());
+                        assertEquals(tickets.get(i).region(), row.getCell(2).getStringCellValue());
+                    }
+                    assertEquals(STCellType.S, sheet.getRow(1).getCell(0).getCTCell().getT());
+                    assertEquals(STCellType.INLINE_STR, sheet.getRow(99).getCell(0).getCTCell().getT());
+                    assertEquals(STCellType.S, sheet.getRow(99).getCell(1).getCTCell().getT());
+                }
+            }
+        }
+
+        // without a limit, only declared columns are shared
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(Ticket.class).exec(tickets.iterator(), out, "Tickets");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getSharedStringSource().getUniqueCount());
+            assertEquals(STCellType.INLINE_STR, workbook.getSheetAt(0).getRow(1).getCell(2).getCTCell().getT());
+        }
+        assertThrows(Bean2ExcelException.class, () -> ExportOptions.builder().sharedStringsLimit(-1).build());
+    }
+
+    @Test
+    void asyncExport() throws Exception {
+        Path file = Files.createTempFile("bean2Excel", ".xlsx");
+        try {
+            List<String> events = Collections.synchronizedList(new ArrayList<>());
+            ExportResult result = WorkbookExport.builder()
+                .sheet(SheetSource.of(ClassA.class, "My sheet", List.of(testData)))
+                .options(ExportOptions.builder().maxRowsPerSheet(600).build())
+                .progressListener(new ExportProgressListener() {
+                    @Override
+                    public void rowsWritten(@NotNull String sheetName, long sheetRowCount, long totalRowCount) {
+                        events.add(sheetName + " " + sheetRowCount + " " + totalRowCount);
+                    }
+
+                    @Override
+                    public void sheetFinished(@NotNull String sheetName, long sheetRowCount) {
+                        events.add(sheetName + " finished " + sheetRowCount);
+                    }
+                })
+                .progressInterval(250)
+                .build()
+                .writeToAsync(file)
+                .get();
+
+            assertEquals(new ExportResult(2, TEST_DATA_COUNT, Files.size(file)), result);
+            assertEquals(List.of(
+                "My sheet 250 250", "My sheet 500 500", "My sheet finished 600",
+                "My sheet_2 250 850", "My sheet_2 finished 400"
+            ), events);
+            try (Workbook workbook = new XSSFWorkbook(file.toFile())) {
+                assertEquals(400, workbook.getSheet("My sheet_2").getLastRowNum());
+            }
+
+            // channels are written through a buffer
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                result = WorkbookExport.builder()
+                    .sheet(SheetSource.of(BorderedClass.class, "Bordered", List.of(new BorderedClass("a", "b"))))
+                    .build()
+                    .writeTo(channel);
+            }
+            assertEquals(new ExportResult(1, 1, Files.size(file)), result);
+            try (Workbook workbook = new XSSFWorkbook(file.toFile())) {
+                assertEquals("b", workbook.getSheet("Bordered").getRow(1).getCell(1).getStringCellValue());
+            }
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void asyncExportOnBoundedExecutor() throws Exception {
+        // the export waits for its sheets, so it must not take the only thread writing them
+        ExecutorService sheetExecutor = Executors.newFixedThreadPool(1);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ExportResult result = WorkbookExport.builder()
+                .sheet(SheetSource.of(ClassA.class, "First", List.of(testData)))
+                .sheet(SheetSource.of(ClassA.class, "Second", List.of(testData)))
+                .options(ExportOptions.builder().parallelism(2).executor(sheetExecutor).build())
+                .build()
+                .writeToAsync(out)
+                .get(30, TimeUnit.SECONDS);
+            assertEquals(new ExportResult(2, 2L * TEST_DATA_COUNT, out.size()), result);
+        }
+        finally {
+            sheetExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void exportService() throws Exception {
+        CountDownLatch rowsAvailable = new CountDownLatch(1);
+        Supplier<WorkbookExport> blockedExport = () -> WorkbookExport.builder()
+            .sheet(SheetSource.of(BorderedClass.class, "Bordered", Stream.generate(() -> {
+                try {
+                    rowsAvailable.await();
+                }
+                catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return new BorderedClass("a", "b");
+            }).limit(3)))
+            .build();
+
+        try (ExportService service = ExportService.builder().maxConcurrentSheets(2).maxQueuedExports(2).build()) {
+            List<CompletableFuture<ExportResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(service.submit(blockedExport.get(), OutputStream.nullOutputStream()));
+            }
+            assertEquals(2, service.runningExports());
+            assertEquals(2, service.queuedExports());
+            CompletableFuture<ExportResult> rejected = service.submit(blockedExport.get(), OutputStream.nullOutputStream());
+            ExecutionException queueFull = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(Bean2ExcelException.class, queueFull.getCause());
+
+            rowsAvailable.countDown();
+            for (CompletableFuture<ExportResult> result : results) {
+                assertEquals(3, result.get().rowCount());
+            }
+
+            // a failing export only fails its own future
+            CompletableFuture<ExportResult> failed = service.submit(WorkbookExport.builder()
+                .sheet(SheetSource.of(BorderedClass.class, "Failing", Stream.<BorderedClass>generate(() -> {
+                    throw new IllegalStateException("source failed");
+                })))
+                .build(), OutputStream.nullOutputStream());
+            CompletableFuture<ExportResult> succeeded = service.submit(
+                blockedExport.get(), OutputStream.nullOutputStream());
+            assertThrows(ExecutionException.class, failed::get);
+            assertEquals(3, succeeded.get().rowCount());
+        }
+
+        ExportService closedService = ExportService.builder().build();
+        closedService.close();
+        ExecutionException closed = assertThrows(ExecutionException.class,
+            () -> closedService.submit(blockedExport.get(), OutputStream.nullOutputStream()).get());
+        assertInstanceOf(Bean2ExcelException.class, closed.getCause());
+    }
+
+    @Test
+    void autoFitWidthIsEstimated() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(StyledClass.class).exec(
+                List.of(new StyledClass("a"), new StyledClass("a much longer value, with some MORE text")),
+                workbook, "My sheet");
+            int estimatedWidth = sheet.getColumnWidth(0);
+
+            sheet.autoSizeColumn(0);
+            assertEquals(sheet.getColumnWidth(0), estimatedWidth, sheet.getColumnWidth(0) * 0.2);
+        }
+    }
+
+    @Test
+    void autoFitSampleRows() throws Exception {
+        ExportOptions options = ExportOptions.builder().autoFitSampleRows(1).build();
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(StyledClass.class, options).exec(
+                List.of(new StyledClass("a"), new StyledClass("a much longer value, with some MORE text")),
+                workbook, "My sheet");
+            Sheet allRowsSheet = Bean2Excel.getCreateSheetFunc(StyledClass.class).exec(
+                List.of(new StyledClass("a"), new StyledClass("a much longer value, with some MORE text")),
+                workbook, "All rows");
+
+            assertTrue(sheet.getColumnWidth(0) < allRowsSheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    void autoFitFormattedValues() throws Exception {
+        List<FormattedValues> values = List.of(
+            new FormattedValues(LocalDateTime.of(2024, 3, 1, 13, 30), new BigDecimal("1234567890")),
+            new FormattedValues(LocalDateTime.of(2024, 3, 2, 8, 0), new BigDecimal("12.5"))
+        );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(FormattedValues.class).exec(values, out, "Formatted");
+
+        try (Workbook workbook = new XSSFWorkbook();
+             Workbook directWorkbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(FormattedValues.class).exec(values, workbook, "Formatted");
+            Sheet directSheet = directWorkbook.getSheet("Formatted");
+            for (int column = 0; column < 2; column++) {
+                int estimatedWidth = sheet.getColumnWidth(column);
+                assertEquals(estimatedWidth, directSheet.getColumnWidth(column), 1);
+
+                // "2024-03-01 13:30:00" and "1,234,567,890.00"
+                sheet.autoSizeColumn(column);
+                assertEquals(sheet.getColumnWidth(column), estimatedWidth, sheet.getColumnWidth(column) * 0.2);
+            }
+        }
+    }
+
+    @Test
+    void directWriterAutoFit() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(StyledClass.class).exec(
+            List.of(new StyledClass("a"), new StyledClass("a much longer value, with some MORE text")),
+            out, "My sheet");
+
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(StyledClass.class).exec(
+                List.of(new StyledClass("a"), new StyledClass("a much longer value, with some MORE text")),
+                workbook, "My sheet");
+            try (Workbook directWorkbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                Sheet directSheet = directWorkbook.getSheet("My sheet");
+                assertEquals(sheet.getColumnWidth(0), directSheet.getColumnWidth(0), 1);
+                assertEquals("a", directSheet.getRow(1).getCell(0).getStringCellValue());
+            }
+        }
+
+        // the sample rows of the options apply too
+        for (int parallelism : new int[] { 1, 2 }) {
+            out.reset();
+            Bean2Excel.writeWorkbook(out, List.of(SheetSource.of(StyledClass.class, "My sheet",
+                List.of(new StyledClass("a"), new StyledClass("a much longer value, with some MORE text")))),
+                ExportOptions.builder().autoFitSampleRows(1).parallelism(parallelism).build());
+            try (Workbook directWorkbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                Sheet directSheet = directWorkbook.getSheet("My sheet");
+                // the header is wider than "a"
+                assertTrue(directSheet.getColumnWidth(0) < 10 * 256, String.valueOf(directSheet.getColumnWidth(0)));
+                assertEquals("a much longer value, with some MORE text",
+                    directSheet.getRow(2).getCell(0).getStringCellValue());
+            }
+        }
+
+        // rows after the measured ones are written straight away
+        out.reset();
+        Bean2Excel.getWriteWorkbookFunc(StyledClass.class).exec(
+            Stream.generate(() -> new StyledClass("a")).limit(1500), out, "My sheet");
+        try (Workbook directWorkbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet directSheet = directWorkbook.getSheet("My sheet");
+            assertEquals(1500, directSheet.getLastRowNum());
+            assertEquals("a", directSheet.getRow(1500).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    void typedConverters() throws Exception {
+        List<TypedClass> typedData = List.of(
+            new TypedClass("abc", "", BorderStyle.THIN, 7),
+            new TypedClass(null, null, null, null)
+        );
+        ExportOptions parallel = ExportOptions.builder().parallelism(2).chunkSize(1).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Bean2Excel.getWriteWorkbookFunc(TypedClass.class).exec(typedData, out, "Direct");
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Bean2Excel.getCreateSheetFunc(TypedClass.class).exec(typedData, workbook, "Sequential");
+            Bean2Excel.getCreateSheetFunc(TypedClass.class, parallel).exec(typedData, workbook, "Parallel");
+
+            for (Sheet sheet : workbook) {
+                Row row = sheet.getRow(1);
+                assertEquals(3, row.getCell(0).getNumericCellValue(), sheet.getSheetName());
+                assertFalse(row.getCell(1).getBooleanCellValue(), sheet.getSheetName());
+                assertEquals("THIN", row.getCell(2).getStringCellValue(), sheet.getSheetName());
+                assertEquals(7, row.getCell(3).getNumericCellValue(), sheet.getSheetName());
+
+                Row nullRow = sheet.getRow(2);
+                for (int column = 0; column < 4; column++) {
+                    Cell cell = nullRow.getCell(column);
+                    assertTrue(cell == null || cell.getCellType() == CellType.BLANK, sheet.getSheetName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void compiledCellWriters() throws Exception {
+        List<PrimitiveClass> data = List.of(
+            new PrimitiveClass(7, 2.5, true, 8, 3.5, false, "abc"),
+            new PrimitiveClass(0, 0, false, null, null, null, null)
+        );
+        Map<String, String> calls = new HashMap<>();
+        try (XSSFWorkbook target = new XSSFWorkbook()) {
+            Sheet sheet = Bean2Excel.getCreateSheetFunc(PrimitiveClass.class)
+                .exec(data, recording(target, Workbook.class, calls), "Primitives");
+
+            // primitive columns are written without boxing, through the double and boolean overloads
+            assertEquals("setCellValue(double)", calls.get("A2"));
+            assertEquals("setCellValue(double)", calls.get("B2"));
+            assertEquals("setCellValue(boolean)", calls.get("C2"));
+            assertEquals("setCellValue(double)", calls.get("D2"));
+            assertEquals("setCellValue(double)", calls.get("E2"));
+            assertEquals("setCellValue(boolean)", calls.get("F2"));
+            // the identity converter of the string column is skipped, the value is written as it is
+            assertEquals("setCellValue(String)", calls.get("G2"));
+            // null wrapper and string values give blank cells
+            for (String reference : List.of("D3", "E3", "F3", "G3")) {
+                assertEquals("setBlank()", calls.get(reference), reference);
+            }
+
+            Row row = sheet.getRow(1);
+            assertEquals(7, row.getCell(0).getNumericCellValue());
+            assertEquals(2.5, row.getCell(1).getNumericCellValue());
+            assertTrue(row.getCell(2).getBooleanCellValue());
+            assertEquals(8, row.getCell(3).getNumericCellValue());
+            assertEquals(3.5, row.getCell(4).getNumericCellValue());
+            assertFalse(row.getCell(5).getBooleanCellValue());
+            assertEquals("abc", row.getCell(6).getStringCellValue());
+
+            Row nullRow = sheet.getRow(2);
+            assertEquals(0, nullRow.getCell(0).getNumericCellValue());
+            assertFalse(nullRow.getCell(2).getBooleanCellValue());
+            for (int column = 3; column < 7; column++) {
+                assertEquals(CellType.BLANK, nullRow.getCell(column).getCellType());
+            }
+        }
+    }
+
+    /**
+     * Wrap a workbook, or one of its sheets, rows or cells, so that the method setting the value of each created cell
+     * is recorded by cell reference, e.g. {@code "A2" -> "setCellValue(double)"}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T recording(T target, Class<T> type, Map<String, String> calls) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (target instanceof Cell cell
+                && (method.getName().equals("setCellValue") || method.getName().equals("setBlank"))) {
+                String parameters = Arrays.stream(method.getParameterTypes())
+                    .map(Class::getSimpleName)
+                    .collect(Collectors.joining(", "));
+                calls.put(cell.getAddress().formatAsString(), method.getName() + "(" + parameters + ")");
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return switch (method.getName()) {
+                case "createSheet" -> recording((Sheet) result, Sheet.class, calls);
+                case "createRow" -> recording((Row) result, Row.class, calls);
+                case "createCell" -> recording((Cell) result, Cell.class, calls);
+                default -> result;
+            };
+        });
+    }
+
     private static String getRandomString(int length, Random randomGen) {
         StringBuilder out = new StringBuilder(length);
         for (int i = 0; i < length; i++) {
@@ -36,6 +36,8 @@ import java.util.Optional;
 
 import static bean2Excel.BeanInfo.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
@@ -84,5 +86,59 @@ public class BeanInfoTest {
             .findAny();
         assertTrue(thirdFieldInfo.isPresent());
         assertEquals(true, thirdFieldInfo.get().getter().exec(objectA));
+        assertTrue(thirdFieldInfo.get().booleanGetter().test(objectA));
+        assertNull(thirdFieldInfo.get().doubleGetter());
+    }
+
+    @AllArgsConstructor
+    @Getter
+    public static class PrimitiveClass {
+        @ExcelColumn(columnName = "column 1", cellType = CellType.NUMERIC, order = 1)
+        private int column1;
+        @ExcelColumn(columnName = "column 2", cellType = CellType.NUMERIC, order = 2)
+        private double column2;
+    }
+
+    @Test
+    void primitiveGetters() {
+        PrimitiveClass object = new PrimitiveClass(7, 2.5);
+        ExcelObjectInfo excelObjectInfo = getExcelInfoFromBeans(PrimitiveClass.class);
+
+        FieldInfo first = excelObjectInfo.fieldInfoList().get(0);
+        assertEquals(7, first.getter().exec(object));
+        assertEquals(7.0, first.doubleGetter().applyAsDouble(object));
+        assertNull(first.booleanGetter());
+
+        FieldInfo second = excelObjectInfo.fieldInfoList().get(1);
+        assertEquals(2.5, second.getter().exec(object));
+        assertEquals(2.5, second.doubleGetter().applyAsDouble(object));
+    }
+
+    public static class CountingConverter implements ValueConverter {
+        private int count;
+
+        @Override
+        public Object convert(Object o) {
+            return o + "#" + ++count;
+        }
+    }
+
+    @Getter
+    public static class CountedClass {
+        @ExcelColumn(columnName = "column 1", cellType = CellType.STRING, valueConverter = CountingConverter.class)
+        private String column1;
+        @ExcelColumn(columnName = "column 2", cellType = CellType.STRING, order = 1,
+            valueConverter = CountingConverter.class)
+        private String column2;
+    }
+
+    @Test
+    void converterInstancePerDeclaration() {
+        ExcelObjectInfo excelObjectInfo = getExcelInfoFromBeans(CountedClass.class);
+        ValueConverter first = excelObjectInfo.fieldInfoList().get(0).columnInfo().valueConverter();
+        ValueConverter second = excelObjectInfo.fieldInfoList().get(1).columnInfo().valueConverter();
+        assertNotSame(first, second);
+        assertEquals("a#1", first.convert("a"));
+        assertEquals("b#1", second.convert("b"));
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Excel2BeanTest {
+
+    @Data
+    @NoArgsConstructor
+    public static class MutableA {
+        @ExcelColumn(columnName = "column 1", cellType = CellType.STRING, order = 100)
+        private String column1;
+        @ExcelColumn(columnName = "column 2", cellType = CellType.NUMERIC, order = 5)
+        private double column2;
+        @ExcelColumn(columnName = "column 3", cellType = CellType.BOOLEAN, order = 3)
+        private boolean column3;
+        @ExcelColumn(columnName = "column 4", cellType = CellType.NUMERIC, order = 1,
+            valueConverter = Bean2ExcelTest.String2DoubleConverter.class)
+        private String column4;
+    }
+
+    public record RecordA(
+        @ExcelColumn(columnName = "column 1", cellType = CellType.STRING)
+        String column1,
+        @ExcelColumn(columnName = "column 2", cellType = CellType.NUMERIC)
+        int column2,
+        @ExcelColumn(columnName = "column 3", cellType = CellType.BOOLEAN)
+        Boolean column3,
+        long unmapped
+    ) {}
+
+    public record YearlySales(
+        @ExcelColumn(columnName = "2023", cellType = CellType.NUMERIC) double sales2023,
+        @ExcelColumn(columnName = "2024", cellType = CellType.NUMERIC, order = 1) double sales2024
+    ) {}
+
+    public record SmallNumbers(
+        @ExcelColumn(columnName = "short", cellType = CellType.NUMERIC) short shortValue,
+        @ExcelColumn(columnName = "byte", cellType = CellType.NUMERIC) byte byteValue
+    ) {}
+
+    static final int TEST_DATA_COUNT = 1000;
+
+    static List<Bean2ExcelTest.ClassA> testData() {
+        return IntStream.range(0, TEST_DATA_COUNT)
+            .mapToObj(i -> new Bean2ExcelTest.ClassA("value " + i, i * 2.0, i % 2 == 0, Double.toString(i / 4.0)))
+            .toList();
+    }
+
+    static void write(Workbook workbook, Path file) throws Exception {
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            workbook.write(outputStream);
+        }
+    }
+
+    @Test
+    void happyDays(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        List<Bean2ExcelTest.ClassA> testData = testData();
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Bean2Excel.getCreateSheetFunc(Bean2ExcelTest.ClassA.class).exec(testData, workbook, "My sheet");
+            write(workbook, file);
+        }
+
+        List<MutableA> objects = Excel2Bean.getReadSheetFunc(MutableA.class).exec(file, "My sheet");
+
+        assertEquals(TEST_DATA_COUNT, objects.size());
+        for (int i = 0; i < TEST_DATA_COUNT; i++) {
+            Bean2ExcelTest.ClassA expected = testData.get(i);
+            MutableA actual = objects.get(i);
+            assertEquals(expected.getColumn1(), actual.getColumn1());
+            assertEquals(expected.getColumn2(), actual.getColumn2());
+            assertEquals(expected.isColumn3(), actual.isColumn3());
+            assertEquals(expected.getColumn4(), actual.getColumn4());
+        }
+    }
+
+    @Test
+    void records(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        // inline strings
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+            Bean2Excel.getCreateSheetFunc(Bean2ExcelTest.ClassA.class).exec(testData(), workbook, "My sheet");
+            write(workbook, file);
+            workbook.dispose();
+        }
+
+        List<RecordA> objects;
+        try (var inputStream = Files.newInputStream(file)) {
+            objects = new ArrayList<>();
+            Excel2Bean.getReadSheetFunc(RecordA.class).exec(inputStream, null, objects::add);
+        }
+
+        assertEquals(TEST_DATA_COUNT, objects.size());
+        assertEquals(new RecordA("value 2", 4, true, 0), objects.get(2));
+    }
+
+    @Test
+    void typedValues(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        Bean2ExcelTest.TypedValues values = new Bean2ExcelTest.TypedValues(
+            LocalDate.of(1999, 12, 31),
+            LocalDateTime.of(2000, 1, 1, 0, 0, 1),
+            new BigDecimal("0.1"),
+            new BigDecimal("-98765432109876543210.5"),
+            Bean2ExcelTest.Level.LOW,
+            Long.MAX_VALUE
+        );
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            Bean2Excel.getWriteWorkbookFunc(Bean2ExcelTest.TypedValues.class).exec(List.of(values), outputStream, "Typed");
+        }
+
+        List<Bean2ExcelTest.TypedValues> objects =
+            Excel2Bean.getReadSheetFunc(Bean2ExcelTest.TypedValues.class).exec(file, "Typed");
+        assertEquals(List.of(values), objects);
+    }
+
+    @Test
+    void invalidValue(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("My sheet");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("column 2");
+            header.createCell(1).setCellValue("column 1");
+            header.createCell(2).setCellValue("column 3");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(1.5);
+            row.createCell(1).setCellValue("a");
+            write(workbook, file);
+        }
+
+        Bean2ExcelException e = assertThrows(Bean2ExcelException.class,
+            () -> Excel2Bean.getReadSheetFunc(RecordA.class).exec(file, null));
+        assertTrue(e.getMessage().contains("A2"), e.getMessage());
+    }
+
+    @Test
+    void outOfRange(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        writeSmallNumbers(file, Short.MAX_VALUE, Byte.MIN_VALUE);
+        assertEquals(List.of(new SmallNumbers(Short.MAX_VALUE, Byte.MIN_VALUE)),
+            Excel2Bean.getReadSheetFunc(SmallNumbers.class).exec(file, null));
+
+        writeSmallNumbers(file, Short.MAX_VALUE + 1, 0);
+        Bean2ExcelException e = assertThrows(Bean2ExcelException.class,
+            () -> Excel2Bean.getReadSheetFunc(SmallNumbers.class).exec(file, null));
+        assertTrue(e.getMessage().contains("A2"), e.getMessage());
+
+        writeSmallNumbers(file, 0, Byte.MIN_VALUE - 1);
+        e = assertThrows(Bean2ExcelException.class,
+            () -> Excel2Bean.getReadSheetFunc(SmallNumbers.class).exec(file, null));
+        assertTrue(e.getMessage().contains("B2"), e.getMessage());
+    }
+
+    private static void writeSmallNumbers(Path file, int shortValue, int byteValue) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("My sheet");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("short");
+            header.createCell(1).setCellValue("byte");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(shortValue);
+            row.createCell(1).setCellValue(byteValue);
+            write(workbook, file);
+        }
+    }
+
+    @Test
+    void missingColumns(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("My sheet");
+            sheet.createRow(0).createCell(0).setCellValue("column 2");
+            sheet.createRow(1).createCell(0).setCellValue(1);
+            write(workbook, file);
+        }
+        Bean2ExcelException e = assertThrows(Bean2ExcelException.class,
+            () -> Excel2Bean.getReadSheetFunc(RecordA.class).exec(file, null));
+        assertTrue(e.getMessage().contains("\"column 1\", \"column 3\""), e.getMessage());
+
+        // an empty first row isn't a header
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("My sheet");
+            sheet.createRow(0);
+            sheet.createRow(1).createCell(0).setCellValue("column 1");
+            write(workbook, file);
+        }
+        e = assertThrows(Bean2ExcelException.class,
+            () -> Excel2Bean.getReadSheetFunc(RecordA.class).exec(file, null));
+        assertTrue(e.getMessage().contains("row 1"), e.getMessage());
+    }
+
+    @Test
+    void numericHeader(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("My sheet");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue(2023);
+            header.createCell(1).setCellValue("2024");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(1.5);
+            row.createCell(1).setCellValue(2.5);
+            write(workbook, file);
+        }
+
+        assertEquals(List.of(new YearlySales(1.5, 2.5)), Excel2Bean.getReadSheetFunc(YearlySales.class).exec(file, null));
+    }
+
+    @Test
+    void typedValuesFromText(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("a.xlsx");
+        writeTypedText(file, "2024-02-29", "2024-03-01 13:30:00", "1234.5");
+        List<Bean2ExcelTest.TypedValues> objects =
+            Excel2Bean.getReadSheetFunc(Bean2ExcelTest.TypedValues.class).exec(file, null);
+        assertEquals(List.of(new Bean2ExcelTest.TypedValues(
+            LocalDate.of(2024, 2, 29),
+            LocalDateTime.of(2024, 3, 1, 13, 30),
+            new BigDecimal("1234.5"),
+            new BigDecimal("1"),
+            Bean2ExcelTest.Level.HIGH,
+            5
+        )), objects);
+
+        writeTypedText(file, "29/02/2024", "2024-03-01", "1234.5");
+        Bean2ExcelException e = assertThrows(Bean2ExcelException.class,
+            () -> Excel2Bean.getReadSheetFunc(Bean2ExcelTest.TypedValues.class).exec(file, null));
+        assertTrue(e.getMessage().contains("A2"), e.getMessage());
+    }
+
+    /**
+     * Write a sheet of {@link Bean2ExcelTest.TypedValues} whose cells are all text.
+     */
+    private static void writeTypedText(Path file, String date, String time, String amount) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("My sheet");
+            Row header = sheet.createRow(0);
+            Row row = sheet.createRow(1);
+            List<String> columns = List.of("date", "time", "amount", "exact", "level", "id");
+            List<String> texts = List.of(date, time, amount, "1", "HIGH", "5");
+            for (int column = 0; column < columns.size(); column++) {
+                header.createCell(column).setCellValue(columns.get(column));
+                row.createCell(column).setCellValue(texts.get(column));
+            }
+            write(workbook, file);
+        }
+    }
+}
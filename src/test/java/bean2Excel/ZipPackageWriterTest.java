@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static bean2Excel.ZipPackageWriter.DeflatedData;
+import static bean2Excel.ZipPackageWriter.DeflatingOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipPackageWriterTest {
+
+    @Test
+    void streamedEntries() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ZipPackageWriter writer = new ZipPackageWriter(out);
+        for (String name : new String[] { "a.xml", "b.xml" }) {
+            try (OutputStream entry = writer.startEntry(name)) {
+                entry.write(("content of " + name).repeat(1000).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        writer.close();
+
+        // streaming readers rely on data descriptors
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (String name : new String[] { "a.xml", "b.xml" }) {
+                assertEquals(name, zip.getNextEntry().getName());
+                assertEquals(("content of " + name).repeat(1000), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void streamedEntryLimit() throws Exception {
+        byte[] data = new byte[2000];
+        new Random(1).nextBytes(data);
+
+        ZipPackageWriter writer = new ZipPackageWriter(OutputStream.nullOutputStream(), 1000);
+        OutputStream entry = writer.startEntry("a.xml");
+        assertThrows(IOException.class, () -> entry.write(data));
+
+        // data that doesn't compress exceeds the limit once deflated
+        ZipPackageWriter compressedWriter = new ZipPackageWriter(OutputStream.nullOutputStream(), 1500);
+        OutputStream compressedEntry = compressedWriter.startEntry("a.xml");
+        compressedEntry.write(data, 0, 1500);
+        assertThrows(IOException.class, compressedEntry::close);
+    }
+
+    @Test
+    void zip64Entries(@TempDir Path dir) throws Exception {
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        DeflatingOutputStream deflatingStream = new DeflatingOutputStream(deflated);
+        deflatingStream.write(new byte[1000]);
+        DeflatedData data = deflatingStream.finish();
+        // sizes beyond 4 GB, without writing them
+        long size = 5_000_000_000L;
+        DeflatedData largeData = new DeflatedData(data.crc(), size, data.compressedSize());
+
+        Path file = dir.resolve("a.zip");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            ZipPackageWriter writer = new ZipPackageWriter(out);
+            writer.addEntry("large.xml", largeData, new ByteArrayInputStream(deflated.toByteArray()));
+            // more entries than the end of central directory record can count
+            for (int i = 0; i < 70000; i++) {
+                writer.addEntry("entry" + i + ".xml", data, new ByteArrayInputStream(deflated.toByteArray()));
+            }
+            writer.close();
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(70001, zip.size());
+            ZipEntry entry = zip.getEntry("large.xml");
+            assertEquals(size, entry.getSize());
+            assertEquals(data.compressedSize(), entry.getCompressedSize());
+            assertEquals(1000, zip.getInputStream(zip.getEntry("entry69999.xml")).readAllBytes().length);
+        }
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(file))) {
+            assertEquals(size, zip.getNextEntry().getSize());
+        }
+    }
+}
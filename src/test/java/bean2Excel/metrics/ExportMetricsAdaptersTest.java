@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.metrics;
+
+import bean2Excel.Bean2Excel;
+import bean2Excel.Bean2ExcelTest.BorderedClass;
+import bean2Excel.ExportOptions;
+import bean2Excel.SheetSource;
+import bean2Excel.WorkbookExport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportMetricsAdaptersTest {
+
+    private static void export(ExportOptions options) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Bean2Excel.getCreateSheetFunc(BorderedClass.class, options)
+                .exec(Stream.generate(() -> new BorderedClass("a", "b")).limit(100), workbook, "Bordered");
+        }
+        WorkbookExport.builder()
+            .sheet(SheetSource.of(BorderedClass.class, "Bordered", List.of(new BorderedClass("a", "b"))))
+            .options(options)
+            .build()
+            .writeTo(new ByteArrayOutputStream());
+    }
+
+    @Test
+    void micrometer() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        export(ExportOptions.builder().metrics(new MicrometerExportMetrics(registry)).build());
+
+        assertEquals(1, registry.get("bean2excel.sheet").tag("type", "BorderedClass").timer().count());
+        assertEquals(100, registry.get("bean2excel.sheet.rows").counter().count());
+        assertEquals(5, registry.get("bean2excel.sheet.phase").timers().size());
+        assertTrue(registry.get("bean2excel.sheet.styles").summary().totalAmount() > 0);
+        assertEquals(1, registry.get("bean2excel.workbook.rows").counter().count());
+        assertTrue(registry.get("bean2excel.workbook.bytes").counter().count() > 0);
+        assertTrue(registry.get("bean2excel.cache.misses").functionCounter().count() > 0);
+    }
+
+    @Test
+    void jfr(@TempDir Path tempDir) throws Exception {
+        Path recordingFile = tempDir.resolve("export.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("bean2Excel.SheetCreated");
+            recording.enable("bean2Excel.WorkbookWritten");
+            recording.start();
+            export(ExportOptions.builder().metrics(new JfrExportMetrics()).build());
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        RecordedEvent sheetCreated = events.stream()
+            .filter(event -> event.getEventType().getName().equals("bean2Excel.SheetCreated"))
+            .findFirst().orElseThrow();
+        assertEquals(100, sheetCreated.getLong("rowCount"));
+        assertEquals("Bordered", sheetCreated.getString("sheetName"));
+        RecordedEvent workbookWritten = events.stream()
+            .filter(event -> event.getEventType().getName().equals("bean2Excel.WorkbookWritten"))
+            .findFirst().orElseThrow();
+        assertTrue(workbookWritten.getLong("bytesWritten") > 0);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Le Manh Hieu
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package bean2Excel.processor;
+
+import bean2Excel.Bean2Excel;
+import bean2Excel.GeneratedBeanInfo;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Bean2ExcelProcessorTest {
+
+    private static final String BEAN_SOURCE = """
+        package sample;
+
+        import bean2Excel.ExcelColumn;
+        import bean2Excel.style.CellStyleProperties;
+        import bean2Excel.style.GeneralCellStyle;
+        import org.apache.poi.ss.usermodel.CellType;
+
+        @GeneralCellStyle
+        public class Sample {
+            @ExcelColumn(columnName = "name", cellType = CellType.STRING, order = 2)
+            @CellStyleProperties(autoFit = false)
+            private final String name;
+            @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 1)
+            private final int count;
+            @ExcelColumn(columnName = "active", cellType = CellType.BOOLEAN, order = 3)
+            private final boolean active;
+
+            // class calling the getter of name, the generated class when its accessors are used
+            public static Class<?> nameCaller;
+
+            public Sample(String name, int count, boolean active) {
+                this.name = name;
+                this.count = count;
+                this.active = active;
+            }
+
+            public String getName() {
+                nameCaller = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).getCallerClass();
+                return name;
+            }
+            public int getCount() { return count; }
+            public boolean isActive() { return active; }
+        }
+        """;
+
+    private static final String RECORD_SOURCE = """
+        package sample;
+
+        import bean2Excel.ExcelColumn;
+        import org.apache.poi.ss.usermodel.CellType;
+
+        public record SampleRecord(
+            @ExcelColumn(columnName = "name", cellType = CellType.STRING) String name,
+            @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC, order = 1) int count
+        ) {}
+        """;
+
+    private static final String FIELDS_SOURCE = """
+        package sample;
+
+        import bean2Excel.ExcelColumn;
+        import org.apache.poi.ss.usermodel.CellType;
+
+        public class SampleFields {
+            @ExcelColumn(columnName = "count", cellType = CellType.NUMERIC)
+            int count = 7;
+        }
+        """;
+
+    @Test
+    void generatedBeanInfo(@TempDir Path tempDir) throws Exception {
+        Path source = tempDir.resolve("sample/Sample.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, BEAN_SOURCE);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null,
+            "-processor", Bean2ExcelProcessor.class.getName(),
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", tempDir.toString(),
+            source.toString());
+        assertEquals(0, result);
+        assertTrue(Files.exists(tempDir.resolve("sample/Sample_Bean2Excel.class")));
+        assertEquals("sample.Sample_Bean2Excel", Files.readString(
+            tempDir.resolve("META-INF/services/" + GeneratedBeanInfo.class.getName())).trim());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {tempDir.toUri().toURL()}, getClass().getClassLoader());
+             Workbook workbook = new XSSFWorkbook()
+        ) {
+            Class<?> beanType = classLoader.loadClass("sample.Sample");
+            Object bean = beanType.getConstructor(String.class, int.class, boolean.class).newInstance("foo", 3, true);
+            Sheet sheet = createSheet(beanType, bean, workbook, "My sheet");
+            // the lambdas of the generated class are used rather than getters found by reflection
+            assertEquals("sample.Sample_Bean2Excel", ((Class<?>) beanType.getField("nameCaller").get(null)).getName());
+
+            Row header = sheet.getRow(0);
+            assertEquals("count", header.getCell(0).getStringCellValue());
+            assertEquals("name", header.getCell(1).getStringCellValue());
+            assertEquals("active", header.getCell(2).getStringCellValue());
+            Row row = sheet.getRow(1);
+            assertEquals(3, row.getCell(0).getNumericCellValue());
+            assertEquals("foo", row.getCell(1).getStringCellValue());
+            assertTrue(row.getCell(2).getBooleanCellValue());
+        }
+    }
+
+    @Test
+    void generatedAccessors(@TempDir Path tempDir) throws Exception {
+        Path recordSource = tempDir.resolve("sample/SampleRecord.java");
+        Path fieldsSource = tempDir.resolve("sample/SampleFields.java");
+        Files.createDirectories(recordSource.getParent());
+        Files.writeString(recordSource, RECORD_SOURCE);
+        Files.writeString(fieldsSource, FIELDS_SOURCE);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null,
+            "-processor", Bean2ExcelProcessor.class.getName(),
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", tempDir.toString(),
+            recordSource.toString(), fieldsSource.toString());
+        assertEquals(0, result);
+        assertTrue(Files.exists(tempDir.resolve("sample/SampleRecord_Bean2Excel.class")));
+        assertTrue(Files.exists(tempDir.resolve("sample/SampleFields_Bean2Excel.class")));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {tempDir.toUri().toURL()}, getClass().getClassLoader());
+             Workbook workbook = new XSSFWorkbook()
+        ) {
+            Class<?> recordType = classLoader.loadClass("sample.SampleRecord");
+            Object record = recordType.getConstructor(String.class, int.class).newInstance("foo", 3);
+            Sheet sheet = createSheet(recordType, record, workbook, "Records");
+            assertEquals("foo", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertEquals(3, sheet.getRow(1).getCell(1).getNumericCellValue());
+
+            Class<?> fieldsType = classLoader.loadClass("sample.SampleFields");
+            Object bean = fieldsType.getConstructor().newInstance();
+            sheet = createSheet(fieldsType, bean, workbook, "Fields");
+            assertEquals(7, sheet.getRow(1).getCell(0).getNumericCellValue());
+        }
+    }
+
+    private static <T> Sheet createSheet(Class<T> beanType, Object bean, Workbook workbook, String sheetName) {
+        return Bean2Excel.getCreateSheetFunc(beanType).exec(List.of(beanType.cast(bean)), workbook, sheetName);
+    }
+}